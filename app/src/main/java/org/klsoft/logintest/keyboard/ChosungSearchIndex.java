@@ -0,0 +1,348 @@
+package org.klsoft.logintest.keyboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Desc : 초성 검색 색인
+ * 문자열 목록의 초성 문자열(EngKorTypingConvertor.extractChosung)을 미리 만들고,
+ * 초성 1글자(unigram)/2글자(bigram) 별로 그 초성열을 포함하는 항목 id 목록(posting)을 둔다.
+ * 조회시에는 검색어의 gram 중 posting 이 가장 짧은 것의 항목만 초성 문자열로 확인하므로, 전체 목록을 훑지 않는다.
+ * ex) ㅎㄱ -> 한국, 한글, 대한국어
+ * <p>
+ * posting 은 CSR 형식(gram 별 시작 위치 + 항목 id 배열)이고, 항목 id 는 오름차순이다.
+ * 전방 일치용으로 초성 문자열의 첫 unigram, 첫 bigram 만 모은 posting 을 따로 둔다.
+ * 색인 생성은 항목을 CHUNK_SIZE 개씩 나누어 ForkJoinPool 에서 병렬로 한다.
+ * <p>
+ * 생성 후에는 바뀌지 않으므로, 여러 thread 에서 조회해도 된다. 조회용 작업 배열은 호출하는 쪽이 thread 마다 따로 둔다.
+ */
+final class ChosungSearchIndex {
+
+    /**
+     * gram 의 문자 code, 0 : 초성이 아닌 문자, 1 ~ 19 : SPLIT_CHOSUNG_CHAR index + 1
+     **/
+    private static final int CODE_COUNT = EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR.length + 1;
+
+    /**
+     * unigram : code, bigram : CODE_COUNT + code1 * CODE_COUNT + code2
+     **/
+    private static final int GRAM_COUNT = CODE_COUNT + CODE_COUNT * CODE_COUNT;
+
+    /**
+     * 병렬 생성시 한 작업이 맡는 항목 수
+     **/
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final char COMPAT_CHOSUNG_START = 0x3131;
+    private static final byte[] CHOSUNG_CODE = new byte[0x314E - COMPAT_CHOSUNG_START + 1];
+
+    static {
+        for (int i = 0; i < EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR.length; i++) {
+            CHOSUNG_CODE[EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR[i] - COMPAT_CHOSUNG_START] = (byte) (i + 1);
+        }
+    }
+
+    private final int size;
+    private final char[] keys;
+    private final int[] keyOffsets;
+    private final int[] gramOffsets;
+    private final int[] postings;
+    private final int[] prefixGramOffsets;
+    private final int[] prefixPostings;
+
+    /**
+     * chunk 하나의 작업 결과
+     */
+    private static final class Chunk {
+        final int from;
+        final int to;
+        char[] keys;
+        int[] keyLengths;
+        int keyLength;
+        final int[] gramCounts = new int[GRAM_COUNT];
+        final int[] prefixGramCounts = new int[GRAM_COUNT];
+        final int[] gramStarts = new int[GRAM_COUNT];
+        final int[] prefixGramStarts = new int[GRAM_COUNT];
+        int keyStart;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    ChosungSearchIndex(List<? extends CharSequence> entries) {
+        this(entries, ForkJoinPool.commonPool());
+    }
+
+    ChosungSearchIndex(List<? extends CharSequence> entries, ForkJoinPool pool) {
+        size = entries.size();
+        final List<Chunk> chunks = new ArrayList<>();
+        for (int from = 0; from < size; from += CHUNK_SIZE) {
+            chunks.add(new Chunk(from, Math.min(size, from + CHUNK_SIZE)));
+        }
+
+        // 1. chunk 별로 초성 문자열을 만들고 gram 수를 센다.
+        List<Callable<Void>> tasks = new ArrayList<>(chunks.size());
+        for (final Chunk chunk : chunks) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    extract(entries, chunk);
+                    return null;
+                }
+            });
+        }
+        invokeAll(pool, tasks);
+
+        // 2. 초성 문자열과 posting 의 위치를 정한다. chunk 순서대로 쌓으므로 항목 id 는 오름차순이 된다.
+        int keyLength = 0;
+        for (Chunk chunk : chunks) {
+            chunk.keyStart = keyLength;
+            keyLength += chunk.keyLength;
+        }
+        gramOffsets = new int[GRAM_COUNT + 1];
+        prefixGramOffsets = new int[GRAM_COUNT + 1];
+        int total = 0;
+        int prefixTotal = 0;
+        for (int gram = 0; gram < GRAM_COUNT; gram++) {
+            gramOffsets[gram] = total;
+            prefixGramOffsets[gram] = prefixTotal;
+            for (Chunk chunk : chunks) {
+                chunk.gramStarts[gram] = total;
+                chunk.prefixGramStarts[gram] = prefixTotal;
+                total += chunk.gramCounts[gram];
+                prefixTotal += chunk.prefixGramCounts[gram];
+            }
+        }
+        gramOffsets[GRAM_COUNT] = total;
+        prefixGramOffsets[GRAM_COUNT] = prefixTotal;
+        keys = new char[keyLength];
+        keyOffsets = new int[size + 1];
+        keyOffsets[size] = keyLength;
+        postings = new int[total];
+        prefixPostings = new int[prefixTotal];
+
+        // 3. chunk 별로 자기 구간을 채운다.
+        tasks.clear();
+        for (final Chunk chunk : chunks) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    fill(chunk);
+                    return null;
+                }
+            });
+        }
+        invokeAll(pool, tasks);
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void extract(List<? extends CharSequence> entries, Chunk chunk) {
+        int capacity = 0;
+        for (int id = chunk.from; id < chunk.to; id++) {
+            capacity += entries.get(id).length();
+        }
+        chunk.keys = new char[capacity];
+        chunk.keyLengths = new int[chunk.to - chunk.from];
+        int[] lastSeen = newLastSeen();
+        int pos = 0;
+        for (int id = chunk.from; id < chunk.to; id++) {
+            CharSequence entry = entries.get(id);
+            int length = EngKorTypingConvertor.extractChosung(entry, 0, entry.length(), chunk.keys, pos);
+            chunk.keyLengths[id - chunk.from] = length;
+            int first = length > 0 ? code(chunk.keys[pos]) : 0;
+            if (first != 0) {
+                chunk.prefixGramCounts[first]++;
+                int second = firstGram(chunk.keys, pos, length);
+                if (second != first) {
+                    chunk.prefixGramCounts[second]++;
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                int code = code(chunk.keys[pos + i]);
+                if (code == 0) continue;
+                count(chunk.gramCounts, lastSeen, code, id);
+                int next = i + 1 < length ? code(chunk.keys[pos + i + 1]) : 0;
+                if (next != 0) {
+                    count(chunk.gramCounts, lastSeen, bigram(code, next), id);
+                }
+            }
+            pos += length;
+        }
+        chunk.keyLength = pos;
+    }
+
+    private static void count(int[] counts, int[] lastSeen, int gram, int id) {
+        if (lastSeen[gram] != id) {
+            lastSeen[gram] = id;
+            counts[gram]++;
+        }
+    }
+
+    private void fill(Chunk chunk) {
+        System.arraycopy(chunk.keys, 0, keys, chunk.keyStart, chunk.keyLength);
+        int[] lastSeen = newLastSeen();
+        int pos = chunk.keyStart;
+        for (int id = chunk.from; id < chunk.to; id++) {
+            int length = chunk.keyLengths[id - chunk.from];
+            keyOffsets[id] = pos;
+            int first = length > 0 ? code(keys[pos]) : 0;
+            if (first != 0) {
+                prefixPostings[chunk.prefixGramStarts[first]++] = id;
+                int second = firstGram(keys, pos, length);
+                if (second != first) {
+                    prefixPostings[chunk.prefixGramStarts[second]++] = id;
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                int code = code(keys[pos + i]);
+                if (code == 0) continue;
+                add(chunk.gramStarts, lastSeen, code, id);
+                int next = i + 1 < length ? code(keys[pos + i + 1]) : 0;
+                if (next != 0) {
+                    add(chunk.gramStarts, lastSeen, bigram(code, next), id);
+                }
+            }
+            pos += length;
+        }
+        chunk.keys = null;
+    }
+
+    private void add(int[] starts, int[] lastSeen, int gram, int id) {
+        if (lastSeen[gram] != id) {
+            lastSeen[gram] = id;
+            postings[starts[gram]++] = id;
+        }
+    }
+
+    private static int[] newLastSeen() {
+        int[] lastSeen = new int[GRAM_COUNT];
+        Arrays.fill(lastSeen, -1);
+        return lastSeen;
+    }
+
+    /**
+     * @return 초성 문자열의 첫 bigram (2번째 문자가 초성이 아니면 unigram), 첫 문자가 초성이 아니면 -1
+     */
+    private static int firstGram(char[] key, int pos, int length) {
+        int code = length > 0 ? code(key[pos]) : 0;
+        if (code == 0) {
+            return -1;
+        }
+        int next = length > 1 ? code(key[pos + 1]) : 0;
+        return next == 0 ? code : bigram(code, next);
+    }
+
+    private static int bigram(int code, int next) {
+        return CODE_COUNT + code * CODE_COUNT + next;
+    }
+
+    private static int code(char c) {
+        int idx = c - COMPAT_CHOSUNG_START;
+        return idx >= 0 && idx < CHOSUNG_CODE.length ? CHOSUNG_CODE[idx] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 초성 문자열에 검색어의 초성 문자열이 들어있는 항목을 id 순서로 찾는다.
+     * 검색어의 완성형 음절도 초성으로 바꾸어 비교한다. ex) 한ㄱ == ㅎㄱ
+     *
+     * @param query   검색어 (호환용 자모 초성, 완성형 한글)
+     * @param prefix  true 이면 초성 문자열이 검색어로 시작하는 항목만 찾는다.
+     * @param chosung 검색어의 초성 문자열을 담을 작업 배열, query.length() 이상이어야 한다.
+     *                조회마다 할당하지 않도록 호출하는 쪽이 다시 쓴다.
+     * @param out     결과(항목 id)를 담을 배열, 최대 out.length 개를 찾는다.
+     * @return 찾은 항목 수
+     */
+    int search(CharSequence query, boolean prefix, char[] chosung, int[] out) {
+        if (chosung.length < query.length()) {
+            throw new IllegalArgumentException("chosung buffer is shorter than the query");
+        }
+        int length = EngKorTypingConvertor.extractChosung(query, 0, query.length(), chosung, 0);
+        if (length == 0) {
+            return 0;
+        }
+
+        // posting 이 가장 짧은 gram 을 고른다. 초성이 없는 검색어는 전체를 확인한다.
+        int[] list = null;
+        int from = 0;
+        int to = size;
+        if (prefix) {
+            int first = firstGram(chosung, 0, length);
+            if (first != -1) {
+                list = prefixPostings;
+                from = prefixGramOffsets[first];
+                to = prefixGramOffsets[first + 1];
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            int code = code(chosung[i]);
+            if (code == 0) continue;
+            int next = i + 1 < length ? code(chosung[i + 1]) : 0;
+            int gram = next == 0 ? code : bigram(code, next);
+            if (list == null || gramOffsets[gram + 1] - gramOffsets[gram] < to - from) {
+                list = postings;
+                from = gramOffsets[gram];
+                to = gramOffsets[gram + 1];
+            }
+        }
+
+        int count = 0;
+        for (int i = from; i < to && count < out.length; i++) {
+            int id = list == null ? i : list[i];
+            if (prefix ? startsWith(id, chosung, length) : contains(id, chosung, length)) {
+                out[count++] = id;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return id 항목의 초성 문자열
+     */
+    String chosungOf(int id) {
+        return new String(keys, keyOffsets[id], keyOffsets[id + 1] - keyOffsets[id]);
+    }
+
+    private boolean startsWith(int id, char[] q, int length) {
+        int start = keyOffsets[id];
+        if (keyOffsets[id + 1] - start < length) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (keys[start + j] != q[j]) return false;
+        }
+        return true;
+    }
+
+    private boolean contains(int id, char[] q, int length) {
+        int last = keyOffsets[id + 1] - length;
+        for (int start = keyOffsets[id]; start <= last; start++) {
+            int j = 0;
+            while (j < length && keys[start + j] == q[j]) j++;
+            if (j == length) return true;
+        }
+        return false;
+    }
+}
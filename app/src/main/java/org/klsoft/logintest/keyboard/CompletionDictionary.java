@@ -0,0 +1,167 @@
+package org.klsoft.logintest.keyboard;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Desc : 자모 단위 단어 자동완성 사전
+ * 단어를 두벌식 키 입력열(convertKor2Eng)로 바꾼 최소화 DAWG 를 memory-map 하여 그대로 탐색한다.
+ * 키 입력열은 자모 순서이므로, 조합중인 음절도 자모 단위로 맞춰진다. ex) 한그 (gksrm) -> 한글 (gksrmf)
+ * 파일 전체를 heap 에 올리지 않으므로, 사용하는 메모리는 탐색한 page 만큼이다. (CompletionDictionaryBuilder 로 생성)
+ * <p>
+ * - header : magic, version, arc 수, root arc index (int x 4)
+ * - arc : int[arc 수], 한 node 의 arc 는 연속되어 있고 마지막 arc 에 ARC_LAST 가 있다.
+ * bit 0-5 : 키 (KEYS 의 index), bit 6 : 이 arc 에서 단어가 끝남, bit 7 : node 의 마지막 arc, bit 8-31 : 다음 node 의 첫 arc (0: 없음)
+ * <p>
+ * 내부 버퍼를 쓰므로, 한 thread 에서만 사용한다.
+ */
+final class CompletionDictionary {
+
+    static final String ASSET_NAME = "completion_dictionary.bin";
+
+    static final int MAGIC = 0x4B4C4457; // KLDW
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * arc 의 키 순서 (ASCII 순서, builder 의 정렬순서와 같다)
+     **/
+    static final String KEYS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    static final int LABEL_MASK = 0x3F;
+    static final int ARC_FINAL = 1 << 6;
+    static final int ARC_LAST = 1 << 7;
+    static final int TARGET_SHIFT = 8;
+    static final int MAX_ARCS = 1 << (32 - TARGET_SHIFT);
+
+    /**
+     * 단어의 최대 키 수
+     **/
+    static final int MAX_WORD_KEYS = 64;
+
+    /**
+     * 입력된 키 뒤로 완성할 최대 키 수
+     **/
+    private static final int MAX_COMPLETION_KEYS = 16;
+
+    /**
+     * 한 번의 조회에서 방문할 최대 arc 수, 저사양 기기에서도 한 frame 안에 끝나도록 제한한다.
+     **/
+    private static final int MAX_VISITED_ARCS = 20000;
+
+    private final IntBuffer arcs;
+    private final int root;
+
+    private final char[] keys = new char[MAX_WORD_KEYS];
+    private final CharBuffer keysView = CharBuffer.wrap(keys);
+    private final char[] word = new char[MAX_WORD_KEYS];
+    private int visited;
+
+    CompletionDictionary(ByteBuffer dictionary) {
+        if (dictionary.remaining() < HEADER_SIZE
+                || dictionary.getInt(dictionary.position()) != MAGIC
+                || dictionary.getInt(dictionary.position() + 4) != VERSION) {
+            throw new IllegalArgumentException("not a completion dictionary");
+        }
+        int arcCount = dictionary.getInt(dictionary.position() + 8);
+        this.root = dictionary.getInt(dictionary.position() + 12);
+        ByteBuffer body = dictionary.duplicate();
+        body.position(dictionary.position() + HEADER_SIZE);
+        this.arcs = body.slice().asIntBuffer();
+        if (arcs.limit() < arcCount || root < 0 || root >= arcCount) {
+            throw new IllegalArgumentException("truncated completion dictionary");
+        }
+    }
+
+    /**
+     * @return KEYS 의 index, 영문자가 아니면 -1
+     */
+    static int label(char key) {
+        if (key >= 'A' && key <= 'Z') {
+            return key - 'A';
+        } else if (key >= 'a' && key <= 'z') {
+            return key - 'a' + 26;
+        }
+        return -1;
+    }
+
+    /**
+     * 입력중인 한글 단어로 시작하는 단어를, 짧은 단어부터 찾는다.
+     * 입력된 단어 자체는 결과에 넣지 않는다.
+     *
+     * @param text  입력된 문자열 (완성형 한글, 호환용 자모)
+     * @param start 단어 시작 index
+     * @param end   단어 끝 index (exclusive)
+     * @param out   결과를 담을 배열, 최대 out.length 개를 찾는다.
+     * @return 찾은 단어 수
+     */
+    int complete(CharSequence text, int start, int end, String[] out) {
+        if (start >= end || (end - start) * EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR > MAX_WORD_KEYS) {
+            return 0;
+        }
+        int length = EngKorTypingConvertor.convertKor2Eng(text, start, end, keys, 0);
+        int node = root;
+        for (int i = 0; i < length; i++) {
+            int arc = findArc(node, label(keys[i]));
+            if (arc == -1) {
+                return 0;
+            }
+            node = arcs.get(arc) >>> TARGET_SHIFT;
+        }
+
+        // 짧은 단어부터 돌려주기 위해 깊이를 하나씩 늘려가며 찾는다.
+        visited = 0;
+        int count = 0;
+        int maxDepth = Math.min(MAX_COMPLETION_KEYS, MAX_WORD_KEYS - length);
+        for (int depth = 1; depth <= maxDepth && count < out.length && visited < MAX_VISITED_ARCS; depth++) {
+            count = collect(node, length, depth, out, count);
+        }
+        return count;
+    }
+
+    /**
+     * @return node 에서 label 로 가는 arc 의 index, 없으면 -1
+     */
+    private int findArc(int node, int label) {
+        if (node == 0 || label == -1) {
+            return -1;
+        }
+        for (int arc = node; ; arc++) {
+            int value = arcs.get(arc);
+            if ((value & LABEL_MASK) == label) {
+                return arc;
+            }
+            if ((value & ARC_LAST) != 0 || (value & LABEL_MASK) > label) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * node 에서 정확히 remaining 개의 키 뒤에 끝나는 단어를 out 에 더한다.
+     */
+    private int collect(int node, int length, int remaining, String[] out, int count) {
+        if (node == 0) {
+            return count;
+        }
+        for (int arc = node; ; arc++) {
+            if (count == out.length || visited++ >= MAX_VISITED_ARCS) {
+                return count;
+            }
+            int value = arcs.get(arc);
+            keys[length] = KEYS.charAt(value & LABEL_MASK);
+            if (remaining == 1) {
+                if ((value & ARC_FINAL) != 0) {
+                    int n = EngKorTypingConvertor.convertEng2Kor(keysView, 0, length + 1, word, 0, false);
+                    out[count++] = new String(word, 0, n);
+                }
+            } else {
+                count = collect(value >>> TARGET_SHIFT, length + 1, remaining - 1, out, count);
+            }
+            if ((value & ARC_LAST) != 0) {
+                return count;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.klsoft.logintest.keyboard;
+
+/**
+ * Desc : 두벌식 자판
+ * 자음키는 호환용 자모를 보내고, 초성/종성은 HangulAutomaton 이 문맥으로 정한다.
+ * 숫자줄과 쉼표/마침표는 그대로 두고, 된소리와 ㅒ ㅖ 는 shift 단에 있다.
+ */
+final class DubeolsikLayout implements HangulLayout {
+
+    private static final char[] LETTER_KEYS = {
+            '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
+            'ㅂ', 'ㅈ', 'ㄷ', 'ㄱ', 'ㅅ', 'ㅛ', 'ㅕ', 'ㅑ', 'ㅐ', 'ㅔ',
+            'ㅁ', 'ㄴ', 'ㅇ', 'ㄹ', 'ㅎ', 'ㅗ', 'ㅓ', 'ㅏ', 'ㅣ',
+            'ㅋ', 'ㅌ', 'ㅊ', 'ㅍ', 'ㅠ', 'ㅜ', 'ㅡ',
+            ',', '.'
+    };
+
+    private static final char[] SHIFT_LETTER_KEYS = {
+            '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
+            'ㅃ', 'ㅉ', 'ㄸ', 'ㄲ', 'ㅆ', 'ㅛ', 'ㅕ', 'ㅑ', 'ㅒ', 'ㅖ',
+            'ㅁ', 'ㄴ', 'ㅇ', 'ㄹ', 'ㅎ', 'ㅗ', 'ㅓ', 'ㅏ', 'ㅣ',
+            'ㅋ', 'ㅌ', 'ㅊ', 'ㅍ', 'ㅠ', 'ㅜ', 'ㅡ',
+            ',', '.'
+    };
+
+    @Override
+    public char getLetterKey(boolean shifted, int index) {
+        return shifted ? SHIFT_LETTER_KEYS[index] : LETTER_KEYS[index];
+    }
+
+    @Override
+    public boolean movesJongsung() {
+        return true;
+    }
+
+    @Override
+    public boolean doublesChosung() {
+        return false;
+    }
+}
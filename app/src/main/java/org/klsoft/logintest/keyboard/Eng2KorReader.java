@@ -0,0 +1,120 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Desc : 영문 타이핑 문자열을 읽으면서 한글로 변환하는 Reader
+ * 입력은 고정크기 버퍼로만 읽으므로, 입력 크기와 관계없이 메모리 사용량이 일정하다.
+ * 음절이 버퍼 경계에 걸치면 {@link EngKorTypingConvertor#ENG2KOR_LOOKAHEAD} 만큼 더 읽은 후에 변환한다.
+ * ex) "gks" + "rmf" -> 한글
+ */
+final class Eng2KorReader extends Reader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final boolean allowDoubleJaum;
+
+    /**
+     * 아직 변환하지 않은 입력 [inPos, inLimit)
+     */
+    private final char[] inBuf;
+    private final CharBuffer inSeq;
+    private int inPos;
+    private int inLimit;
+    private boolean eof;
+
+    private final char[] singleChar = new char[1];
+
+    Eng2KorReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * @param in              영문 타이핑 문자열 입력
+     * @param bufferSize      입력 버퍼 크기 (최소 {@link EngKorTypingConvertor#ENG2KOR_LOOKAHEAD})
+     * @param allowDoubleJaum 복합자음 변환을 허용할지 여부
+     */
+    Eng2KorReader(Reader in, int bufferSize, boolean allowDoubleJaum) {
+        super(in);
+        if (bufferSize < EngKorTypingConvertor.ENG2KOR_LOOKAHEAD) {
+            throw new IllegalArgumentException("bufferSize < " + EngKorTypingConvertor.ENG2KOR_LOOKAHEAD);
+        }
+        this.in = in;
+        this.allowDoubleJaum = allowDoubleJaum;
+        this.inBuf = new char[bufferSize];
+        this.inSeq = CharBuffer.wrap(inBuf);
+    }
+
+    /**
+     * 남은 입력을 버퍼 앞으로 옮기고, 버퍼를 채운다.
+     *
+     * @return 읽은 문자가 없으면(EOF) false
+     */
+    private boolean fill() throws IOException {
+        if (inPos > 0) {
+            System.arraycopy(inBuf, inPos, inBuf, 0, inLimit - inPos);
+            inLimit -= inPos;
+            inPos = 0;
+        }
+        int n = in.read(inBuf, inLimit, inBuf.length - inLimit);
+        if (n == -1) {
+            eof = true;
+            return false;
+        }
+        inLimit += n;
+        return true;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            if (off < 0 || len < 0 || off + len > cbuf.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            int pos = off;
+            int end = off + len;
+            while (pos < end) {
+                if (!eof && inLimit - inPos < EngKorTypingConvertor.ENG2KOR_LOOKAHEAD) {
+                    // 이미 변환한 문자가 있으면, 더 읽느라 block 하지 않는다.
+                    if (pos > off) break;
+                    fill();
+                    continue;
+                }
+                if (inPos == inLimit) break;
+
+                int step = EngKorTypingConvertor.convertEng2KorStep(inSeq, inPos, inLimit, allowDoubleJaum);
+                if (EngKorTypingConvertor.stepHasOutput(step)) {
+                    cbuf[pos++] = EngKorTypingConvertor.stepOutput(step);
+                }
+                inPos += EngKorTypingConvertor.stepConsumed(step);
+            }
+            if (pos == off && len > 0) {
+                return -1;
+            }
+            return pos - off;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        synchronized (lock) {
+            return read(singleChar, 0, 1) == -1 ? -1 : singleChar[0];
+        }
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        synchronized (lock) {
+            return inLimit - inPos >= EngKorTypingConvertor.ENG2KOR_LOOKAHEAD
+                    || (eof && inPos < inLimit);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
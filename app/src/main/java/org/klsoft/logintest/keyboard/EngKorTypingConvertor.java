@@ -1,53 +1,43 @@
 package org.klsoft.logintest.keyboard;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
 /**
  * Author : tadadak (dev.tadadak@gmail.com)
  * Date : 2020-01-09
  * Desc : 영문->한글 / 한글->영문 타이핑 상호 변환모듈
  */
-class EngKorTypingConvertor {
+public class EngKorTypingConvertor {
 
     /**
      * 유니코드표내 한글문자 전체 개수
      * 초성 19, 중성 21, 종성 28개의 전체 조합.
      * 11172 = 19 * 21 * 28
      */
-    private static final int TOTAL_HANGUL_CHAR = 11172;
+    static final int TOTAL_HANGUL_CHAR = 11172;
 
     /**
      * 표음문자
      **/
-    private static final int PHONOGRAM = 28;
+    static final int PHONOGRAM = 28;
 
     /**
      * 모음수
      **/
-    private static final int VOWEL = 21;
+    static final int VOWEL = 21;
 
     /**
      * 한글문자 시작코드 [가], 코드번호 = 44032
      **/
-    private static final int HANGUL_CHAR_START_CODE = 0xAC00;
-
-    private static final Pattern ENG_PATTERN = Pattern.compile("[a-zA-Z]");
-
-    /**
-     * 음절(Syllable)타입
-     **/
-    enum HangulSyllableType {
-        CHOSUNG, JUNGSUNG, JONGSUNG
-    }
+    static final int HANGUL_CHAR_START_CODE = 0xAC00;
 
     /**
      * 한글변환시 리턴문자열 타입
      **/
     enum KorConvRtnType {
-        ALPHABET, JAUM_MOUM
+        ALPHABET, JAUM_MOUM, CHOSUNG
     }
 
     /**
@@ -120,7 +110,7 @@ class EngKorTypingConvertor {
     /**
      * 초성(19)
      */
-    private static final char[] SPLIT_CHOSUNG_CHAR = {
+    static final char[] SPLIT_CHOSUNG_CHAR = {
             0x3131, 0x3132, 0x3134, 0x3137, 0x3138,
             0x3139, 0x3141, 0x3142, 0x3143, 0x3145,
             0x3146, 0x3147, 0x3148, 0x3149, 0x314a,
@@ -129,7 +119,7 @@ class EngKorTypingConvertor {
     /**
      * 중성(21)
      */
-    private static final char[] SPLIT_JUNGSUNG_CHAR = {
+    static final char[] SPLIT_JUNGSUNG_CHAR = {
             0x314f, 0x3150, 0x3151, 0x3152, 0x3153,
             0x3154, 0x3155, 0x3156, 0x3157, 0x3158,
             0x3159, 0x315a, 0x315b, 0x315c, 0x315d,
@@ -139,7 +129,7 @@ class EngKorTypingConvertor {
     /**
      * 종성(1+27)
      */
-    private static final char[] SPLIT_JONGSUNG_CHAR = {
+    static final char[] SPLIT_JONGSUNG_CHAR = {
             0x0000, 0x3131, 0x3132, 0x3133, 0x3134,
             0x3135, 0x3136, 0x3137, 0x3139, 0x313a,
             0x313b, 0x313c, 0x313d, 0x313e, 0x313f,
@@ -148,10 +138,6 @@ class EngKorTypingConvertor {
             0x314c, 0x314d, 0x314e
     };
 
-    private static Map<String, Integer> chosungEngIdx;
-    private static Map<String, Integer> jungsungEngIdx;
-    private static Map<String, Integer> jongsungEngIdx;
-
     /**
      * 단일 자음 한글코드표 범위
      **/
@@ -162,71 +148,216 @@ class EngKorTypingConvertor {
      **/
     private static final int[] MOUM_CODE_AREA = {34127, 34147};
 
+    /**
+     * ASCII 코드표 크기
+     **/
+    private static final int ASCII_SIZE = 128;
+
+    /**
+     * 영문자 한개를 변환하기 위해 필요한 최대 탐색길이
+     * 초성(1) + 복합중성(2) + 겹받침(2) + 다음 중성(1)
+     **/
+    static final int ENG2KOR_LOOKAHEAD = 6;
+
+    /**
+     * 영문자(ASCII) -> 초성/중성/종성 index (-1: 해당없음)
+     */
+    private static final byte[] CHOSUNG_ASCII_IDX = new byte[ASCII_SIZE];
+    private static final byte[] JUNGSUNG_ASCII_IDX = new byte[ASCII_SIZE];
+    private static final byte[] JONGSUNG_ASCII_IDX = new byte[ASCII_SIZE];
+
+    /**
+     * 영문자 2개(ASCII, ASCII) -> 복합중성/겹받침 index (-1: 해당없음)
+     */
+    private static final byte[][] JUNGSUNG_ASCII_COMB = new byte[ASCII_SIZE][ASCII_SIZE];
+    private static final byte[][] JONGSUNG_ASCII_COMB = new byte[ASCII_SIZE][ASCII_SIZE];
+
+    /**
+     * 변환결과(step) : 0~15bit 변환문자, 16~23bit 사용한 입력문자수, 24bit 변환문자 없음
+     **/
+    private static final int STEP_NO_OUTPUT = 1 << 24;
+
     static {
-        chosungEngIdx = new HashMap<>();
-        jungsungEngIdx = new HashMap<>();
-        jongsungEngIdx = new HashMap<>();
+        fillAsciiIdx(CHOSUNG_ENG, CHOSUNG_ASCII_IDX, null, 0);
+        fillAsciiIdx(JUNGSONG_ENG, JUNGSUNG_ASCII_IDX, JUNGSUNG_ASCII_COMB, 0);
+        // 종성의 첫번째값은 쓰지 않음.
+        fillAsciiIdx(JONGSUNG_ENG, JONGSUNG_ASCII_IDX, JONGSUNG_ASCII_COMB, 1);
+    }
 
-        for (int i = 0; i < CHOSUNG_ENG.length; i++) {
-            chosungEngIdx.put(CHOSUNG_ENG[i], i);
-        }
-        for (int i = 0; i < JUNGSONG_ENG.length; i++) {
-            jungsungEngIdx.put(JUNGSONG_ENG[i], i);
+    private static void fillAsciiIdx(String[] engTable, byte[] single, byte[][] comb, int from) {
+        Arrays.fill(single, (byte) -1);
+        if (comb != null) {
+            for (byte[] row : comb) Arrays.fill(row, (byte) -1);
         }
-        for (int i = 0; i < JONGSUNG_ENG.length; i++) {
-            jongsungEngIdx.put(JONGSUNG_ENG[i], i);
+        for (int i = from; i < engTable.length; i++) {
+            String eng = engTable[i];
+            if (eng.length() == 1) {
+                single[eng.charAt(0)] = (byte) i;
+            } else if (comb != null) {
+                comb[eng.charAt(0)][eng.charAt(1)] = (byte) i;
+            }
         }
     }
 
     /**
-     * 단일영문자에 대응하는 음절코드표 index값 추출.
+     * 문자열 idx 위치의 영문자 1자에 대응하는 음절코드표 index값 추출.
+     */
+    private static int getSyllableIdx(byte[] single, CharSequence engStr, int idx, int end) {
+        if (idx >= end) return -1;
+        char c = engStr.charAt(idx);
+        return c < ASCII_SIZE ? single[c] : -1;
+    }
+
+    /**
+     * 문자열 idx 위치의 영문자 2자에 대응하는 복합 음절코드표 index값 추출.
+     */
+    private static int getSyllableIdx(byte[][] comb, CharSequence engStr, int idx, int end) {
+        if (idx + 2 > end) return -1;
+        char c1 = engStr.charAt(idx);
+        char c2 = engStr.charAt(idx + 1);
+        return c1 < ASCII_SIZE && c2 < ASCII_SIZE ? comb[c1][c2] : -1;
+    }
+
+    private static boolean isAlphabet(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int step(int consumed, char output) {
+        return consumed << 16 | output;
+    }
+
+    /**
+     * 영문자열의 idx 위치부터 한글문자 1자를 변환한다. (객체 생성 없음)
      *
-     * @param type    CHOSUNG: 초성 | JUNGSUNG: 중성 | JONGSUNG: 종성
-     * @param engChar 단일영문자
+     * @param engStr          영문자열
+     * @param idx             시작 index
+     * @param end             탐색 끝 index (exclusive)
+     * @param allowDoubleJaum 복합자음 변환을 허용할지 여부
+     * @return step : {@link #stepConsumed(int)}, {@link #stepHasOutput(int)}, {@link #stepOutput(int)} 로 확인
      */
-    private static int getSyllableCode(HangulSyllableType type, String engChar) {
-        Integer idx;
-        switch (type) {
-            case CHOSUNG:
-                idx = chosungEngIdx.get(engChar);
-                if (idx != null) {
-                    return idx * VOWEL * PHONOGRAM;
+    static int convertEng2KorStep(CharSequence engStr, int idx, int end, boolean allowDoubleJaum) {
+        char currentChar = engStr.charAt(idx);
+        // 영문자(a-zA-Z) 아니면, 그대로 넘긴다.
+        if (!isAlphabet(currentChar)) {
+            return step(1, currentChar);
+        }
+
+        int chosungIdx = CHOSUNG_ASCII_IDX[currentChar];
+
+        // 1. 초성코드인 경우
+        if (chosungIdx != -1) {
+            int i = idx + 1; // 다음문자로
+
+            // 1.1. 2자 조합의 중성코드 추출
+            int jungsungIdx = getSyllableIdx(JUNGSUNG_ASCII_COMB, engStr, i, end);
+            if (jungsungIdx != -1) {
+                i += 2;
+            } else {
+                // 1.1.2. 없다면, 단일조합 중성코드 추출
+                jungsungIdx = getSyllableIdx(JUNGSUNG_ASCII_IDX, engStr, i, end);
+                if (jungsungIdx == -1) {
+                    // allowDoubleJaum = true인 경우, 복합 초성코드 찾아봄 ex) ㄳ ㅄ
+                    if (allowDoubleJaum) {
+                        int doubleJaumIdx = getSyllableIdx(JONGSUNG_ASCII_COMB, engStr, idx, end);
+                        if (doubleJaumIdx != -1) {
+                            return step(2, SPLIT_JONGSUNG_CHAR[doubleJaumIdx]);
+                        }
+                    }
+                    return step(1, SPLIT_CHOSUNG_CHAR[chosungIdx]);
                 }
-                break;
-            case JUNGSUNG:
-                idx = jungsungEngIdx.get(engChar);
-                if (idx != null) {
-                    return idx * PHONOGRAM;
+                i++;
+            }
+
+            // 1.2. 2자 조합의 종성코드 추출
+            int jongsungIdx = getSyllableIdx(JONGSUNG_ASCII_COMB, engStr, i, end);
+            if (jongsungIdx != -1) {
+                // 1.2.1. 종성코드 찾았으면, 바로 다음 중성문자가 있을 경우 단일조합 종성코드만 사용한다.
+                if (getSyllableIdx(JUNGSUNG_ASCII_IDX, engStr, i + 2, end) != -1) {
+                    jongsungIdx = JONGSUNG_ASCII_IDX[engStr.charAt(i)];
+                    i++;
+                } else {
+                    i += 2;
                 }
-                break;
-            case JONGSUNG:
-                // 종성의 첫번째값은 쓰지 않음.
-                idx = jongsungEngIdx.get(engChar);
-                if (idx != null) {
-                    return idx;
+            } else if (getSyllableIdx(JUNGSUNG_ASCII_IDX, engStr, i + 1, end) != -1) {
+                // 1.2.2. 그 다음에 중성 문자가 존재하면, 종성 문자는 없는 한글문자다.
+                jongsungIdx = 0;
+            } else {
+                // 단일조합 종성코드 추출
+                jongsungIdx = getSyllableIdx(JONGSUNG_ASCII_IDX, engStr, i, end);
+                if (jongsungIdx == -1) {
+                    // 못찾았다면, 초성,중성으로 이루어진 한글이다.
+                    jongsungIdx = 0;
+                } else {
+                    i++;
                 }
-                break;
+            }
+            // 추출한 (초성문자 코드, 중성문자 코드, 종성문자 코드) 합한 후 변환하여 넘김.
+            return step(i - idx, (char) (HANGUL_CHAR_START_CODE
+                    + (chosungIdx * VOWEL + jungsungIdx) * PHONOGRAM + jongsungIdx));
+        }
+
+        // 2. 초성코드가 아닌 경우, 중성인지 검사(종성없이)
+        int jungsungIdx = JUNGSUNG_ASCII_IDX[currentChar];
+        if (jungsungIdx != -1) {
+            // 2.1. 복합중성이 존재할경우
+            int combIdx = getSyllableIdx(JUNGSUNG_ASCII_COMB, engStr, idx, end);
+            if (combIdx != -1) {
+                return step(2, SPLIT_JUNGSUNG_CHAR[combIdx]);
+            }
+            // 2.2. 단일중성인 경우
+            return step(1, SPLIT_JUNGSUNG_CHAR[jungsungIdx]);
         }
-        return -1;
+        // 3. 한글에 대응하지 않는 영문자는 버린다.
+        return STEP_NO_OUTPUT | step(1, (char) 0);
+    }
+
+    static int stepConsumed(int step) {
+        return (step >>> 16) & 0xFF;
+    }
+
+    static boolean stepHasOutput(int step) {
+        return (step & STEP_NO_OUTPUT) == 0;
+    }
+
+    static char stepOutput(int step) {
+        return (char) step;
     }
 
     /**
-     * 영문자열내 중성,종성 음절코드표 index값 추출
+     * 한글로 조합되는 영문문자열을, 한글문자열로 변환하여 dst에 쓴다.
+     * 변환결과는 입력보다 길지 않으므로, dst는 (end - start) 만큼의 공간이 있으면 된다.
      *
-     * @param type     CHOSUNG: 초성 | JUNGSUNG: 중성 | JONGSUNG: 종성
-     * @param idx      문자열 index
-     * @param engStr   영문자열
-     * @param isDouble 한글자 or 두글자로 이루어졌는지 여부
-     * @return int
+     * @param engStr          영문자열
+     * @param start           시작 index
+     * @param end             끝 index (exclusive)
+     * @param dst             변환결과를 담을 배열
+     * @param dstOffset       dst 시작위치
+     * @param allowDoubleJaum 복합자음 변환을 허용할지 여부
+     * @return dst에 쓴 문자수
+     */
+    static int convertEng2Kor(CharSequence engStr, int start, int end, char[] dst, int dstOffset, boolean allowDoubleJaum) {
+        int pos = dstOffset;
+        for (int i = start; i < end; ) {
+            int step = convertEng2KorStep(engStr, i, end, allowDoubleJaum);
+            if (stepHasOutput(step)) {
+                dst[pos++] = stepOutput(step);
+            }
+            i += stepConsumed(step);
+        }
+        return pos - dstOffset;
+    }
+
+    /**
+     * 한글로 조합되는 영문문자열을, 한글문자열로 변환하여 out에 붙인다.
      */
-    private static int getSyllableCode(HangulSyllableType type, int idx, String engStr, boolean isDouble) {
-        int offset = 1;
-        // 두개의 자음or모음 조합일 경우, 탐색offset값 조정
-        if (isDouble) offset = 2;
-        if ((idx + offset) <= engStr.length()) {
-            return getSyllableCode(type, engStr.substring(idx, idx + offset));
+    static void convertEng2Kor(CharSequence engStr, Appendable out) throws IOException {
+        for (int i = 0, end = engStr.length(); i < end; ) {
+            int step = convertEng2KorStep(engStr, i, end, false);
+            if (stepHasOutput(step)) {
+                out.append(stepOutput(step));
+            }
+            i += stepConsumed(step);
         }
-        return -1;
     }
 
     /**
@@ -240,128 +371,253 @@ class EngKorTypingConvertor {
      * @return String
      */
     private static String convertEng2Kor(String engStr, boolean allowDoubleJaum) {
-        StringBuilder sb = new StringBuilder();
-        String currentChar;
-        Matcher mc;
-
-        int chosungCode;
-        int jungsungCode;
-        int jongsungCode;
-        int tempJungsungCode;
-        int tempJongsungCode;
-
-        for (int i = 0; i < engStr.length(); i++) {
-            currentChar = engStr.substring(i, i + 1);
-            mc = ENG_PATTERN.matcher(currentChar);
-            // 영문자(a-zA-Z) 아니면, 그대로 넘긴다.
-            if (!mc.find()) {
-                sb.append(currentChar);
-                continue;
-            }
+        char[] dst = new char[engStr.length()];
+        int length = convertEng2Kor(engStr, 0, engStr.length(), dst, 0, allowDoubleJaum);
+        return new String(dst, 0, length);
+    }
 
-            // 초성코드 추출
-            chosungCode = getSyllableCode(HangulSyllableType.CHOSUNG, currentChar);
+    static String convertEng2Kor(String eng) {
+        return convertEng2Kor(eng, false);
+    }
 
-            // 1. 초성코드인 경우
-            if (chosungCode != -1) {
-                i++; // 다음문자로
 
-                // 1.1. 2자 조합의 중성코드 추출
-                tempJungsungCode = getSyllableCode(HangulSyllableType.JUNGSUNG, i, engStr, true);
+    /**
+     * 한글문자 1자에 대응하는 영문자 최대 개수 (초성1 + 복합중성2 + 겹받침2)
+     **/
+    static final int MAX_ENG_KEYS_PER_CHAR = 5;
 
-                if (tempJungsungCode != -1) {
-                    // 1.1.1. 찾으면, 다다음으로 탐색 index 설정
-                    jungsungCode = tempJungsungCode;
-                    i += 2;
-                } else {
-                    // 1.1.2. 없다면, 단일조합 중성코드 추출
-                    jungsungCode = getSyllableCode(HangulSyllableType.JUNGSUNG, i, engStr, false);
-                    // 단일조합 중성코드도 없는 경우,
-                    if (jungsungCode == -1) {
-                        char chars = (char) (SPLIT_CHOSUNG_CHAR[chosungEngIdx.get(currentChar)] - HANGUL_CHAR_START_CODE);
-
-                        if (chars >= JAUM_CODE_AREA[0] && chars <= JAUM_CODE_AREA[1]) {
-                            // allowDoubleJaum = true인 경우, 복합 초성코드 찾아봄 ex) ㄳ ㅄ
-                            if (allowDoubleJaum && (i + 1) <= engStr.length()) {
-                                String chkCombChar = engStr.substring(i, i + 1);
-                                if (jongsungEngIdx.containsKey(currentChar + chkCombChar)) {
-                                    sb.append(SPLIT_JONGSUNG_CHAR[jongsungEngIdx.get(currentChar + chkCombChar)]);
-                                    continue;
-                                }
-                            }//end if
-
-                            sb.append(SPLIT_CHOSUNG_CHAR[chosungEngIdx.get(currentChar)]);
-                            i--;
-                            continue;
-                        }
-                    } else {
-                        i++;
-                    }
-                }
+    /**
+     * 한글문자 1자를 분해했을때 최대 자모 개수 (초성 + 중성 + 종성)
+     **/
+    public static final int MAX_JAMO_PER_CHAR = 3;
 
-                // 1.2. 2자 조합의 종성코드 추출
-                tempJongsungCode = getSyllableCode(HangulSyllableType.JONGSUNG, i, engStr, true);
-                if (tempJongsungCode != -1) {
-                    // 1.2.1. 종성코드 찾았으면, 바로 다음 중성문자에 대한 코드를 추출한다.
-                    jongsungCode = tempJongsungCode;
-                    tempJungsungCode = getSyllableCode(HangulSyllableType.JUNGSUNG, i + 2, engStr, false);
-                    if (tempJungsungCode != -1) { // 코드 값이 있을 경우
-                        // 중성코드 찾았으면, 단일조합 종성코드값 저장
-                        jongsungCode = getSyllableCode(HangulSyllableType.JONGSUNG, i, engStr, false);
-                    } else {
-                        i++;
-                    }
-                } else {
-                    // 1.2.2. 종성코드 못찾았을 경우, 그 다음의 중성 문자에 대한 코드 추출.
-                    tempJungsungCode = getSyllableCode(HangulSyllableType.JUNGSUNG, i + 1, engStr, false);
-                    if (tempJungsungCode != -1) {
-                        // 중성 문자가 존재하면, 종성 문자는 없는 한글문자다.
-                        jongsungCode = 0;
-                        i--;
-                    } else {
-                        // 단일조합 종성코드 추출
-                        jongsungCode = getSyllableCode(HangulSyllableType.JONGSUNG, i, engStr, false);
-                        if (jongsungCode == -1) {
-                            // 못찾았다면, 초성,중성으로 이루어진 한글이거나.. 그 외의 문자다.
-                            jongsungCode = 0;
-                            i--;
-                        }
-                    }
-                }
-                // 추출한 (초성문자 코드, 중성문자 코드, 종성문자 코드) 합한 후 변환하여 넘김.
-                sb.append((char) (HANGUL_CHAR_START_CODE + chosungCode + jungsungCode + jongsungCode));
+    /**
+     * 자모 index 분해결과의 자모종류
+     **/
+    public static final int JAMO_NONE = 0;
+    public static final int JAMO_CHOSUNG = 1 << 16;
+    public static final int JAMO_JUNGSUNG = 2 << 16;
+    public static final int JAMO_JONGSUNG = 3 << 16;
+    public static final int JAMO_TYPE_MASK = 0xFF << 16;
 
-            } else {
-                // 2. 초성코드가 아닌 경우
-                // 2.1. 중성인지 검사(종성없이)
-                Integer chkIdx = jungsungEngIdx.get(currentChar);
-                if (chkIdx != null) {
-                    // 2.1.1. 복합중성이 존재할경우
-                    if ((i + 2) <= engStr.length()) {
-                        String chkCombChar = engStr.substring(i + 1, i + 2);
-                        if (jungsungEngIdx.containsKey(currentChar + chkCombChar)) {
-                            sb.append(SPLIT_JUNGSUNG_CHAR[jungsungEngIdx.get(currentChar + chkCombChar)]);
-                            i++;
-                            continue;
-                        }
-                    }//end if
+    /**
+     * 첫가끝(조합형) 자모 시작코드
+     * 초성 ᄀ(U+1100) ~ ᄒ(U+1112), 중성 ᅡ(U+1161) ~ ᅵ(U+1175), 종성 ᆨ(U+11A8) ~ ᇂ(U+11C2)
+     * 종성은 index 0(없음) 기준이므로 ᆨ - 1
+     **/
+    public static final char CONJOINING_CHOSUNG_START = 0x1100;
+    public static final char CONJOINING_JUNGSUNG_START = 0x1161;
+    public static final char CONJOINING_JONGSUNG_BASE = 0x11A7;
 
-                    // 2.1.2. 단일중성인 경우
-                    char chars = (char) (SPLIT_JUNGSUNG_CHAR[chkIdx] - HANGUL_CHAR_START_CODE);
-                    if (chars >= MOUM_CODE_AREA[0] && chars <= MOUM_CODE_AREA[1]) {
-                        sb.append(SPLIT_JUNGSUNG_CHAR[jungsungEngIdx.get(currentChar)]);
-                    }
-                }
-            }//end if
+    /**
+     * @return 첫가끝 초성 index, 아니면 -1
+     */
+    private static int conjoiningChosungIdx(char c) {
+        int idx = c - CONJOINING_CHOSUNG_START;
+        return idx >= 0 && idx < CHOSUNG_ENG.length ? idx : -1;
+    }
 
+    /**
+     * @return 첫가끝 중성 index, 아니면 -1
+     */
+    private static int conjoiningJungsungIdx(char c) {
+        int idx = c - CONJOINING_JUNGSUNG_START;
+        return idx >= 0 && idx < JUNGSONG_ENG.length ? idx : -1;
+    }
+
+    /**
+     * @return 첫가끝 종성 index, 아니면 0
+     */
+    private static int conjoiningJongsungIdx(char c) {
+        int idx = c - CONJOINING_JONGSUNG_BASE;
+        return idx > 0 && idx < JONGSUNG_ENG.length ? idx : 0;
+    }
+
+    /**
+     * 첫가끝 자모열(NFD)을 완성형 한글(NFC)로 조합하여 dst 에 쓴다. java.text.Normalizer 를 쓰지 않는다.
+     * ex) ᄒ ᅡ ᆫ -> 한, 하 ᆫ -> 한
+     * 초성+중성(+종성)으로 조합되지 않는 자모와 그 외 문자는 그대로 쓴다.
+     *
+     * @return dst 에 쓴 문자수 (입력보다 길지 않다)
+     */
+    public static int composeConjoiningJamo(CharSequence src, int start, int end, char[] dst, int dstOffset) {
+        int pos = dstOffset;
+        int i = start;
+        while (i < end) {
+            char c = src.charAt(i++);
+            int chosungIdx = conjoiningChosungIdx(c);
+            int jungsungIdx = i < end ? conjoiningJungsungIdx(src.charAt(i)) : -1;
+            int code;
+            if (chosungIdx != -1 && jungsungIdx != -1) {
+                // 1. 초성 + 중성
+                code = (chosungIdx * VOWEL + jungsungIdx) * PHONOGRAM;
+                i++;
+            } else if ((char) (c - HANGUL_CHAR_START_CODE) < TOTAL_HANGUL_CHAR
+                    && (c - HANGUL_CHAR_START_CODE) % PHONOGRAM == 0) {
+                // 2. 받침없는 완성형 한글
+                code = c - HANGUL_CHAR_START_CODE;
+            } else {
+                dst[pos++] = c;
+                continue;
+            }
+            // 종성이 이어지면 붙인다.
+            int jongsungIdx = i < end ? conjoiningJongsungIdx(src.charAt(i)) : 0;
+            if (jongsungIdx != 0) {
+                code += jongsungIdx;
+                i++;
+            }
+            dst[pos++] = (char) (HANGUL_CHAR_START_CODE + code);
         }
-        return sb.toString();
+        return pos - dstOffset;
     }
 
-    static String convertEng2Kor(String eng) {
-        return convertEng2Kor(eng, false);
+    /**
+     * 첫가끝 자모열(NFD)을 완성형 한글(NFC)로 조합
+     */
+    public static String composeConjoiningJamo(String src) {
+        char[] dst = new char[src.length()];
+        return new String(dst, 0, composeConjoiningJamo(src, 0, src.length(), dst, 0));
     }
 
+    /**
+     * 완성형 한글을 첫가끝 자모열(NFD)로 분해하여 dst 에 쓴다. 그 외 문자는 그대로 쓴다.
+     * ex) 한 -> ᄒ ᅡ ᆫ
+     *
+     * @param dst (end - start) * {@link #MAX_JAMO_PER_CHAR} 만큼의 공간이 있으면 된다.
+     * @return dst 에 쓴 문자수
+     */
+    public static int decomposeToConjoiningJamo(CharSequence src, int start, int end, char[] dst, int dstOffset) {
+        int pos = dstOffset;
+        for (int i = start; i < end; i++) {
+            char c = src.charAt(i);
+            char chars = (char) (c - HANGUL_CHAR_START_CODE);
+            if (chars < TOTAL_HANGUL_CHAR) {
+                long packed = DecompositionTable.SYLLABLE[chars];
+                int jongsungIdx = DecompositionTable.jongsungIdx(packed);
+                dst[pos++] = (char) (CONJOINING_CHOSUNG_START + DecompositionTable.chosungIdx(packed));
+                dst[pos++] = (char) (CONJOINING_JUNGSUNG_START + DecompositionTable.jungsungIdx(packed));
+                if (jongsungIdx != 0) {
+                    dst[pos++] = (char) (CONJOINING_JONGSUNG_BASE + jongsungIdx);
+                }
+            } else {
+                dst[pos++] = c;
+            }
+        }
+        return pos - dstOffset;
+    }
+
+    /**
+     * 한글문자 분해표
+     * 완성형 한글(11172), 호환용 자모(51), 첫가끝 자모(68)의 분해결과를 long 하나에 담아, 한번의 조회로 변환한다.
+     * 0~7bit 영문자수, 8~47bit 영문자(8bit x 5), 48~52bit 종성, 53~57bit 중성, 58~62bit 초성 index
+     * 처음 사용할때 만든다.
+     */
+    private static final class DecompositionTable {
+        private static final int ENG_KEYS_SHIFT = 8;
+        private static final int JONGSUNG_SHIFT = 48;
+        private static final int JUNGSUNG_SHIFT = 53;
+        private static final int CHOSUNG_SHIFT = 58;
+
+        /**
+         * 완성형 한글 [가] ~ [힣]
+         */
+        static final long[] SYLLABLE = new long[TOTAL_HANGUL_CHAR];
+
+        /**
+         * 호환용 자모 [ㄱ] ~ [ㅣ], 자모 index 없이 영문자만 담는다.
+         */
+        static final long[] COMPAT_JAMO = new long[JAUM_CODE_AREA[1] - JAUM_CODE_AREA[0] + 1
+                + MOUM_CODE_AREA[1] - MOUM_CODE_AREA[0] + 1];
+
+        /**
+         * 첫가끝 자모 초성(19), 중성(21), 종성(1+27)
+         */
+        static final long[] CONJOINING_CHOSUNG = new long[CHOSUNG_ENG.length];
+        static final long[] CONJOINING_JUNGSUNG = new long[JUNGSONG_ENG.length];
+        static final long[] CONJOINING_JONGSUNG = new long[JONGSUNG_ENG.length];
+
+        static {
+            for (int chars = 0; chars < TOTAL_HANGUL_CHAR; chars++) {
+                int chosungIdx = chars / (VOWEL * PHONOGRAM);
+                int jungsungIdx = chars % (VOWEL * PHONOGRAM) / PHONOGRAM;
+                int jongsungIdx = chars % PHONOGRAM;
+                SYLLABLE[chars] = packEngKeys(CHOSUNG_ENG[chosungIdx] + JUNGSONG_ENG[jungsungIdx] + JONGSUNG_ENG[jongsungIdx])
+                        | (long) chosungIdx << CHOSUNG_SHIFT
+                        | (long) jungsungIdx << JUNGSUNG_SHIFT
+                        | (long) jongsungIdx << JONGSUNG_SHIFT;
+            }
+            for (int i = 0; i < SINGLE_JAUM_ENG.length; i++) {
+                COMPAT_JAMO[i] = packEngKeys(SINGLE_JAUM_ENG[i]);
+            }
+            for (int i = 0; i < JUNGSONG_ENG.length; i++) {
+                COMPAT_JAMO[SINGLE_JAUM_ENG.length + i] = packEngKeys(JUNGSONG_ENG[i]);
+            }
+            for (int i = 0; i < CHOSUNG_ENG.length; i++) {
+                CONJOINING_CHOSUNG[i] = packEngKeys(CHOSUNG_ENG[i]) | (long) i << CHOSUNG_SHIFT;
+            }
+            for (int i = 0; i < JUNGSONG_ENG.length; i++) {
+                CONJOINING_JUNGSUNG[i] = packEngKeys(JUNGSONG_ENG[i]) | (long) i << JUNGSUNG_SHIFT;
+            }
+            // 종성의 첫번째값(없음)은 쓰지 않음.
+            for (int i = 1; i < JONGSUNG_ENG.length; i++) {
+                CONJOINING_JONGSUNG[i] = packEngKeys(JONGSUNG_ENG[i]) | (long) i << JONGSUNG_SHIFT;
+            }
+        }
+
+        private static long packEngKeys(String eng) {
+            long packed = eng.length();
+            for (int i = 0; i < eng.length(); i++) {
+                packed |= (long) eng.charAt(i) << (ENG_KEYS_SHIFT + 8 * i);
+            }
+            return packed;
+        }
+
+        /**
+         * @return 분해결과, 한글이 아니면 0
+         */
+        static long lookup(char c) {
+            // 문자표번호 = 유니코드번호 - 0xAC00
+            char chars = (char) (c - HANGUL_CHAR_START_CODE);
+            if (chars < TOTAL_HANGUL_CHAR) {
+                return SYLLABLE[chars];
+            }
+            if (chars >= JAUM_CODE_AREA[0] && chars <= MOUM_CODE_AREA[1]) {
+                return COMPAT_JAMO[chars - JAUM_CODE_AREA[0]];
+            }
+            // NFD 로 들어온 첫가끝 자모
+            int idx;
+            if ((idx = conjoiningChosungIdx(c)) != -1) {
+                return CONJOINING_CHOSUNG[idx];
+            }
+            if ((idx = conjoiningJungsungIdx(c)) != -1) {
+                return CONJOINING_JUNGSUNG[idx];
+            }
+            if ((idx = conjoiningJongsungIdx(c)) != 0) {
+                return CONJOINING_JONGSUNG[idx];
+            }
+            return 0;
+        }
+
+        static int engKeyCount(long packed) {
+            return (int) (packed & 0xFF);
+        }
+
+        static char engKey(long packed, int i) {
+            return (char) ((packed >>> (ENG_KEYS_SHIFT + 8 * i)) & 0xFF);
+        }
+
+        static int chosungIdx(long packed) {
+            return (int) (packed >>> CHOSUNG_SHIFT) & 0x1F;
+        }
+
+        static int jungsungIdx(long packed) {
+            return (int) (packed >>> JUNGSUNG_SHIFT) & 0x1F;
+        }
+
+        static int jongsungIdx(long packed) {
+            return (int) (packed >>> JONGSUNG_SHIFT) & 0x1F;
+        }
+    }
 
     /**
      * 한글문자열을, 한글조합되는 영문문자열로 변환
@@ -374,80 +630,207 @@ class EngKorTypingConvertor {
         return convertHangul(korStr, KorConvRtnType.ALPHABET);
     }
 
-
     /**
-     * 한글문자열 -> 영문문자열 or 자음,모음 문자열로 변환
+     * 한글문자 1자를, 한글조합되는 영문문자열로 변환하여 out에 붙인다.
+     * 문자 단위로 변환되므로 이전/다음 문자에 대한 상태가 없다.
      *
-     * @param korStr k c
-     * @param korConvRtnType  KorConvRtnType
-     * @return String
+     * @param korChar 한글문자
+     * @param out     변환결과를 붙일 대상
      */
-    private static String convertHangul(String korStr, KorConvRtnType korConvRtnType) {
-        StringBuilder split = new StringBuilder();
-        StringBuilder sb = new StringBuilder();
-
-        for (int i = 0; i < korStr.length(); i++) {
-            // 문자표번호 = 유니코드번호 - 0xAC00
-            char chars = (char) (korStr.charAt(i) - HANGUL_CHAR_START_CODE);
-
-            if (chars <= TOTAL_HANGUL_CHAR) {
-
-                // Case1. 자음+모음 조합글자인 경우
+    static void convertKor2Eng(char korChar, Appendable out) throws IOException {
+        long packed = DecompositionTable.lookup(korChar);
+        if (packed == 0) {
+            // 한글 이외의 문자
+            out.append(korChar);
+            return;
+        }
+        for (int k = 0, count = DecompositionTable.engKeyCount(packed); k < count; k++) {
+            out.append(DecompositionTable.engKey(packed, k));
+        }
+    }
 
-                // 1.1. 초/중/종성 분리
-                int chosungIdx = chars / (VOWEL * PHONOGRAM);
-                int jungsungIdx = chars % (VOWEL * PHONOGRAM) / PHONOGRAM;
-                int jongsungIdx = chars % (VOWEL * PHONOGRAM) % PHONOGRAM;
+    /**
+     * 한글문자열을, 한글조합되는 영문문자열로 변환하여 dst에 쓴다.
+     * dst는 (end - start) * {@link #MAX_ENG_KEYS_PER_CHAR} 만큼의 공간이 있으면 된다.
+     *
+     * @return dst에 쓴 문자수
+     */
+    static int convertKor2Eng(CharSequence korStr, int start, int end, char[] dst, int dstOffset) {
+        int pos = dstOffset;
+        for (int i = start; i < end; i++) {
+            char c = korStr.charAt(i);
+            long packed = DecompositionTable.lookup(c);
+            if (packed == 0) {
+                dst[pos++] = c;
+                continue;
+            }
+            for (int k = 0, count = DecompositionTable.engKeyCount(packed); k < count; k++) {
+                dst[pos++] = DecompositionTable.engKey(packed, k);
+            }
+        }
+        return pos - dstOffset;
+    }
 
-                // 1.2. 분리결과 담기
-                split.append(SPLIT_CHOSUNG_CHAR[chosungIdx])
-                        .append(SPLIT_JUNGSUNG_CHAR[jungsungIdx]);
 
-                // 1.3. 자음분리
+    /**
+     * 한글문자열을 자음,모음(호환용 자모)으로 분해하여 dst 에 쓴다.
+     * ex) 한글 -> ㅎㅏㄴㄱㅡㄹ
+     * 한글 이외의 문자는 그대로 쓴다.
+     *
+     * @param korStr    한글문자열
+     * @param start     시작 index
+     * @param end       끝 index (exclusive)
+     * @param dst       분해결과를 담을 배열, (end - start) * {@link #MAX_JAMO_PER_CHAR} 만큼의 공간이 있으면 된다.
+     * @param dstOffset dst 시작위치
+     * @param offsets   null 이 아니면, offsets[i - start] 에 korStr[i] 의 분해결과 시작위치(dst index)를,
+     *                  offsets[end - start] 에 분해결과의 끝 위치를 기록한다. (길이 end - start + 1 이상)
+     * @return dst 에 쓴 문자수
+     */
+    public static int decomposeJamo(CharSequence korStr, int start, int end, char[] dst, int dstOffset, int[] offsets) {
+        int pos = dstOffset;
+        for (int i = start; i < end; i++) {
+            if (offsets != null) offsets[i - start] = pos;
+            char c = korStr.charAt(i);
+            char chars = (char) (c - HANGUL_CHAR_START_CODE);
+            if (chars < TOTAL_HANGUL_CHAR) {
+                // 자음+모음 조합글자인 경우, 초/중/종성 분리
+                long packed = DecompositionTable.SYLLABLE[chars];
+                int jongsungIdx = DecompositionTable.jongsungIdx(packed);
+                dst[pos++] = SPLIT_CHOSUNG_CHAR[DecompositionTable.chosungIdx(packed)];
+                dst[pos++] = SPLIT_JUNGSUNG_CHAR[DecompositionTable.jungsungIdx(packed)];
                 if (jongsungIdx != 0) {
-                    // 종성이 존재할경우, 분리결과 담는다
-                    split.append(SPLIT_JONGSUNG_CHAR[jongsungIdx]);
+                    dst[pos++] = SPLIT_JONGSUNG_CHAR[jongsungIdx];
                 }
+            } else if (conjoiningChosungIdx(c) != -1) {
+                // 첫가끝 자모는 호환용 자모로
+                dst[pos++] = SPLIT_CHOSUNG_CHAR[conjoiningChosungIdx(c)];
+            } else if (conjoiningJungsungIdx(c) != -1) {
+                dst[pos++] = SPLIT_JUNGSUNG_CHAR[conjoiningJungsungIdx(c)];
+            } else if (conjoiningJongsungIdx(c) != 0) {
+                dst[pos++] = SPLIT_JONGSUNG_CHAR[conjoiningJongsungIdx(c)];
+            } else {
+                // 한글 이외의 문자 or 자음만 있는 경우
+                dst[pos++] = c;
+            }
+        }
+        if (offsets != null) offsets[end - start] = pos;
+        return pos - dstOffset;
+    }
 
-                // 1.4. 영문변환결과 담기
-                sb.append(CHOSUNG_ENG[chosungIdx])
-                        .append(JUNGSONG_ENG[jungsungIdx]);
-
+    /**
+     * 한글문자열을 자모 index 로 분해하여 dst 의 현재 position 부터 쓴다.
+     * 각 값은 자모종류({@link #JAMO_CHOSUNG}, {@link #JAMO_JUNGSUNG}, {@link #JAMO_JONGSUNG}) | index 이고,
+     * 한글 이외의 문자는 {@link #JAMO_NONE} | 문자코드 이다. 종류는 {@link #JAMO_TYPE_MASK} 로 구분한다.
+     * ex) 한 -> JAMO_CHOSUNG | 18, JAMO_JUNGSUNG | 0, JAMO_JONGSUNG | 4
+     *
+     * @param korStr  한글문자열
+     * @param start   시작 index
+     * @param end     끝 index (exclusive)
+     * @param dst     분해결과를 담을 버퍼, (end - start) * {@link #MAX_JAMO_PER_CHAR} 만큼 남아있으면 된다.
+     * @param offsets null 이 아니면, offsets[i - start] 에 korStr[i] 의 분해결과 시작위치(dst position)를,
+     *                offsets[end - start] 에 분해결과의 끝 위치를 기록한다. (길이 end - start + 1 이상)
+     * @return dst 에 쓴 자모수
+     */
+    public static int decomposeJamoIdx(CharSequence korStr, int start, int end, IntBuffer dst, int[] offsets) {
+        int begin = dst.position();
+        for (int i = start; i < end; i++) {
+            if (offsets != null) offsets[i - start] = dst.position();
+            char c = korStr.charAt(i);
+            char chars = (char) (c - HANGUL_CHAR_START_CODE);
+            if (chars < TOTAL_HANGUL_CHAR) {
+                long packed = DecompositionTable.SYLLABLE[chars];
+                int jongsungIdx = DecompositionTable.jongsungIdx(packed);
+                dst.put(JAMO_CHOSUNG | DecompositionTable.chosungIdx(packed));
+                dst.put(JAMO_JUNGSUNG | DecompositionTable.jungsungIdx(packed));
                 if (jongsungIdx != 0) {
-                    // 종성이 존재할경우, 영문변환결과에 담는다
-                    sb.append(JONGSUNG_ENG[jongsungIdx]);
+                    dst.put(JAMO_JONGSUNG | jongsungIdx);
                 }
-
+            } else if (conjoiningChosungIdx(c) != -1) {
+                dst.put(JAMO_CHOSUNG | conjoiningChosungIdx(c));
+            } else if (conjoiningJungsungIdx(c) != -1) {
+                dst.put(JAMO_JUNGSUNG | conjoiningJungsungIdx(c));
+            } else if (conjoiningJongsungIdx(c) != 0) {
+                dst.put(JAMO_JONGSUNG | conjoiningJongsungIdx(c));
+            } else if (HangulAutomaton.jungsungIndex(c) != -1) {
+                dst.put(JAMO_JUNGSUNG | HangulAutomaton.jungsungIndex(c));
+            } else if (HangulAutomaton.chosungIndex(c) != -1) {
+                dst.put(JAMO_CHOSUNG | HangulAutomaton.chosungIndex(c));
+            } else if (HangulAutomaton.jongsungIndex(c) != 0) {
+                // 겹받침 ㄳ ㄵ ..
+                dst.put(JAMO_JONGSUNG | HangulAutomaton.jongsungIndex(c));
             } else {
-                // Case2. 한글 이외의 문자 or 자음만 있는 경우
-                // 2.1. 자음 분리 & 분리결과에 담기
-                split.append(((char) (chars + HANGUL_CHAR_START_CODE)));
-
-                // 2.2. 영문변환
-                if (chars >= JAUM_CODE_AREA[0] && chars <= JAUM_CODE_AREA[1]) {
-                    // 2.2.1 단일자음 범위인 경우
-                    int jaum = (chars - JAUM_CODE_AREA[0]);
-                    sb.append(SINGLE_JAUM_ENG[jaum]);
-                } else if (chars >= MOUM_CODE_AREA[0] && chars <= MOUM_CODE_AREA[1]) {
-                    // 2.2.2 단일모음 범위인 경우
-                    int moum = (chars - MOUM_CODE_AREA[0]);
-                    sb.append(JUNGSONG_ENG[moum]);
-                } else {
-                    // 2.2.3 그 외 문자
-                    sb.append(((char) (chars + HANGUL_CHAR_START_CODE)));
-                }
-            }//if
-        }//for
+                dst.put(JAMO_NONE | c);
+            }
+        }
+        if (offsets != null) offsets[end - start] = dst.position();
+        return dst.position() - begin;
+    }
+
+    /**
+     * 한글문자열의 초성만 뽑는다.
+     * ex) 한글 -> ㅎㄱ
+     * 완성형 음절과 첫가끝 초성은 호환용 자모 초성으로 바꾸고, 첫가끝 중성/종성은 버린다. 그 외의 문자는 그대로 쓴다.
+     *
+     * @param korStr    한글문자열
+     * @param start     시작 index
+     * @param end       끝 index (exclusive)
+     * @param dst       결과를 담을 배열, end - start 만큼의 공간이 있으면 된다.
+     * @param dstOffset dst 시작위치
+     * @return dst 에 쓴 문자수
+     */
+    public static int extractChosung(CharSequence korStr, int start, int end, char[] dst, int dstOffset) {
+        int pos = dstOffset;
+        for (int i = start; i < end; i++) {
+            char c = korStr.charAt(i);
+            char chars = (char) (c - HANGUL_CHAR_START_CODE);
+            int chosungIdx;
+            if (chars < TOTAL_HANGUL_CHAR) {
+                dst[pos++] = SPLIT_CHOSUNG_CHAR[chars / (VOWEL * PHONOGRAM)];
+            } else if ((chosungIdx = conjoiningChosungIdx(c)) != -1) {
+                dst[pos++] = SPLIT_CHOSUNG_CHAR[chosungIdx];
+            } else if (conjoiningJungsungIdx(c) == -1 && conjoiningJongsungIdx(c) == 0) {
+                dst[pos++] = c;
+            }
+        }
+        return pos - dstOffset;
+    }
 
+    /**
+     * 한글문자열의 초성 문자열
+     * ex) 한글 -> ㅎㄱ
+     */
+    static String convertKor2Chosung(String korStr) {
+        return convertHangul(korStr, KorConvRtnType.CHOSUNG);
+    }
+
+    /**
+     * 한글문자열 -> 영문문자열 or 자음,모음 문자열 or 초성 문자열로 변환
+     * 요청한 korConvRtnType 의 결과만 만든다.
+     *
+     * @param korStr k c
+     * @param korConvRtnType  KorConvRtnType
+     * @return String
+     */
+    private static String convertHangul(String korStr, KorConvRtnType korConvRtnType) {
         switch (korConvRtnType) {
-            case ALPHABET:
-                return sb.toString();
-            case JAUM_MOUM:
-                return split.toString();
+            case ALPHABET: {
+                char[] dst = new char[korStr.length() * MAX_ENG_KEYS_PER_CHAR];
+                int length = convertKor2Eng(korStr, 0, korStr.length(), dst, 0);
+                return new String(dst, 0, length);
+            }
+            case JAUM_MOUM: {
+                char[] dst = new char[korStr.length() * MAX_JAMO_PER_CHAR];
+                int length = decomposeJamo(korStr, 0, korStr.length(), dst, 0, null);
+                return new String(dst, 0, length);
+            }
+            case CHOSUNG: {
+                char[] dst = new char[korStr.length()];
+                int length = extractChosung(korStr, 0, korStr.length(), dst, 0);
+                return new String(dst, 0, length);
+            }
             default:
                 return null;
         }
-
     }
 
-}
\ No newline at end of file
+}
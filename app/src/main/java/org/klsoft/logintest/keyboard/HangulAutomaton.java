@@ -0,0 +1,447 @@
+package org.klsoft.logintest.keyboard;
+
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.HANGUL_CHAR_START_CODE;
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.PHONOGRAM;
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR;
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.SPLIT_JONGSUNG_CHAR;
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.SPLIT_JUNGSUNG_CHAR;
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.TOTAL_HANGUL_CHAR;
+import static org.klsoft.logintest.keyboard.EngKorTypingConvertor.VOWEL;
+
+import java.util.Arrays;
+
+/**
+ * Desc : 한글 조합 오토마타
+ * 현재 조합중인 음절의 초성/중성/종성 index만 유지하고, 입력된 키 하나당 O(1)로 상태를 전이한다.
+ * (문자열 변환, 정규식, HashMap 조회 없음)
+ * 키는 KEY_ENTRY 표로 {초성, 중성, 종성} 입력값으로 바뀌고, 자판(HangulLayout)에 관계없이 같은 전이표로 조합된다.
+ * - 호환용 자모 자음 : 초성 + 종성 (두벌식, 문맥으로 결정)
+ * - 첫가끝 자모 : 초성, 중성, 종성 중 하나 (세벌식)
+ */
+final class HangulAutomaton {
+
+    /**
+     * 호환용 자모 시작코드 [ㄱ]
+     **/
+    static final char COMPAT_JAMO_START_CODE = 0x3131;
+
+    /**
+     * 호환용 자모 개수 (ㄱ ~ ㅣ)
+     **/
+    static final int COMPAT_JAMO_COUNT = 51;
+
+    /**
+     * 복합 중성 조합표 {앞 모음, 뒤 모음, 복합 모음}
+     */
+    private static final char[][] JUNGSUNG_COMBINATION = {
+            {'ㅗ', 'ㅏ', 'ㅘ'}, {'ㅗ', 'ㅐ', 'ㅙ'}, {'ㅗ', 'ㅣ', 'ㅚ'},
+            {'ㅜ', 'ㅓ', 'ㅝ'}, {'ㅜ', 'ㅔ', 'ㅞ'}, {'ㅜ', 'ㅣ', 'ㅟ'},
+            {'ㅡ', 'ㅣ', 'ㅢ'}
+    };
+
+    /**
+     * 겹받침 조합표 {앞 자음, 뒤 자음, 겹받침}
+     */
+    private static final char[][] JONGSUNG_COMBINATION = {
+            {'ㄱ', 'ㅅ', 'ㄳ'}, {'ㄴ', 'ㅈ', 'ㄵ'}, {'ㄴ', 'ㅎ', 'ㄶ'},
+            {'ㄹ', 'ㄱ', 'ㄺ'}, {'ㄹ', 'ㅁ', 'ㄻ'}, {'ㄹ', 'ㅂ', 'ㄼ'},
+            {'ㄹ', 'ㅅ', 'ㄽ'}, {'ㄹ', 'ㅌ', 'ㄾ'}, {'ㄹ', 'ㅍ', 'ㄿ'},
+            {'ㄹ', 'ㅎ', 'ㅀ'}, {'ㅂ', 'ㅅ', 'ㅄ'}
+    };
+
+    /**
+     * 호환용 자모 -> 초성/중성/종성 index (-1: 해당없음, 종성은 0: 해당없음)
+     */
+    private static final byte[] COMPAT_CHOSUNG_IDX = new byte[COMPAT_JAMO_COUNT];
+    private static final byte[] COMPAT_JUNGSUNG_IDX = new byte[COMPAT_JAMO_COUNT];
+    private static final byte[] COMPAT_JONGSUNG_IDX = new byte[COMPAT_JAMO_COUNT];
+
+    /**
+     * [중성][중성] -> 복합중성 index, [종성][종성] -> 겹받침 index (-1: 조합불가)
+     */
+    private static final byte[][] JUNGSUNG_COMBINE = new byte[VOWEL][VOWEL];
+    private static final byte[][] JONGSUNG_COMBINE = new byte[PHONOGRAM][PHONOGRAM];
+
+    /**
+     * 복합중성/겹받침을 분리했을때 앞쪽 index (-1 or 0: 단일 자모)
+     */
+    private static final byte[] JUNGSUNG_FIRST = new byte[VOWEL];
+    private static final byte[] JONGSUNG_FIRST = new byte[PHONOGRAM];
+
+    /**
+     * 종성의 마지막 자음을 다음 음절의 초성으로 옮길때의 초성 index
+     */
+    private static final byte[] JONGSUNG_LAST_CHOSUNG = new byte[PHONOGRAM];
+
+    /**
+     * 된소리 조합표 {초성, 된소리}, 같은 초성을 연달아 입력하면 된소리가 된다. (세벌식)
+     */
+    private static final char[][] CHOSUNG_DOUBLING = {
+            {'ㄱ', 'ㄲ'}, {'ㄷ', 'ㄸ'}, {'ㅂ', 'ㅃ'}, {'ㅅ', 'ㅆ'}, {'ㅈ', 'ㅉ'}
+    };
+
+    /**
+     * 초성 -> 된소리 초성 index, 된소리 -> 원래 초성 index (-1: 해당없음)
+     */
+    private static final byte[] CHOSUNG_DOUBLE = new byte[SPLIT_CHOSUNG_CHAR.length];
+    private static final byte[] CHOSUNG_SINGLE = new byte[SPLIT_CHOSUNG_CHAR.length];
+
+    /**
+     * 첫가끝 자모 시작코드 [초성 ㄱ], 개수 (초성 ㄱ ~ 종성 ㅎ)
+     **/
+    private static final char CONJOINING_JAMO_START_CODE = EngKorTypingConvertor.CONJOINING_CHOSUNG_START;
+    private static final int CONJOINING_JAMO_COUNT = 0x11C3 - CONJOINING_JAMO_START_CODE;
+
+    /**
+     * key code -> 입력값 (0: 조합불가)
+     * bit 0-4 : 초성 index + 1, bit 5-9 : 중성 index + 1, bit 10-14 : 종성 index
+     */
+    private static final short[] COMPAT_KEY_ENTRY = new short[COMPAT_JAMO_COUNT];
+    private static final short[] CONJOINING_KEY_ENTRY = new short[CONJOINING_JAMO_COUNT];
+
+    private static final int ENTRY_JUNGSUNG_SHIFT = 5;
+    private static final int ENTRY_JONGSUNG_SHIFT = 10;
+    private static final int ENTRY_MASK = 0x1F;
+
+    static {
+        Arrays.fill(COMPAT_CHOSUNG_IDX, (byte) -1);
+        Arrays.fill(COMPAT_JUNGSUNG_IDX, (byte) -1);
+        for (int i = 0; i < SPLIT_CHOSUNG_CHAR.length; i++) {
+            COMPAT_CHOSUNG_IDX[SPLIT_CHOSUNG_CHAR[i] - COMPAT_JAMO_START_CODE] = (byte) i;
+        }
+        for (int i = 0; i < SPLIT_JUNGSUNG_CHAR.length; i++) {
+            COMPAT_JUNGSUNG_IDX[SPLIT_JUNGSUNG_CHAR[i] - COMPAT_JAMO_START_CODE] = (byte) i;
+        }
+        // 종성의 첫번째값(없음)은 쓰지 않음.
+        for (int i = 1; i < SPLIT_JONGSUNG_CHAR.length; i++) {
+            COMPAT_JONGSUNG_IDX[SPLIT_JONGSUNG_CHAR[i] - COMPAT_JAMO_START_CODE] = (byte) i;
+        }
+
+        for (byte[] row : JUNGSUNG_COMBINE) Arrays.fill(row, (byte) -1);
+        for (byte[] row : JONGSUNG_COMBINE) Arrays.fill(row, (byte) -1);
+        Arrays.fill(JUNGSUNG_FIRST, (byte) -1);
+
+        for (char[] comb : JUNGSUNG_COMBINATION) {
+            int first = jungsungIndex(comb[0]);
+            int combined = jungsungIndex(comb[2]);
+            JUNGSUNG_COMBINE[first][jungsungIndex(comb[1])] = (byte) combined;
+            JUNGSUNG_FIRST[combined] = (byte) first;
+        }
+        for (char[] comb : JONGSUNG_COMBINATION) {
+            int first = jongsungIndex(comb[0]);
+            int combined = jongsungIndex(comb[2]);
+            JONGSUNG_COMBINE[first][jongsungIndex(comb[1])] = (byte) combined;
+            JONGSUNG_FIRST[combined] = (byte) first;
+            JONGSUNG_LAST_CHOSUNG[combined] = (byte) chosungIndex(comb[1]);
+        }
+        for (int i = 1; i < PHONOGRAM; i++) {
+            if (JONGSUNG_FIRST[i] == 0) {
+                JONGSUNG_LAST_CHOSUNG[i] = (byte) chosungIndex(SPLIT_JONGSUNG_CHAR[i]);
+            }
+        }
+        Arrays.fill(CHOSUNG_DOUBLE, (byte) -1);
+        Arrays.fill(CHOSUNG_SINGLE, (byte) -1);
+        for (char[] doubling : CHOSUNG_DOUBLING) {
+            int single = chosungIndex(doubling[0]);
+            int doubled = chosungIndex(doubling[1]);
+            CHOSUNG_DOUBLE[single] = (byte) doubled;
+            CHOSUNG_SINGLE[doubled] = (byte) single;
+        }
+
+        for (int i = 0; i < COMPAT_JAMO_COUNT; i++) {
+            COMPAT_KEY_ENTRY[i] = entry(COMPAT_CHOSUNG_IDX[i], COMPAT_JUNGSUNG_IDX[i], COMPAT_JONGSUNG_IDX[i]);
+        }
+        for (int i = 0; i < SPLIT_CHOSUNG_CHAR.length; i++) {
+            CONJOINING_KEY_ENTRY[EngKorTypingConvertor.CONJOINING_CHOSUNG_START + i - CONJOINING_JAMO_START_CODE] =
+                    entry(i, -1, 0);
+        }
+        for (int i = 0; i < SPLIT_JUNGSUNG_CHAR.length; i++) {
+            CONJOINING_KEY_ENTRY[EngKorTypingConvertor.CONJOINING_JUNGSUNG_START + i - CONJOINING_JAMO_START_CODE] =
+                    entry(-1, i, 0);
+        }
+        for (int i = 1; i < SPLIT_JONGSUNG_CHAR.length; i++) {
+            CONJOINING_KEY_ENTRY[EngKorTypingConvertor.CONJOINING_JONGSUNG_BASE + i - CONJOINING_JAMO_START_CODE] =
+                    entry(-1, -1, i);
+        }
+    }
+
+    private static short entry(int cho, int jung, int jong) {
+        if (cho == -1 && jung == -1 && jong == 0) {
+            return 0;
+        }
+        return (short) ((cho + 1) | (jung + 1) << ENTRY_JUNGSUNG_SHIFT | jong << ENTRY_JONGSUNG_SHIFT);
+    }
+
+    private HangulLayout layout = HangulLayout.DUBEOLSIK;
+
+    private int chosung = -1;
+    private int jungsung = -1;
+    private int jongsung = 0;
+
+    /**
+     * 마지막 입력으로 조합이 끝난(확정된) 문자, 없으면 0
+     */
+    private char committed;
+
+    static int chosungIndex(char jamo) {
+        int idx = jamo - COMPAT_JAMO_START_CODE;
+        return idx >= 0 && idx < COMPAT_JAMO_COUNT ? COMPAT_CHOSUNG_IDX[idx] : -1;
+    }
+
+    static int jungsungIndex(char jamo) {
+        int idx = jamo - COMPAT_JAMO_START_CODE;
+        return idx >= 0 && idx < COMPAT_JAMO_COUNT ? COMPAT_JUNGSUNG_IDX[idx] : -1;
+    }
+
+    /**
+     * @return 종성 index, 종성으로 쓸 수 없는 자모는 0
+     */
+    static int jongsungIndex(char jamo) {
+        int idx = jamo - COMPAT_JAMO_START_CODE;
+        return idx >= 0 && idx < COMPAT_JAMO_COUNT ? COMPAT_JONGSUNG_IDX[idx] : 0;
+    }
+
+    /**
+     * @return key code 의 입력값, 조합할 수 없는 키는 0
+     */
+    static int keyEntry(char key) {
+        int idx = key - COMPAT_JAMO_START_CODE;
+        if (idx >= 0 && idx < COMPAT_JAMO_COUNT) {
+            return COMPAT_KEY_ENTRY[idx];
+        }
+        idx = key - CONJOINING_JAMO_START_CODE;
+        return idx >= 0 && idx < CONJOINING_JAMO_COUNT ? CONJOINING_KEY_ENTRY[idx] : 0;
+    }
+
+    /**
+     * 키에 표시할 글자를 돌려준다.
+     * 첫가끝 자모는 글꼴에 따라 깨지거나 채움 문자로 보이므로 같은 모양의 호환용 자모로 바꾼다.
+     * ex) 'ᄀ'(U+1100), 'ᆨ'(U+11A8) -> 'ㄱ', 그 외의 키는 그대로
+     */
+    static char keyLabel(char key) {
+        int idx = key - CONJOINING_JAMO_START_CODE;
+        int entry = idx >= 0 && idx < CONJOINING_JAMO_COUNT ? CONJOINING_KEY_ENTRY[idx] : 0;
+        if (entry == 0) {
+            return key;
+        }
+        int cho = (entry & ENTRY_MASK) - 1;
+        int jung = (entry >> ENTRY_JUNGSUNG_SHIFT & ENTRY_MASK) - 1;
+        if (cho >= 0) {
+            return SPLIT_CHOSUNG_CHAR[cho];
+        }
+        return jung >= 0 ? SPLIT_JUNGSUNG_CHAR[jung] : SPLIT_JONGSUNG_CHAR[entry >> ENTRY_JONGSUNG_SHIFT & ENTRY_MASK];
+    }
+
+    /**
+     * 자판을 바꾼다. 조합중이던 상태는 버린다.
+     */
+    void setLayout(HangulLayout layout) {
+        this.layout = layout;
+        reset();
+    }
+
+    HangulLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 키 하나를 입력한다.
+     *
+     * @param key 호환용 자모 (ㄱ ~ ㅣ) or 첫가끝 자모
+     * @return 조합할 수 없는 문자면 false (상태 변경 없음)
+     */
+    boolean input(char key) {
+        int entry = keyEntry(key);
+        if (entry == 0) {
+            return false;
+        }
+        committed = 0;
+        int cho = (entry & ENTRY_MASK) - 1;
+        int jung = (entry >> ENTRY_JUNGSUNG_SHIFT & ENTRY_MASK) - 1;
+        int jong = entry >> ENTRY_JONGSUNG_SHIFT & ENTRY_MASK;
+        if (jung != -1) {
+            inputJungsung(jung);
+        } else if (cho != -1) {
+            inputChosung(cho, jong);
+        } else {
+            inputJongsung(jong);
+        }
+        return true;
+    }
+
+    private void inputChosung(int cho, int jong) {
+        if (chosung != -1 && jungsung != -1) {
+            if (jongsung == 0) {
+                // 1. 받침 없는 음절 + 자음 -> 받침
+                if (jong != 0) {
+                    jongsung = jong;
+                    return;
+                }
+            } else {
+                // 2. 받침 있는 음절 + 자음 -> 겹받침
+                int combined = jong != 0 ? JONGSUNG_COMBINE[jongsung][jong] : -1;
+                if (combined != -1) {
+                    jongsung = combined;
+                    return;
+                }
+            }
+        }
+        if (chosung == cho && jungsung == -1 && jongsung == 0 && layout.doublesChosung()
+                && CHOSUNG_DOUBLE[cho] != -1) {
+            // 3. 초성 + 같은 초성 -> 된소리 ex) ㄱ + ㄱ -> ㄲ
+            chosung = CHOSUNG_DOUBLE[cho];
+            return;
+        }
+        // 4. 그 외에는 현재 문자를 확정하고, 새 음절의 초성으로 시작
+        committed = getComposing();
+        chosung = cho;
+        jungsung = -1;
+        jongsung = 0;
+    }
+
+    /**
+     * 종성키 입력 (세벌식)
+     */
+    private void inputJongsung(int jong) {
+        if (jongsung != 0) {
+            // 1. 받침 + 받침 -> 겹받침
+            int combined = JONGSUNG_COMBINE[jongsung][jong];
+            if (combined != -1) {
+                jongsung = combined;
+                return;
+            }
+        } else if (chosung != -1 && jungsung != -1) {
+            // 2. 받침 없는 음절 -> 받침
+            jongsung = jong;
+            return;
+        }
+        // 3. 그 외에는 현재 문자를 확정하고, 받침만 남긴다.
+        committed = getComposing();
+        chosung = -1;
+        jungsung = -1;
+        jongsung = jong;
+    }
+
+    private void inputJungsung(int jung) {
+        if (jongsung != 0) {
+            if (chosung != -1 && layout.movesJongsung()) {
+                // 1. 받침이 있으면, 마지막 자음을 다음 음절의 초성으로 옮긴다. ex) 닭 + ㅏ -> 달가
+                int nextChosung = JONGSUNG_LAST_CHOSUNG[jongsung];
+                jongsung = JONGSUNG_FIRST[jongsung];
+                committed = getComposing();
+                chosung = nextChosung;
+            } else {
+                committed = getComposing();
+                chosung = -1;
+            }
+            jongsung = 0;
+        } else if (jungsung == -1) {
+            // 2. 초성만 있거나 비어있는 경우
+            jungsung = jung;
+            return;
+        } else {
+            // 3. 받침이 없으면 복합중성 조합 시도
+            int combined = JUNGSUNG_COMBINE[jungsung][jung];
+            if (combined != -1) {
+                jungsung = combined;
+                return;
+            }
+            committed = getComposing();
+            chosung = -1;
+        }
+        jungsung = jung;
+    }
+
+    /**
+     * 조합중인 음절에서 마지막 자모 하나를 지운다. ex) 닭 -> 달, 과 -> 고
+     * 된소리를 같은 초성 두번으로 입력하는 자판은 된소리도 하나씩 지운다. ex) ㄲ -> ㄱ
+     *
+     * @return 조합중인 문자가 없으면 false
+     */
+    boolean backspace() {
+        committed = 0;
+        if (jongsung != 0) {
+            jongsung = JONGSUNG_FIRST[jongsung];
+        } else if (jungsung != -1) {
+            jungsung = JUNGSUNG_FIRST[jungsung];
+        } else if (chosung != -1) {
+            chosung = layout.doublesChosung() ? CHOSUNG_SINGLE[chosung] : -1;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 이미 입력된 문자를 조합중인 상태로 되돌린다.
+     *
+     * @param c 완성형 한글 or 호환용 자모
+     * @return 조합 가능한 문자가 아니면 false (상태 변경 없음)
+     */
+    boolean restore(char c) {
+        int chars = c - HANGUL_CHAR_START_CODE;
+        if (chars >= 0 && chars < TOTAL_HANGUL_CHAR) {
+            chosung = chars / (VOWEL * PHONOGRAM);
+            jungsung = chars % (VOWEL * PHONOGRAM) / PHONOGRAM;
+            jongsung = chars % PHONOGRAM;
+        } else if (chosungIndex(c) != -1) {
+            chosung = chosungIndex(c);
+            jungsung = -1;
+            jongsung = 0;
+        } else if (jungsungIndex(c) != -1) {
+            chosung = -1;
+            jungsung = jungsungIndex(c);
+            jongsung = 0;
+        } else if (jongsungIndex(c) != 0) {
+            chosung = -1;
+            jungsung = -1;
+            jongsung = jongsungIndex(c);
+        } else {
+            return false;
+        }
+        committed = 0;
+        return true;
+    }
+
+    /**
+     * 조합을 끝내고, 조합중이던 문자를 돌려준다.
+     *
+     * @return 조합중인 문자가 없으면 0
+     */
+    char finish() {
+        char composing = getComposing();
+        reset();
+        return composing;
+    }
+
+    void reset() {
+        chosung = -1;
+        jungsung = -1;
+        jongsung = 0;
+        committed = 0;
+    }
+
+    boolean isComposing() {
+        return chosung != -1 || jungsung != -1 || jongsung != 0;
+    }
+
+    char getCommitted() {
+        return committed;
+    }
+
+    /**
+     * @return 조합중인 문자, 없으면 0
+     */
+    char getComposing() {
+        if (chosung != -1 && jungsung != -1) {
+            return (char) (HANGUL_CHAR_START_CODE + (chosung * VOWEL + jungsung) * PHONOGRAM + jongsung);
+        } else if (chosung != -1) {
+            return SPLIT_CHOSUNG_CHAR[chosung];
+        } else if (jungsung != -1) {
+            return SPLIT_JUNGSUNG_CHAR[jungsung];
+        } else if (jongsung != 0) {
+            return SPLIT_JONGSUNG_CHAR[jongsung];
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,42 @@
+package org.klsoft.logintest.keyboard;
+
+/**
+ * Desc : 한글 자판 배열
+ * 자판은 글자키에 어떤 자모를 놓을지와, 받침/된소리의 조합 방식만 정한다.
+ * 자모의 조합은 모든 자판이 HangulAutomaton 의 같은 전이표를 쓴다.
+ * - 호환용 자모 (ㄱ) : 초성/종성 어느 쪽으로도 쓰일 수 있는 자음 (두벌식)
+ * - 첫가끝 자모 (U+1100 ~) : 초성, 중성, 종성이 정해진 자모 (세벌식)
+ * <p>
+ * 글자키는 QWERTY 자판의 자리 순서로 놓는다.
+ * 0~9 : 숫자줄 1~0, 10~19 : Q~P, 20~28 : A~L, 29~35 : Z~M, 36, 37 : 화면 자판의 쉼표/마침표 키
+ * (세벌식 390 은 36, 37 에 ; ' 자리의 초성 ㅂ ㅌ 을 놓는다)
+ */
+public interface HangulLayout {
+
+    HangulLayout DUBEOLSIK = new DubeolsikLayout();
+    HangulLayout SEBEOLSIK_390 = new Sebeolsik390Layout();
+
+    /**
+     * 한 단(normal, shift)의 글자키 개수
+     **/
+    int LETTER_KEY_COUNT = 38;
+
+    /**
+     * @param shifted shift 단이면 true
+     * @param index   0 ~ LETTER_KEY_COUNT-1
+     * @return 글자키의 key code
+     */
+    char getLetterKey(boolean shifted, int index);
+
+    /**
+     * @return 받침 뒤에 모음이 오면 받침의 마지막 자음을 다음 음절의 초성으로 옮기는지 여부
+     * ex) 두벌식 : 닭 + ㅏ -> 달가
+     */
+    boolean movesJongsung();
+
+    /**
+     * @return 초성만 있을때 같은 초성을 한번 더 입력하면 된소리로 조합하는지 여부
+     * ex) 세벌식 : ㄱ + ㄱ -> ㄲ
+     */
+    boolean doublesChosung();
+}
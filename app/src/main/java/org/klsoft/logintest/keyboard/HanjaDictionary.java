@@ -0,0 +1,145 @@
+package org.klsoft.logintest.keyboard;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Desc : 한글 -> 한자 변환 사전
+ * 한글 음절/단어를 정렬하여 BLOCK_ENTRIES 개씩 block 으로 묶고, block 안의 단어는 앞 단어와 같은 앞부분을 생략한다. (front coding)
+ * 조회시에는 block 의 첫 단어로 이진탐색한 뒤, block 안에서만 단어를 복원하며 찾는다.
+ * ex) 한 -> 韓, 漢, 限 ... / 한국 -> 韓國
+ * <p>
+ * 사전은 memory-map 한 파일을 그대로 읽으므로, 시작시 heap 에 만드는 자료구조가 없다. (HanjaDictionaryBuilder 로 생성)
+ * - header : int x 5 (magic, version, 단어수, block 수, data char 수)
+ * - block : int[block 수 + 1], block 별 data 시작 위치 (char index)
+ * - data : char[], 단어마다 [앞 단어와 같은 char 수, 나머지 char 수, 나머지 char..., 후보수, 후보 char...]
+ * 후보는 한글 단어와 길이가 같으므로 후보수 x 단어 길이 만큼의 char 이다. block 의 첫 단어는 생략하지 않는다.
+ * <p>
+ * 내부 버퍼를 쓰므로, 한 thread 에서만 사용한다.
+ */
+final class HanjaDictionary {
+
+    static final String ASSET_NAME = "hanja_dictionary.bin";
+
+    static final int MAGIC = 0x4B4C484A; // KLHJ
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+
+    /**
+     * block 하나의 단어수
+     **/
+    static final int BLOCK_ENTRIES = 16;
+
+    /**
+     * 단어의 최대 길이 (음절수)
+     **/
+    static final int MAX_KEY_LENGTH = 16;
+
+    private final int blockCount;
+    private final IntBuffer blocks;
+    private final CharBuffer data;
+
+    private final char[] key = new char[MAX_KEY_LENGTH];
+
+    HanjaDictionary(ByteBuffer dictionary) {
+        ByteBuffer header = dictionary.duplicate();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("not a hanja dictionary");
+        }
+        header.getInt();
+        blockCount = header.getInt();
+        int dataSize = header.getInt();
+        if (blockCount < 0 || dataSize < 0) {
+            throw new IllegalArgumentException("invalid hanja dictionary");
+        }
+        ByteBuffer body = header.slice();
+        blocks = section(body, (blockCount + 1) * 4).asIntBuffer();
+        data = section(body, dataSize * 2).asCharBuffer();
+    }
+
+    private static ByteBuffer section(ByteBuffer body, int length) {
+        if (body.remaining() < length) {
+            throw new IllegalArgumentException("truncated hanja dictionary");
+        }
+        ByteBuffer section = body.slice();
+        section.limit(length);
+        body.position(body.position() + length);
+        return section;
+    }
+
+    /**
+     * 한글 단어와 같은 단어의 한자 후보를 사전 순서(자주 쓰는 것부터)로 찾는다.
+     *
+     * @param text  입력된 문자열
+     * @param start 단어 시작 index
+     * @param end   단어 끝 index (exclusive)
+     * @param out   결과를 담을 배열, 최대 out.length 개를 찾는다.
+     * @return 찾은 후보수
+     */
+    int lookup(CharSequence text, int start, int end, String[] out) {
+        int length = end - start;
+        if (length <= 0 || length > MAX_KEY_LENGTH || blockCount == 0) {
+            return 0;
+        }
+
+        // text 보다 크지 않은 첫 단어를 가진 마지막 block
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (compareFirstKey(mid, text, start, end) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        int pos = blocks.get(low);
+        int limit = blocks.get(low + 1);
+        while (pos < limit) {
+            int shared = data.get(pos++);
+            int suffix = data.get(pos++);
+            for (int i = 0; i < suffix; i++) {
+                key[shared + i] = data.get(pos++);
+            }
+            int keyLength = shared + suffix;
+            int candidates = data.get(pos++);
+            int cmp = compare(key, keyLength, text, start, end);
+            if (cmp == 0) {
+                int count = Math.min(candidates, out.length);
+                for (int i = 0; i < count; i++) {
+                    int from = pos + i * keyLength;
+                    out[i] = data.subSequence(from, from + keyLength).toString();
+                }
+                return count;
+            } else if (cmp > 0) {
+                return 0;
+            }
+            pos += candidates * keyLength;
+        }
+        return 0;
+    }
+
+    private int compareFirstKey(int block, CharSequence text, int start, int end) {
+        int pos = blocks.get(block) + 1;
+        int length = data.get(pos++);
+        for (int i = 0; i < length && start + i < end; i++) {
+            int diff = data.get(pos + i) - text.charAt(start + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - (end - start);
+    }
+
+    private static int compare(char[] key, int keyLength, CharSequence text, int start, int end) {
+        for (int i = 0; i < keyLength && start + i < end; i++) {
+            int diff = key[i] - text.charAt(start + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return keyLength - (end - start);
+    }
+}
@@ -0,0 +1,196 @@
+package org.klsoft.logintest.keyboard;
+
+import java.util.List;
+
+/**
+ * Desc : 입력할 때마다 목록을 거르는 검색 filter
+ * 항목과 검색어를 두벌식 키 입력열(convertKor2Eng)로 바꾸어, 검색어의 키 입력열을 포함하는 항목을 찾는다.
+ * 키 입력열은 자모 순서이므로, 조합중인 음절도 자모 단위로 맞춰진다. ex) 하 (gk) -> 한 (gks) -> 한그 (gksrm)
+ * <p>
+ * 새 검색어의 키 입력열이 이전 검색어의 키 입력열을 포함하면(자모를 더 입력한 경우), 결과는 이전 결과의 부분집합이므로
+ * 이전 결과만 다시 확인한다. 그 외(지운 경우 등)에는 전체 항목을 확인한다.
+ * 따라서 입력 1번의 비용은 전체 항목 수가 아니라 현재 결과 수에 비례한다.
+ * <p>
+ * 한글에서 나온 키는 HANGUL_KEY_OFFSET 만큼 옮겨 두므로, 한글 이외의 영문자와 섞이지 않는다.
+ * 내부 버퍼를 쓰므로, 한 thread 에서만 사용한다.
+ */
+final class IncrementalFilter {
+
+    /**
+     * 한글에서 나온 키를 옮겨둘 위치 (사용자 정의 영역)
+     **/
+    private static final char HANGUL_KEY_OFFSET = 0xE000;
+
+    private final int size;
+    private final char[] keys;
+    private final int[] keyOffsets;
+
+    private final int[] hits;
+    private int hitCount;
+
+    private char[] query = new char[16];
+    private int queryLength;
+    private char[] previous = new char[16];
+    private int previousLength = -1;
+
+    private int checkedCount;
+    private boolean incremental;
+    private long elapsedNanos;
+
+    IncrementalFilter(List<? extends CharSequence> entries) {
+        size = entries.size();
+        int capacity = 0;
+        for (CharSequence entry : entries) {
+            capacity += entry.length() * EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR;
+        }
+        char[] buffer = new char[capacity];
+        keyOffsets = new int[size + 1];
+        int pos = 0;
+        for (int id = 0; id < size; id++) {
+            keyOffsets[id] = pos;
+            pos += toKeys(entries.get(id), buffer, pos);
+        }
+        keyOffsets[size] = pos;
+        keys = new char[pos];
+        System.arraycopy(buffer, 0, keys, 0, pos);
+        hits = new int[size];
+    }
+
+    /**
+     * 문자열을 키 입력열로 바꾸어 dst 에 쓴다. 한글에서 나온 키는 HANGUL_KEY_OFFSET 만큼 옮긴다.
+     *
+     * @return dst 에 쓴 문자수
+     */
+    private static int toKeys(CharSequence text, char[] dst, int dstOffset) {
+        int pos = dstOffset;
+        for (int i = 0; i < text.length(); i++) {
+            int n = EngKorTypingConvertor.convertKor2Eng(text, i, i + 1, dst, pos);
+            if (n != 1 || dst[pos] != text.charAt(i)) {
+                for (int k = pos; k < pos + n; k++) {
+                    dst[k] += HANGUL_KEY_OFFSET;
+                }
+            }
+            pos += n;
+        }
+        return pos - dstOffset;
+    }
+
+    /**
+     * 검색어로 목록을 거른다. 결과는 getHit(int) 로 항목 id 순서로 읽는다.
+     * 빈 검색어는 모든 항목과 맞는다.
+     *
+     * @param text 검색어 (완성형 한글, 호환용 자모, 그 외 문자)
+     * @return 맞는 항목 수
+     */
+    int filter(CharSequence text) {
+        long start = System.nanoTime();
+        int capacity = text.length() * EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR;
+        if (query.length < capacity) {
+            query = new char[capacity];
+        }
+        queryLength = toKeys(text, query, 0);
+
+        incremental = previousLength != -1 && indexOf(query, 0, queryLength, previous, previousLength) != -1;
+        checkedCount = 0;
+        if (incremental) {
+            // 이전 결과만 확인하며 앞으로 당긴다.
+            int count = 0;
+            for (int i = 0; i < hitCount; i++) {
+                int id = hits[i];
+                checkedCount++;
+                if (matches(id)) {
+                    hits[count++] = id;
+                }
+            }
+            hitCount = count;
+        } else {
+            hitCount = 0;
+            for (int id = 0; id < size; id++) {
+                checkedCount++;
+                if (matches(id)) {
+                    hits[hitCount++] = id;
+                }
+            }
+        }
+
+        if (previous.length < queryLength) {
+            previous = new char[query.length];
+        }
+        System.arraycopy(query, 0, previous, 0, queryLength);
+        previousLength = queryLength;
+        elapsedNanos = System.nanoTime() - start;
+        return hitCount;
+    }
+
+    /**
+     * 이전 결과를 버린다. 다음 filter 는 전체 항목을 확인한다.
+     */
+    void reset() {
+        previousLength = -1;
+        hitCount = 0;
+    }
+
+    private boolean matches(int id) {
+        return queryLength == 0
+                || indexOf(keys, keyOffsets[id], keyOffsets[id + 1], query, queryLength) != -1;
+    }
+
+    /**
+     * @return text[from, to) 에서 pattern[0, length) 가 처음 나오는 위치, 없으면 -1
+     */
+    private static int indexOf(char[] text, int from, int to, char[] pattern, int length) {
+        if (length == 0) {
+            return from;
+        }
+        char first = pattern[0];
+        for (int i = from, last = to - length; i <= last; i++) {
+            if (text[i] != first) continue;
+            int j = 1;
+            while (j < length && text[i + j] == pattern[j]) j++;
+            if (j == length) return i;
+        }
+        return -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 마지막 filter 의 결과 수
+     */
+    int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return 마지막 filter 의 index 번째 결과 (항목 id)
+     */
+    int getHit(int index) {
+        if (index < 0 || index >= hitCount) {
+            throw new IndexOutOfBoundsException("index " + index + ", hit count " + hitCount);
+        }
+        return hits[index];
+    }
+
+    /**
+     * @return 마지막 filter 에서 확인한 항목 수
+     */
+    int getCheckedCount() {
+        return checkedCount;
+    }
+
+    /**
+     * @return 마지막 filter 가 이전 결과만 확인했으면 true
+     */
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return 마지막 filter 에 걸린 시간 (ns)
+     */
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -1,261 +1,243 @@
 package org.klsoft.logintest.keyboard;
 
 import android.content.Context;
+import android.content.res.Resources;
 import android.inputmethodservice.Keyboard;
-import android.util.DisplayMetrics;
 import android.util.Log;
 import android.widget.Toast;
 
 import org.klsoft.logintest.R;
 
+import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class KLSoftKeyboard extends Keyboard {
 
-    static final char SHIFT_KEY_CODE = '\1';
-    static final char SPACE_KEY_CODE = '\2';
-    static final char SYMBOL_KEY_CODE = '\3';
-    static final char ENTER_KEY_CODE = '\4';
-    static final char DELETE_KEY_CODE = '\5';
-    static final char LANGUAGE_KEY_CODE = '\6';
-
-    private static int SHIFT_KEY_INDEX;
-    private static int DELETE_KEY_INDEX;
-    private static int SYMBOL_KEY_INDEX;
-    private static int LANGUAGE_KEY_INDEX;
-    private static int SPACE_KEY_INDEX;
-    private static int ENTER_KEY_INDEX;
-
-    private final int NUM_KEY_ROWS = 5;
     private Context context;
-
-    enum LanguageKey {
-        ENGLISH,
-        KOREA,
-        KOREA_SHIFT,
-        SYMBOL
-    }
-
-    private static char[] englishKeys =
-            {
-                    '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
-                    'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j',
-                    'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', ' ',
-                    SHIFT_KEY_CODE, 't', 'u', 'v', 'w', 'x', 'y', 'z', DELETE_KEY_CODE, ' ',
-                    SYMBOL_KEY_CODE, ',', LANGUAGE_KEY_CODE, SPACE_KEY_CODE, '.', ' ', ENTER_KEY_CODE
-            };
-
-    private static char[] koreaKeys =
-            {
-                    '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
-                    'ㄱ', 'ㄴ', 'ㄷ', 'ㄹ', 'ㅁ', 'ㅂ', 'ㅅ', 'ㅈ', 'ㅊ', 'ㅋ',
-                    'ㅌ', 'ㅍ', 'ㅎ', 'ㅇ', 'ㅏ', 'ㅑ', 'ㅓ', 'ㅕ', 'ㅗ', ' ',
-                    SHIFT_KEY_CODE, 'ㅛ', 'ㅜ', 'ㅠ', 'ㅡ', 'ㅣ', 'ㅐ', 'ㅔ', DELETE_KEY_CODE, ' ',
-                    SYMBOL_KEY_CODE, ',', LANGUAGE_KEY_CODE, SPACE_KEY_CODE, '.', ' ', ENTER_KEY_CODE
-            };
-
-    private static char[] koreaShiftKeys =
-            {
-                    '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
-                    'ㄲ', 'ㄴ', 'ㄸ', 'ㄹ', 'ㅁ', 'ㅃ', 'ㅆ', 'ㅉ', 'ㅊ', 'ㅋ',
-                    'ㅌ', 'ㅍ', 'ㅎ', 'ㅇ', 'ㅏ', 'ㅑ', 'ㅓ', 'ㅕ', 'ㅗ', ' ',
-                    SHIFT_KEY_CODE, 'ㅛ', 'ㅜ', 'ㅠ', 'ㅡ', 'ㅣ', 'ㅒ', 'ㅖ', DELETE_KEY_CODE, ' ',
-                    SYMBOL_KEY_CODE, ',', LANGUAGE_KEY_CODE, SPACE_KEY_CODE, '.', ' ', ENTER_KEY_CODE
-            };
-
-    private static char[] symbolKeys =
-            {
-                    '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
-                    '+', '×', '÷', '=', '/', '_', '€', '£', '¥', '₩',
-                    '!', '@', '#', '$', '%', '^', '&', '(', ')', ' ',
-                    SHIFT_KEY_CODE, '-', '\'', '"', ':', ';', '*', '?', ' ', DELETE_KEY_CODE,
-                    SYMBOL_KEY_CODE, ',', LANGUAGE_KEY_CODE, SPACE_KEY_CODE, '.', ' ', ENTER_KEY_CODE
-            };
-
-    KLSoftKeyboard(Context context, int xmlLayoutResId, LanguageKey languageKey, int columns, int horizontalPadding) {
-        super(context, xmlLayoutResId, getRandomKeyboard(languageKey), columns, horizontalPadding);
+    private final KeyboardLayout layout;
+    private final KeyboardLayout.LanguageKey languageKey;
+
+    private static final int[] NO_KEYS = new int[0];
+
+    // Hit-test grid, rebuilt by changeKeyHeight. Each cell lists the keys within
+    // keyProximity of it, so a touch only tests the keys of one cell.
+    private int[][] keyIndices;
+    private int[][] gridCells;
+    private int gridCellWidth;
+    private int gridCellHeight;
+    private int gridColumns;
+    private int gridRows;
+    private int keyProximity;
+
+    private static final int PERMUTATION_POOL_CAPACITY = 8;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Executor SHUFFLE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "KLSoftKeyboard-shuffle");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Pools of ready permutations, by permutation size
+    private static final PermutationPool[] PERMUTATION_POOLS = new PermutationPool[KeyboardLayout.MAX_KEY_COUNT + 1];
+
+    // Unshuffled keys (letters from baseHangulLayout) and their labels
+    private final char[] baseKeys;
+    private final String[] baseLabels;
+    private HangulLayout baseHangulLayout;
+    // shownKeys[i] : index in baseKeys of the key at position i
+    private final int[] shownKeys;
+    private final int[] permutation;
+
+    /**
+     * @param layout key order and geometry, may have been prepared on another thread
+     */
+    KLSoftKeyboard(Context context, int xmlLayoutResId, KeyboardLayout layout, HangulLayout hangulLayout,
+                   int columns, int horizontalPadding) {
+        super(context, xmlLayoutResId, layout.getKeyString(), columns, horizontalPadding);
         this.context = context;
+        this.layout = layout;
+        this.languageKey = layout.getLanguageKey();
+        int keyCount = layout.getKeyCount();
+        baseKeys = new char[keyCount];
+        baseLabels = new String[keyCount];
+        shownKeys = new int[keyCount];
+        permutation = new int[keyCount];
+        reshuffle(hangulLayout, null);
         changeKeyHeight();
     }
 
-    private static CharSequence getRandomKeyboard(LanguageKey languageKey) {
+    KeyboardLayout getLayout() {
+        return layout;
+    }
 
-        char[] ranKeyboard;
-        switch (languageKey) {
-            case KOREA:
-                ranKeyboard = koreaKeys;
-                break;
-            case KOREA_SHIFT:
-                ranKeyboard = koreaShiftKeys;
-                break;
-            case SYMBOL:
-                ranKeyboard = symbolKeys;
-                break;
-            default:
-                ranKeyboard = englishKeys;
-        }
-        setSpecialKeyIndex(ranKeyboard);
+    private static synchronized PermutationPool getPermutationPool(int size) {
+        if (PERMUTATION_POOLS[size] == null)
+            PERMUTATION_POOLS[size] = new PermutationPool(size, PERMUTATION_POOL_CAPACITY, RANDOM, SHUFFLE_EXECUTOR);
+        return PERMUTATION_POOLS[size];
+    }
 
-        int min = 0;
-        int max = 10;
-        //Random number only
-        for (int i = 0; i < 10; i++) {
-            int ranIndex = new Random().nextInt(max - min) + min;
-            char temp = ranKeyboard[i];
-            ranKeyboard[i] = ranKeyboard[ranIndex];
-            ranKeyboard[ranIndex] = temp;
-            min = i + 1;
+    /**
+     * Shuffles the keys again in place. The special keys never move, so the geometry, icons and
+     * hit-test grid stay valid and only the label and code of the shuffled keys change.
+     * Every group of shuffled keys gets an unbiased permutation from a SecureRandom-backed pool.
+     *
+     * @param changed if not null, receives the indices of the relabeled keys (getKeys().size() long)
+     * @return the number of relabeled keys
+     */
+    int reshuffle(HangulLayout hangulLayout, int[] changed) {
+        if (baseHangulLayout != hangulLayout)
+            setBaseKeys(hangulLayout);
+        for (int i = 0; i < shownKeys.length; i++) {
+            shownKeys[i] = i;
         }
-        //Random for characters
-        min = 10;
-        max = ranKeyboard.length;
-        for (int i = min; i < ranKeyboard.length; i++) {
-            if (isRandomKey(i, ranKeyboard)) {
-                int ranIndex = new Random().nextInt((max - min)) + min;
-                //if key is swapable..
-                if (isRandomKey(ranIndex, ranKeyboard)) {
-                    char temp = ranKeyboard[i];
-                    ranKeyboard[i] = ranKeyboard[ranIndex];
-                    ranKeyboard[ranIndex] = temp;
-                    min = i + 1;
-                }
+        for (int group = 0; group < layout.getShuffleGroupCount(); group++) {
+            int size = layout.getShuffleGroupSize(group);
+            getPermutationPool(size).next(permutation);
+            for (int i = 0; i < size; i++) {
+                shownKeys[layout.getShuffledPosition(group, i)] = layout.getShuffledPosition(group, permutation[i]);
             }
         }
-        return new String(ranKeyboard);
-    }
 
-    private static boolean isRandomKey(int i, char[] ch) {
-        return i != SHIFT_KEY_INDEX &&
-                i != DELETE_KEY_INDEX &&
-                i != SPACE_KEY_INDEX &&
-                i != ENTER_KEY_INDEX &&
-                i != SYMBOL_KEY_INDEX &&
-                i != LANGUAGE_KEY_INDEX &&
-                ch[i] != ' ';
+        List<Key> keys = getKeys();
+        int count = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            char code = baseKeys[shownKeys[i]];
+            if (key.codes[0] != code) {
+                key.codes[0] = code;
+                key.label = baseLabels[shownKeys[i]];
+                if (changed != null)
+                    changed[count] = i;
+                count++;
+            }
+        }
+        return count;
     }
 
-    private static void setSpecialKeyIndex(char[] chars) {
-        for (int i = 0; i < chars.length; i++) {
-            char ch = chars[i];
-            switch (ch) {
-                case SPACE_KEY_CODE:
-                    SPACE_KEY_INDEX = i;
-                    break;
-                case SHIFT_KEY_CODE:
-                    SHIFT_KEY_INDEX = i;
-                    break;
-                case SYMBOL_KEY_CODE:
-                    SYMBOL_KEY_INDEX = i;
-                    break;
-                case ENTER_KEY_CODE:
-                    ENTER_KEY_INDEX = i;
-                    break;
-                case DELETE_KEY_CODE:
-                    DELETE_KEY_INDEX = i;
-                    break;
-                case LANGUAGE_KEY_CODE:
-                    LANGUAGE_KEY_INDEX = i;
-                    break;
-                default:
-                    break;
-            }
+    /**
+     * Puts the layout's letter keys into the letter slots of the Korean keyboards.
+     */
+    private void setBaseKeys(HangulLayout hangulLayout) {
+        for (int i = 0, n = 0; i < baseKeys.length; i++) {
+            char code = layout.getKey(i);
+            if (code == KeyboardLayout.LETTER_KEY_CODE && layout.isKorean())
+                code = hangulLayout.getLetterKey(languageKey == KeyboardLayout.LanguageKey.KOREA_SHIFT, n++);
+            baseKeys[i] = code;
+            // Sebeolsik sends conjoining jamo, shown as the compatibility jamo of the same shape
+            baseLabels[i] = String.valueOf(HangulAutomaton.keyLabel(code));
         }
+        baseHangulLayout = hangulLayout;
     }
 
+    /**
+     * Returns the key under (x, y), or the nearest key within keyProximity for touches in key gaps.
+     * The returned arrays are shared and must not be modified.
+     */
     @Override
     public int[] getNearestKeys(int x, int y) {
-        //Re-calculate keys' position
+        if (gridCells == null)
+            return NO_KEYS;
+        int column = Math.min(Math.max(x, 0) / gridCellWidth, gridColumns - 1);
+        int row = Math.min(Math.max(y, 0) / gridCellHeight, gridRows - 1);
+        List<Key> keys = getKeys();
+        int nearest = -1;
+        int nearestDistance = keyProximity * keyProximity + 1;
+        for (int index : gridCells[row * gridColumns + column]) {
+            int distance = squaredDistance(keys.get(index), x, y);
+            if (distance == 0)
+                return keyIndices[index];
+            if (distance < nearestDistance) {
+                nearest = index;
+                nearestDistance = distance;
+            }
+        }
+        return nearest == -1 ? NO_KEYS : keyIndices[nearest];
+    }
+
+    /**
+     * Squared distance from (x, y) to the key rectangle, 0 inside the key.
+     */
+    private static int squaredDistance(Key key, int x, int y) {
+        int dx = Math.max(0, Math.max(key.x - x, x - (key.x + key.width - 1)));
+        int dy = Math.max(0, Math.max(key.y - y, y - (key.y + key.height - 1)));
+        return dx * dx + dy * dy;
+    }
+
+    private void buildKeyGrid(int cellWidth, int cellHeight) {
         List<Key> keys = getKeys();
+        keyIndices = new int[keys.size()][];
+        int width = 1;
+        int height = 1;
         for (int i = 0; i < keys.size(); i++) {
-            int startX = keys.get(i).x;
-            int endX = startX + keys.get(i).width;
-            int startY = keys.get(i).y;
-            int endY = startY + keys.get(i).height;
-            if (x > startX && x < endX && y > startY && y < endY) {
-                return new int[]{i};
+            Key key = keys.get(i);
+            keyIndices[i] = new int[]{i};
+            width = Math.max(width, key.x + key.width);
+            height = Math.max(height, key.y + key.height);
+        }
+        gridCellWidth = Math.max(1, cellWidth);
+        gridCellHeight = Math.max(1, cellHeight);
+        gridColumns = (width + gridCellWidth - 1) / gridCellWidth;
+        gridRows = (height + gridCellHeight - 1) / gridCellHeight;
+        keyProximity = gridCellWidth / 2;
+
+        int[][] cells = new int[gridColumns * gridRows][];
+        int[] candidates = new int[keys.size()];
+        long maxDistance = (long) keyProximity * keyProximity;
+        for (int row = 0; row < gridRows; row++) {
+            int top = row * gridCellHeight;
+            int bottom = top + gridCellHeight - 1;
+            for (int column = 0; column < gridColumns; column++) {
+                int left = column * gridCellWidth;
+                int right = left + gridCellWidth - 1;
+                int count = 0;
+                for (int i = 0; i < keys.size(); i++) {
+                    Key key = keys.get(i);
+                    if (key.width <= 0 || key.height <= 0)
+                        continue;
+                    // gap between the key and the cell
+                    long dx = Math.max(0, Math.max(key.x - right, left - (key.x + key.width - 1)));
+                    long dy = Math.max(0, Math.max(key.y - bottom, top - (key.y + key.height - 1)));
+                    if (dx * dx + dy * dy <= maxDistance)
+                        candidates[count++] = i;
+                }
+                cells[row * gridColumns + column] = count == 0 ? NO_KEYS : Arrays.copyOf(candidates, count);
             }
         }
-        return new int[0];
+        gridCells = cells;
     }
 
     @Override
     public int getHeight() {
-        return getKeyHeight() * NUM_KEY_ROWS;
+        return getKeyHeight() * KeyboardLayout.NUM_KEY_ROWS;
     }
 
+    /**
+     * Applies the precomputed x/width of the layout, hides the placeholder keys and sets the
+     * special key icons (shared, see KeyIconCache) and labels.
+     */
     private void changeKeyHeight() {
         List<Key> keys = getKeys();
-        int rowIndex = 0;
-        DisplayMetrics dm = context.getResources().getDisplayMetrics();
-        int screenWidth = dm.widthPixels;
-        int screenHeight = dm.heightPixels;
-        int defaultHeight = (screenHeight / 3) / NUM_KEY_ROWS;
-        int defaultWidth = (screenWidth / 10);
-        //fill width/height gap in case last digit of screenWidth/screenHeight is bigger than 0. eg. 768
-        if(screenWidth % 10 != 0)
-            defaultWidth += 1;
-        if(screenHeight % 10 != 0)
-            defaultHeight += 1;
-        int width = defaultWidth;
-        int key_y = 0;
-        int key_x = 0;
-        int totalWidth = 0;
         for (int i = 0; i < keys.size(); i++) {
             Key key = keys.get(i);
-            String[] special_key_index = new String[]{
-                    Integer.toString(SHIFT_KEY_INDEX),
-                    Integer.toString(DELETE_KEY_INDEX),
-                    Integer.toString(LANGUAGE_KEY_INDEX),
-                    Integer.toString(SYMBOL_KEY_INDEX)
-            };
-            boolean isSpcKeyIndex = Arrays.asList(special_key_index)
-                    .contains(Integer.toString(i));
-            if (isSpcKeyIndex) {
-                width += width / 2;
-                key.width = width;
-            } else if (i == ENTER_KEY_INDEX) {
-                width = width * 2;
-                key.width = width;
-            } else if (i == SPACE_KEY_INDEX) {
-                int otherKeysWidth = (2 * width /* "." & ";" key*/ + (
-                        width + width / 2) * 2 /*special key width*/
-                        + width * 2 /*enter key*/);
-                width = screenWidth - otherKeysWidth;
-                key.width = width;
-            } else if (key.label.charAt(0) == ' ') {
-                if (rowIndex >= 3)
-                    width = 0;
-                key.width = 0;
+            key.x = layout.getKeyX(i);
+            key.width = layout.getKeyWidth(i);
+            if (layout.isHidden(i))
                 key.height = 0;
-            } else {
-                key.width = width;
-            }
-            totalWidth += width;
-            key.x = key_x;
-            key_x += width;
-            if (totalWidth >= screenWidth) {
-                key_y += defaultHeight;
-                if (rowIndex == 1)
-                    key_x = defaultWidth / 2;
-                else
-                    key_x = 0;
-                totalWidth = 0;
-                rowIndex++;
-            }
-            width = defaultWidth;
         }
-        keys.get(SHIFT_KEY_INDEX).label = null;
-        keys.get(SHIFT_KEY_INDEX).icon = context.getResources().getDrawable(R.drawable.icon_shift_key, null);
-        keys.get(DELETE_KEY_INDEX).label = null;
-        keys.get(DELETE_KEY_INDEX).icon = context.getResources().getDrawable(R.drawable.icon_delete_key, null);
-        keys.get(SPACE_KEY_INDEX).label = "space";
-        keys.get(SYMBOL_KEY_INDEX).label = "?123";
-        keys.get(ENTER_KEY_INDEX).label = null;
-        keys.get(ENTER_KEY_INDEX).icon = context.getResources().getDrawable(R.drawable.enter_key, null);
-        keys.get(LANGUAGE_KEY_INDEX).label = null;
-        keys.get(LANGUAGE_KEY_INDEX).icon = context.getResources().getDrawable(R.drawable.icon_language_key, null);
+        Resources resources = context.getResources();
+        keys.get(layout.getShiftKeyIndex()).label = null;
+        keys.get(layout.getShiftKeyIndex()).icon = KeyIconCache.getDrawable(resources, R.drawable.icon_shift_key);
+        keys.get(layout.getDeleteKeyIndex()).label = null;
+        keys.get(layout.getDeleteKeyIndex()).icon = KeyIconCache.getDrawable(resources, R.drawable.icon_delete_key);
+        keys.get(layout.getSpaceKeyIndex()).label = "space";
+        keys.get(layout.getSymbolKeyIndex()).label = "?123";
+        keys.get(layout.getEnterKeyIndex()).label = null;
+        keys.get(layout.getEnterKeyIndex()).icon = KeyIconCache.getDrawable(resources, R.drawable.enter_key);
+        keys.get(layout.getLanguageKeyIndex()).label = null;
+        keys.get(layout.getLanguageKeyIndex()).icon = KeyIconCache.getDrawable(resources, R.drawable.icon_language_key);
+        buildKeyGrid(layout.getDefaultKeyWidth(), layout.getDefaultKeyHeight());
     }
 
     public void log(String message) {
@@ -1,38 +1,80 @@
 package org.klsoft.logintest.keyboard;
 
 import android.app.Activity;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.Configuration;
-import android.inputmethodservice.Keyboard;
-import android.inputmethodservice.KeyboardView;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.InputType;
+import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.Gravity;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.ViewConfiguration;
 import android.view.WindowManager;
 import android.view.inputmethod.InputConnection;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.PopupWindow;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import org.klsoft.logintest.R;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListener {
-
-    private static final Pattern ENG_PATTERN = Pattern.compile("[a-zA-Z]");
-    private KeyboardView keyboardView;
-    private KLSoftKeyboard.LanguageKey languageKey;
-    private Timer timerLongPress;
+public class KLSoftKeyboardService implements KLSoftKeyboardView.OnKeyboardActionListener {
+
+    private static final int MAX_SUGGESTIONS = 3;
+    private static final int MAX_HANJA_CANDIDATES = 8;
+
+    private KLSoftKeyboardView keyboardView;
+    // Built once per LanguageKey and orientation, reshuffled in place when reused
+    private final KLSoftKeyboard[][] keyboards = new KLSoftKeyboard[KeyboardLayout.LanguageKey.values().length][2];
+    // Key geometry by LanguageKey and screen, computed in the background
+    private final KeyboardLayoutCache layoutCache = new KeyboardLayoutCache(ForkJoinPool.commonPool());
+    private KeyboardLayout.LanguageKey languageKey;
+    private final HangulAutomaton hangulAutomaton = new HangulAutomaton();
+    private final LanguageDetector languageDetector;
+    private final CompletionDictionary completionDictionary;
+    private final SpellCorrector spellCorrector;
+    private final String[] suggestions = new String[MAX_SUGGESTIONS];
+    private LinearLayout suggestionStrip;
+    private final HanjaDictionary hanjaDictionary;
+    private final String[] hanjaCandidates = new String[MAX_HANJA_CANDIDATES];
+    private PopupWindow hanjaPopup;
+    // a long press did the key's work, so its onKey is ignored
+    private boolean isLongPressHandled = false;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // long press on space shows the Hanja candidates instead of typing a space, if there are any
+    private final Runnable hanjaLongPress = () -> {
+        showHanjaCandidates(new CustomInputConnection(editText));
+        isLongPressHandled = hanjaPopup != null;
+    };
+    // long press on the language key switches between the Dubeolsik and Sebeolsik layouts
+    private final Runnable hangulLayoutLongPress = () -> {
+        isLongPressHandled = true;
+        setHangulLayout(hangulAutomaton.getLayout() == HangulLayout.DUBEOLSIK
+                ? HangulLayout.SEBEOLSIK_390
+                : HangulLayout.DUBEOLSIK);
+    };
+    // Repeats held keys (see isRepeatable) on the main thread, in frame-aligned batches
+    private final KeyRepeater keyRepeater = new KeyRepeater(this::onKeyRepeat,
+            ViewConfiguration.getLongPressTimeout(), 100L, 20L, 0.85f);
+    private boolean isReshuffleOnKey = false;
+    private int[] reshuffledKeys = new int[0];
     private boolean isSymbol = false;
     private boolean isKoreaKeyBoard = false;
-    private boolean isKeyRelease = false;
     private boolean isFirstPopUp;
     private int prevOrientation = Configuration.ORIENTATION_UNDEFINED;
     private EditText editText;
@@ -41,10 +83,15 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
 
     public KLSoftKeyboardService(AppCompatActivity activity) {
         this.activity = activity;
-        languageKey = KLSoftKeyboard.LanguageKey.ENGLISH;
-        timerLongPress = new Timer();
+        languageKey = KeyboardLayout.LanguageKey.ENGLISH;
+        prepareLayouts(activity);
+        languageDetector = openLanguageDetector(activity);
+        completionDictionary = openCompletionDictionary(activity);
+        spellCorrector = openSpellCorrector(activity);
+        hanjaDictionary = openHanjaDictionary(activity);
         isFirstPopUp = true;
         keyboardView = activity.findViewById(R.id.keyboard);
+        setUpSuggestionStrip(activity);
         setKeyboard(activity, languageKey);
         keyboardView.setOnKeyboardActionListener(this);
         // Hide the standard keyboard initially
@@ -53,28 +100,40 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
 
     @Override
     public void onPress(int primaryCode) {
-        InputConnection ic = new CustomInputConnection(editText);
-        isKeyRelease = false;
-        timerLongPress.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (primaryCode == KLSoftKeyboard.DELETE_KEY_CODE) {
-                    while (!isKeyRelease) {
-                        try {
-                            Thread.sleep(100L);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                        deleteText(ic);
-                    }
-                }
-            }
-        }, ViewConfiguration.getLongPressTimeout());
+        if (isRepeatable(primaryCode))
+            keyRepeater.start(primaryCode);
+        else if (primaryCode == KeyboardLayout.SPACE_KEY_CODE && isKoreaKeyBoard)
+            handler.postDelayed(hanjaLongPress, ViewConfiguration.getLongPressTimeout());
+        else if (primaryCode == KeyboardLayout.LANGUAGE_KEY_CODE && isKoreaKeyBoard && !isSymbol)
+            handler.postDelayed(hangulLayoutLongPress, ViewConfiguration.getLongPressTimeout());
     }
 
     @Override
     public void onRelease(int primaryCode) {
-        isKeyRelease = true;
+        keyRepeater.cancel();
+        handler.removeCallbacks(hanjaLongPress);
+        handler.removeCallbacks(hangulLayoutLongPress);
+        // onKey has run already, unless the finger slid off the key
+        isLongPressHandled = false;
+    }
+
+    private static boolean isRepeatable(int primaryCode) {
+        return primaryCode == KeyboardLayout.DELETE_KEY_CODE;
+    }
+
+    private void onKeyRepeat(int primaryCode, int count) {
+        if (primaryCode == KeyboardLayout.DELETE_KEY_CODE)
+            deleteText(new CustomInputConnection(editText), count);
+    }
+
+    /**
+     * Sets how a held key repeats, eg. delete.
+     *
+     * @param acceleration factor applied to the interval after each repeat, 1 for a constant rate
+     */
+    public void setKeyRepeatTiming(long initialDelayMillis, long startIntervalMillis, long minIntervalMillis,
+                                   float acceleration) {
+        keyRepeater.setTiming(initialDelayMillis, startIntervalMillis, minIntervalMillis, acceleration);
     }
 
     @Override
@@ -105,45 +164,60 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
     @Override
     public void onKey(int primaryCode, int[] keyCodes) {
         InputConnection ic = new CustomInputConnection(editText);
+        boolean isLongPressed = isLongPressHandled;
+        isLongPressHandled = false;
+        if (!isLongPressed || primaryCode != KeyboardLayout.SPACE_KEY_CODE)
+            dismissHanjaCandidates();
+        KLSoftKeyboard keyboard = keyboardView.getKeyboard();
         switch (primaryCode) {
-            case KLSoftKeyboard.DELETE_KEY_CODE:
+            case KeyboardLayout.DELETE_KEY_CODE:
                 deleteText(ic);
                 break;
 
-            case KLSoftKeyboard.SHIFT_KEY_CODE:
+            case KeyboardLayout.SHIFT_KEY_CODE:
                 if (!isKoreaKeyBoard)
                     keyboardView.setShifted(!keyboardView.isShifted());
                 else {
-                    languageKey = KLSoftKeyboard.LanguageKey.KOREA_SHIFT;
+                    languageKey = languageKey == KeyboardLayout.LanguageKey.KOREA_SHIFT
+                            ? KeyboardLayout.LanguageKey.KOREA
+                            : KeyboardLayout.LanguageKey.KOREA_SHIFT;
                     setKeyboard(activity, languageKey);
                 }
                 break;
 
-            case KLSoftKeyboard.LANGUAGE_KEY_CODE: //switch keyboard_default
+            case KeyboardLayout.LANGUAGE_KEY_CODE: //switch keyboard_default
+                if (isLongPressed)
+                    break;
+                finishHangul(ic);
                 isKoreaKeyBoard = !isKoreaKeyBoard;
                 languageKey = isKoreaKeyBoard
-                        ? KLSoftKeyboard.LanguageKey.KOREA
-                        : KLSoftKeyboard.LanguageKey.ENGLISH;
+                        ? KeyboardLayout.LanguageKey.KOREA
+                        : KeyboardLayout.LanguageKey.ENGLISH;
                 setKeyboard(activity, languageKey);
                 isSymbol = false;
                 break;
 
-            case KLSoftKeyboard.ENTER_KEY_CODE:
+            case KeyboardLayout.ENTER_KEY_CODE:
+                finishHangul(ic);
                 hideCustomKeyboard();
                 break;
 
-            case KLSoftKeyboard.SPACE_KEY_CODE:
+            case KeyboardLayout.SPACE_KEY_CODE:
+                if (isLongPressed)
+                    break;
+                finishHangul(ic);
+                switchMistypedLanguage(ic);
                 ic.commitText(" ", 1);
                 break;
 
-            case KLSoftKeyboard.SYMBOL_KEY_CODE:
+            case KeyboardLayout.SYMBOL_KEY_CODE:
                 if (isSymbol) {
                     languageKey = isKoreaKeyBoard
-                            ? KLSoftKeyboard.LanguageKey.KOREA
-                            : KLSoftKeyboard.LanguageKey.ENGLISH;
+                            ? KeyboardLayout.LanguageKey.KOREA
+                            : KeyboardLayout.LanguageKey.ENGLISH;
                     isSymbol = false;
                 } else {
-                    languageKey = KLSoftKeyboard.LanguageKey.SYMBOL;
+                    languageKey = KeyboardLayout.LanguageKey.SYMBOL;
                     isSymbol = true;
                 }
                 setKeyboard(activity, languageKey);
@@ -151,29 +225,285 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
 
             default:
                 char code = (char) primaryCode;
-                String c;
-                if (Character.isLetter(code)) {
-                    if (!isKoreaKeyBoard) {
-                        if (keyboardView.isShifted()) code = Character.toUpperCase(code);
-                        c = String.valueOf(code);
-                    } else {
-                        CharSequence sequence = ic.getTextBeforeCursor(1, 0);
-                        Matcher mc = ENG_PATTERN.matcher(sequence);
-                        if (mc.find()) {
-                            c = String.valueOf(code);
-                        } else {
-                            sequence = EngKorTypingConvertor.convertKor2Eng(sequence.toString());
-                            c = EngKorTypingConvertor.convertKor2Eng(String.valueOf(code));
-                            c = EngKorTypingConvertor.convertEng2Kor(sequence + c);
-                            ic.deleteSurroundingText(1, 0);
-                        }
+                if (isKoreaKeyBoard) {
+                    if (hangulAutomaton.input(code)) {
+                        composeHangul(ic);
+                        break;
                     }
-                } else {
-                    c = String.valueOf(code);
+                    finishHangul(ic);
+                } else if (Character.isLetter(code) && keyboardView.isShifted()) {
+                    code = Character.toUpperCase(code);
                 }
-                ic.commitText(c, 1);
+                ic.commitText(String.valueOf(code), 1);
+        }
+        // a mode switch has already shown a freshly shuffled keyboard
+        if (isReshuffleOnKey && keyboardView.getKeyboard() == keyboard)
+            reshuffleKeys(keyboard);
+        updateSuggestions(ic);
+    }
+
+    /**
+     * Reshuffles the shown keyboard in place and redraws only the keys that were relabeled.
+     */
+    private void reshuffleKeys(KLSoftKeyboard keyboard) {
+        int keyCount = keyboard.getKeys().size();
+        if (reshuffledKeys.length < keyCount)
+            reshuffledKeys = new int[keyCount];
+        int count = keyboard.reshuffle(hangulAutomaton.getLayout(), reshuffledKeys);
+        for (int i = 0; i < count; i++) {
+            keyboardView.invalidateKey(reshuffledKeys[i]);
+        }
+    }
+
+    /**
+     * Reshuffles the keys after every key press, eg. for PIN or password entry.
+     * Only the labels and codes of the shown keyboard change, so a keystroke does not rebuild it.
+     * It is turned on for password fields and off for other fields whenever a field gets the
+     * keyboard, this overrides it for the current field.
+     */
+    public void setReshuffleOnKey(boolean reshuffleOnKey) {
+        isReshuffleOnKey = reshuffleOnKey;
+    }
+
+    /**
+     * Shows the automaton's state in the editor's composing region with a single text change.
+     * A closed syllable stays in the text and the composing region moves to the new one.
+     */
+    private void composeHangul(InputConnection ic) {
+        char committed = hangulAutomaton.getCommitted();
+        char composing = hangulAutomaton.getComposing();
+        if (committed != 0 && composing != 0) {
+            ic.setComposingText(new String(new char[]{committed, composing}), 1);
+            int cursor = editText.getSelectionStart();
+            ic.setComposingRegion(cursor - 1, cursor);
+        } else if (composing != 0) {
+            ic.setComposingText(String.valueOf(composing), 1);
+        } else {
+            ic.commitText(committed != 0 ? String.valueOf(committed) : "", 1);
+        }
+    }
+
+    /**
+     * Ends the composition, the composing syllable stays as typed.
+     */
+    private void finishHangul(InputConnection ic) {
+        hangulAutomaton.reset();
+        ic.finishComposingText();
+    }
+
+    /**
+     * At a word boundary, converts the word before the cursor if it was typed on the wrong keyboard
+     * and switches the keyboard as LANGUAGE_KEY_CODE does, eg. gksrmf -> 한글
+     */
+    private void switchMistypedLanguage(InputConnection ic) {
+        if (languageDetector == null || isSymbol || editText == null || isPassword(editText.getInputType()))
+            return;
+        // the eng<->kor conversion follows Dubeolsik key positions
+        if (hangulAutomaton.getLayout() != HangulLayout.DUBEOLSIK)
+            return;
+        CharSequence before = ic.getTextBeforeCursor(LanguageDetector.MAX_TOKEN_LENGTH + 1, 0);
+        if (before == null)
+            return;
+        int end = before.length();
+        int start = end;
+        while (start > 0 && Character.isLetter(before.charAt(start - 1)))
+            start--;
+        if (start == end || (start == 0 && end > LanguageDetector.MAX_TOKEN_LENGTH))
+            return;
+
+        String word = before.subSequence(start, end).toString();
+        String keys = isKoreaKeyBoard ? EngKorTypingConvertor.convertKor2Eng(word) : word;
+        LanguageDetector.Language language = languageDetector.detect(keys, 0, keys.length());
+        String converted;
+        if (!isKoreaKeyBoard && language == LanguageDetector.Language.KOREAN)
+            converted = EngKorTypingConvertor.convertEng2Kor(keys);
+        else if (isKoreaKeyBoard && language == LanguageDetector.Language.ENGLISH)
+            converted = keys;
+        else
+            return;
+
+        ic.deleteSurroundingText(end - start, 0);
+        ic.commitText(converted, 1);
+        isKoreaKeyBoard = !isKoreaKeyBoard;
+        languageKey = isKoreaKeyBoard
+                ? KeyboardLayout.LanguageKey.KOREA
+                : KeyboardLayout.LanguageKey.ENGLISH;
+        setKeyboard(activity, languageKey);
+    }
+
+    private static boolean isPassword(int inputType) {
+        int variation = inputType & InputType.TYPE_MASK_VARIATION;
+        return variation == InputType.TYPE_TEXT_VARIATION_PASSWORD
+                || variation == InputType.TYPE_TEXT_VARIATION_VISIBLE_PASSWORD
+                || variation == InputType.TYPE_TEXT_VARIATION_WEB_PASSWORD;
+    }
+
+    private void setUpSuggestionStrip(AppCompatActivity activity) {
+        suggestionStrip = activity.findViewById(R.id.suggestions);
+        if (suggestionStrip == null)
+            return;
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        for (int i = 0; i < MAX_SUGGESTIONS; i++) {
+            TextView view = (TextView) inflater.inflate(R.layout.suggestion_item, suggestionStrip, false);
+            view.setOnClickListener(v -> applySuggestion(((TextView) v).getText()));
+            suggestionStrip.addView(view);
+        }
+    }
+
+    /**
+     * Shows the dictionary completions of the Hangul word before the cursor, eg. 한그 -> 한글,
+     * or its typo corrections if nothing completes it, eg. 한귿 -> 한글
+     */
+    private void updateSuggestions(InputConnection ic) {
+        if (suggestionStrip == null)
+            return;
+        int count = 0;
+        if ((completionDictionary != null || spellCorrector != null) && isKoreaKeyBoard && editText != null
+                && isCustomKeyboardVisible() && !isPassword(editText.getInputType())) {
+            CharSequence before = ic.getTextBeforeCursor(CompletionDictionary.MAX_WORD_KEYS
+                    / EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR, 0);
+            if (before != null) {
+                int start = hangulWordStart(before);
+                if (completionDictionary != null)
+                    count = completionDictionary.complete(before, start, before.length(), suggestions);
+                if (count == 0 && spellCorrector != null)
+                    count = spellCorrector.correct(before, start, before.length(), suggestions);
+            }
+        }
+        for (int i = 0; i < MAX_SUGGESTIONS; i++) {
+            ((TextView) suggestionStrip.getChildAt(i)).setText(i < count ? suggestions[i] : null);
+        }
+        suggestionStrip.setVisibility(count > 0 ? View.VISIBLE : View.GONE);
+    }
+
+    private void applySuggestion(CharSequence word) {
+        if (word == null || word.length() == 0 || editText == null)
+            return;
+        InputConnection ic = new CustomInputConnection(editText);
+        finishHangul(ic);
+        CharSequence before = ic.getTextBeforeCursor(CompletionDictionary.MAX_WORD_KEYS
+                / EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR, 0);
+        if (before != null)
+            ic.deleteSurroundingText(before.length() - hangulWordStart(before), 0);
+        ic.commitText(word, 1);
+        updateSuggestions(ic);
+    }
+
+    private static int hangulWordStart(CharSequence text) {
+        int start = text.length();
+        while (start > 0 && isHangul(text.charAt(start - 1)))
+            start--;
+        return start;
+    }
+
+    /**
+     * Shows the Hanja candidates of the longest dictionary word ending at the cursor in a row of
+     * key preview views above the keyboard, eg. 대한민국 -> 大韓民國, 한 -> 韓, 漢, ...
+     */
+    private void showHanjaCandidates(InputConnection ic) {
+        dismissHanjaCandidates();
+        if (hanjaDictionary == null || !isKoreaKeyBoard || editText == null
+                || !isCustomKeyboardVisible() || isPassword(editText.getInputType()))
+            return;
+        CharSequence before = ic.getTextBeforeCursor(HanjaDictionary.MAX_KEY_LENGTH, 0);
+        if (before == null)
+            return;
+        int end = before.length();
+        int count = 0;
+        int start = hangulWordStart(before);
+        for (; start < end; start++) {
+            count = hanjaDictionary.lookup(before, start, end, hanjaCandidates);
+            if (count > 0)
+                break;
+        }
+        if (count == 0)
+            return;
+
+        final int length = end - start;
+        LinearLayout row = new LinearLayout(activity);
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        LayoutInflater inflater = LayoutInflater.from(activity);
+        int padding = activity.getResources().getDimensionPixelSize(R.dimen.suggestion_vertical_padding);
+        for (int i = 0; i < count; i++) {
+            TextView view = (TextView) inflater.inflate(R.layout.key_preview, row, false);
+            view.setText(hanjaCandidates[i]);
+            view.setPadding(0, padding, 0, padding);
+            view.setOnClickListener(v -> applyHanja(((TextView) v).getText(), length));
+            row.addView(view, new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 1));
         }
+        hanjaPopup = new PopupWindow(row, keyboardView.getWidth(), ViewGroup.LayoutParams.WRAP_CONTENT);
+        hanjaPopup.setOutsideTouchable(true);
+        hanjaPopup.showAtLocation(keyboardView, Gravity.BOTTOM | Gravity.START, 0, keyboardView.getHeight());
+    }
 
+    private void applyHanja(CharSequence hanja, int length) {
+        dismissHanjaCandidates();
+        if (editText == null)
+            return;
+        InputConnection ic = new CustomInputConnection(editText);
+        finishHangul(ic);
+        ic.deleteSurroundingText(length, 0);
+        ic.commitText(hanja, 1);
+        updateSuggestions(ic);
+    }
+
+    private void dismissHanjaCandidates() {
+        if (hanjaPopup != null) {
+            hanjaPopup.dismiss();
+            hanjaPopup = null;
+        }
+    }
+
+    private static boolean isHangul(char c) {
+        return (c >= 0xAC00 && c <= 0xD7A3) || (c >= 0x3131 && c <= 0x3163);
+    }
+
+    /**
+     * Maps the n-gram model from the (uncompressed) assets, or null if the app ships without one.
+     * This tree ships no app/src/main/assets, so detection stays off until the model is built with
+     * the :tools LanguageModelBuilder.
+     */
+    private static LanguageDetector openLanguageDetector(Context context) {
+        try {
+            return new LanguageDetector(mapAsset(context, LanguageDetector.ASSET_NAME));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.d("KLSoft", "language detection disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static CompletionDictionary openCompletionDictionary(Context context) {
+        try {
+            return new CompletionDictionary(mapAsset(context, CompletionDictionary.ASSET_NAME));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.d("KLSoft", "word completion disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static SpellCorrector openSpellCorrector(Context context) {
+        try {
+            return new SpellCorrector(mapAsset(context, SpellCorrector.ASSET_NAME));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.d("KLSoft", "typo correction disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static HanjaDictionary openHanjaDictionary(Context context) {
+        try {
+            return new HanjaDictionary(mapAsset(context, HanjaDictionary.ASSET_NAME));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.d("KLSoft", "hanja conversion disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ByteBuffer mapAsset(Context context, String name) throws IOException {
+        try (AssetFileDescriptor afd = context.getAssets().openFd(name);
+             FileChannel channel = afd.createInputStream().getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+        }
     }
 
     public void onComputeInsets() {
@@ -205,26 +535,85 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
         }
     }
 
-    private void setKeyboard(AppCompatActivity activity, KLSoftKeyboard.LanguageKey languageKey) {
-        Keyboard keyboard = new KLSoftKeyboard(activity, R.xml.keyboard, languageKey, 10, 0);
+    private void setKeyboard(AppCompatActivity activity, KeyboardLayout.LanguageKey languageKey) {
+        int orientation = getOrientationIndex(activity);
+        DisplayMetrics dm = activity.getResources().getDisplayMetrics();
+        KeyboardLayout layout = layoutCache.get(languageKey, orientation, dm.widthPixels, dm.heightPixels, dm.densityDpi);
+        KLSoftKeyboard keyboard = keyboards[languageKey.ordinal()][orientation];
+        // a cached keyboard is reused only while the screen it was built for is unchanged
+        if (keyboard == null || keyboard.getLayout() != layout) {
+            keyboard = new KLSoftKeyboard(activity, R.xml.keyboard, layout,
+                    hangulAutomaton.getLayout(), 10, 0);
+            keyboards[languageKey.ordinal()][orientation] = keyboard;
+        } else {
+            keyboard.reshuffle(hangulAutomaton.getLayout(), null);
+            keyboard.setShifted(false);
+        }
         keyboardView.setKeyboard(keyboard);
     }
 
+    /**
+     * Starts computing the layouts for the current screen, and for the rotated one so that the
+     * first rotation finds them ready.
+     */
+    private void prepareLayouts(Context context) {
+        DisplayMetrics dm = context.getResources().getDisplayMetrics();
+        int orientation = getOrientationIndex(context);
+        layoutCache.prepare(orientation, dm.widthPixels, dm.heightPixels, dm.densityDpi);
+        layoutCache.prepare(1 - orientation, dm.heightPixels, dm.widthPixels, dm.densityDpi);
+    }
+
+    private static int getOrientationIndex(Context context) {
+        return context.getResources().getConfiguration().orientation
+                == Configuration.ORIENTATION_LANDSCAPE ? 1 : 0;
+    }
+
+    /**
+     * Deletes count times as one edit. Korean text is deleted jamo by jamo as a single delete
+     * does, other text in one deleteSurroundingText.
+     */
+    private void deleteText(InputConnection ic, int count) {
+        ic.beginBatchEdit();
+        while (count > 0 && (isKoreaKeyBoard || hangulAutomaton.isComposing())) {
+            deleteText(ic);
+            count--;
+        }
+        if (count > 0)
+            ic.deleteSurroundingText(count, 0);
+        ic.endBatchEdit();
+        updateSuggestions(ic);
+    }
+
     private void deleteText(InputConnection ic) {
-        if (isKoreaKeyBoard) {
+        if (isKoreaKeyBoard && !hangulAutomaton.isComposing()) {
+            // continue from the syllable before the cursor, eg. 닭 -> 달
             CharSequence sequence = ic.getTextBeforeCursor(1, 0);
-            if (!"".contentEquals(sequence)) {
-                sequence = EngKorTypingConvertor.convertKor2Eng(sequence.toString());
-                sequence = sequence.subSequence(0, sequence.length() - 1);
-                sequence = EngKorTypingConvertor.convertEng2Kor(sequence.toString());
-                ic.deleteSurroundingText(1, 0);
-                ic.commitText(sequence, 1);
+            if (sequence != null && sequence.length() > 0 && hangulAutomaton.restore(sequence.charAt(0))) {
+                int cursor = editText.getSelectionStart();
+                ic.setComposingRegion(cursor - 1, cursor);
             }
+        }
+        if (hangulAutomaton.backspace()) {
+            composeHangul(ic);
         } else {
             ic.deleteSurroundingText(1, 0);
         }
     }
 
+    /**
+     * Switches the Korean keyboard layout, eg. HangulLayout.SEBEOLSIK_390.
+     * The syllable being composed is left as typed.
+     */
+    public void setHangulLayout(HangulLayout hangulLayout) {
+        if (editText != null)
+            finishHangul(new CustomInputConnection(editText));
+        hangulAutomaton.setLayout(hangulLayout);
+        if (isKoreaKeyBoard && !isSymbol) {
+            languageKey = KeyboardLayout.LanguageKey.KOREA;
+            setKeyboard(activity, languageKey);
+        }
+    }
+
     public boolean isCustomKeyboardVisible() {
         return keyboardView.getVisibility() == View.VISIBLE;
     }
@@ -232,7 +621,10 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
     private void showCustomKeyboard(View v) {
         keyboardView.setVisibility(View.VISIBLE);
         keyboardView.setEnabled(true);
+        if (editText != null)
+            finishHangul(new CustomInputConnection(editText));
         this.editText = (EditText) v;
+        isReshuffleOnKey = editText != null && isPassword(editText.getInputType());
         if (v != null)
             ((InputMethodManager) activity.getSystemService(Activity.INPUT_METHOD_SERVICE))
                     .hideSoftInputFromWindow(v.getWindowToken(), 0);
@@ -240,6 +632,14 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
     }
 
     public void hideCustomKeyboard() {
+        keyRepeater.cancel();
+        handler.removeCallbacks(hanjaLongPress);
+        handler.removeCallbacks(hangulLayoutLongPress);
+        dismissHanjaCandidates();
+        if (editText != null)
+            finishHangul(new CustomInputConnection(editText));
+        if (suggestionStrip != null)
+            suggestionStrip.setVisibility(View.GONE);
         keyboardView.setVisibility(View.GONE);
         keyboardView.setEnabled(false);
     }
@@ -255,6 +655,7 @@ public class KLSoftKeyboardService implements KeyboardView.OnKeyboardActionListe
         editText.setOnClickListener(this::showCustomKeyboard);
         editText.setOnTouchListener((v, event) -> {
             EditText edittext1 = (EditText) v;
+            finishHangul(new CustomInputConnection(edittext1)); // Cursor may move away from the syllable
             int inType = edittext1.getInputType();          // Backup the input type
             edittext1.setInputType(InputType.TYPE_NULL);    // Disable standard keyboard
             edittext1.onTouchEvent(event);                  // Call native handler
@@ -0,0 +1,358 @@
+package org.klsoft.logintest.keyboard;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.inputmethodservice.Keyboard;
+import android.util.AttributeSet;
+import android.util.LongSparseArray;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.PopupWindow;
+import android.widget.TextView;
+
+import org.klsoft.logintest.R;
+
+import java.util.List;
+
+/**
+ * Draws a KLSoftKeyboard and turns touches into key events, in place of the deprecated KeyboardView.
+ * Keys are drawn in one pass straight onto the view's canvas (no offscreen keyboard bitmap):
+ * key backgrounds and icons are blitted from bitmaps baked once per size, and label positions are
+ * kept by KeyboardRenderer, so a frame neither rasterizes drawables nor measures text.
+ * A press or release invalidates only the rectangle of the keys involved.
+ */
+public class KLSoftKeyboardView extends View {
+
+    /**
+     * Same callbacks, in the same order, as KeyboardView.OnKeyboardActionListener.
+     */
+    public interface OnKeyboardActionListener {
+
+        void onPress(int primaryCode);
+
+        void onRelease(int primaryCode);
+
+        void onKey(int primaryCode, int[] keyCodes);
+
+        void onText(CharSequence text);
+
+        void swipeLeft();
+
+        void swipeRight();
+
+        void swipeDown();
+
+        void swipeUp();
+    }
+
+    private static final int[] PRESSED_STATE = {android.R.attr.state_pressed};
+    private static final int[] NORMAL_STATE = {};
+
+    private KLSoftKeyboard keyboard;
+    private OnKeyboardActionListener listener;
+
+    private final KeyboardRenderer renderer = new KeyboardRenderer();
+    private final CanvasSurface surface = new CanvasSurface();
+    private final Drawable keyBackground;
+    private final Rect keyPadding = new Rect();
+    private final Paint largePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint smallPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    // Key backgrounds baked by size and state, see backgroundKey
+    private final LongSparseArray<Bitmap> backgrounds = new LongSparseArray<>();
+
+    private final int previewLayout;
+    private PopupWindow previewPopup;
+    private TextView previewText;
+    private final int[] windowLocation = new int[2];
+
+    private final Rect clip = new Rect();
+    private int currentKey = -1;
+    private int pressedCode = -1;
+
+    public KLSoftKeyboardView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public KLSoftKeyboardView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.KLSoftKeyboardView, defStyleAttr, 0);
+        Drawable background = a.getDrawable(R.styleable.KLSoftKeyboardView_android_keyBackground);
+        keyBackground = background != null ? background : context.getResources().getDrawable(R.drawable.key_background, null);
+        int textColor = a.getColor(R.styleable.KLSoftKeyboardView_android_keyTextColor, Color.WHITE);
+        float keyTextSize = a.getDimension(R.styleable.KLSoftKeyboardView_android_keyTextSize,
+                TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 22, getResources().getDisplayMetrics()));
+        float labelTextSize = a.getDimension(R.styleable.KLSoftKeyboardView_android_labelTextSize,
+                TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14, getResources().getDisplayMetrics()));
+        previewLayout = a.getResourceId(R.styleable.KLSoftKeyboardView_android_keyPreviewLayout, 0);
+        a.recycle();
+
+        keyBackground.getPadding(keyPadding);
+        largePaint.setColor(textColor);
+        largePaint.setTextSize(keyTextSize);
+        smallPaint.setColor(textColor);
+        smallPaint.setTextSize(labelTextSize);
+        smallPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        // baseline below the key center, as KeyboardView places it
+        renderer.setTextOffsets((largePaint.getTextSize() - largePaint.descent()) / 2,
+                (smallPaint.getTextSize() - smallPaint.descent()) / 2);
+    }
+
+    public void setOnKeyboardActionListener(OnKeyboardActionListener listener) {
+        this.listener = listener;
+    }
+
+    public void setKeyboard(KLSoftKeyboard keyboard) {
+        releaseKey();
+        this.keyboard = keyboard;
+        int keyCount = keyboard.getKeys().size();
+        renderer.setKeyCount(keyCount);
+        renderer.setShifted(keyboard.isShifted());
+        // bake the icons now rather than in the first frame
+        for (Keyboard.Key key : keyboard.getKeys()) {
+            if (key.icon != null && key.width > 0 && key.height > 0)
+                getIcon(key);
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    public KLSoftKeyboard getKeyboard() {
+        return keyboard;
+    }
+
+    public boolean setShifted(boolean shifted) {
+        if (keyboard != null && keyboard.setShifted(shifted)) {
+            renderer.setShifted(shifted);
+            invalidate();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isShifted() {
+        return keyboard != null && keyboard.isShifted();
+    }
+
+    /**
+     * Redraws one key, eg. after it was relabeled. Other keys are not drawn again.
+     */
+    public void invalidateKey(int keyIndex) {
+        if (keyboard == null || keyIndex < 0 || keyIndex >= renderer.getKeyCount())
+            return;
+        Keyboard.Key key = keyboard.getKeys().get(keyIndex);
+        int left = key.x + getPaddingLeft();
+        int top = key.y + getPaddingTop();
+        postInvalidateOnAnimation(left, top, left + key.width, top + key.height);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (keyboard == null) {
+            setMeasuredDimension(getPaddingLeft() + getPaddingRight(), getPaddingTop() + getPaddingBottom());
+            return;
+        }
+        int width = keyboard.getMinWidth() + getPaddingLeft() + getPaddingRight();
+        if (MeasureSpec.getSize(widthMeasureSpec) < width + 10)
+            width = MeasureSpec.getSize(widthMeasureSpec);
+        setMeasuredDimension(width, keyboard.getHeight() + getPaddingTop() + getPaddingBottom());
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (keyboard == null || !canvas.getClipBounds(clip))
+            return;
+        List<Keyboard.Key> keys = keyboard.getKeys();
+        for (int i = 0; i < renderer.getKeyCount(); i++) {
+            Keyboard.Key key = keys.get(i);
+            renderer.setKey(i, key.x, key.y, key.width, key.height,
+                    key.label == null ? null : key.label.toString(), key.icon != null);
+        }
+        int paddingLeft = getPaddingLeft();
+        int paddingTop = getPaddingTop();
+        canvas.save();
+        canvas.translate(paddingLeft, paddingTop);
+        surface.canvas = canvas;
+        surface.keys = keys;
+        renderer.draw(surface, clip.left - paddingLeft, clip.top - paddingTop,
+                clip.right - paddingLeft, clip.bottom - paddingTop);
+        surface.canvas = null;
+        surface.keys = null;
+        canvas.restore();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (keyboard == null)
+            return false;
+        int x = (int) event.getX() - getPaddingLeft();
+        int y = (int) event.getY() - getPaddingTop();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                pressKey(getKeyIndex(x, y));
+                if (currentKey != -1) {
+                    pressedCode = keyboard.getKeys().get(currentKey).codes[0];
+                    if (listener != null)
+                        listener.onPress(pressedCode);
+                }
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                int key = getKeyIndex(x, y);
+                if (key != currentKey)
+                    pressKey(key);
+                return true;
+            case MotionEvent.ACTION_UP:
+                int upKey = getKeyIndex(x, y);
+                releaseKey();
+                performClick();
+                if (listener != null) {
+                    if (upKey != -1) {
+                        Keyboard.Key sent = keyboard.getKeys().get(upKey);
+                        listener.onKey(sent.codes[0], sent.codes);
+                        listener.onRelease(sent.codes[0]);
+                    } else if (pressedCode != -1) {
+                        listener.onRelease(pressedCode);
+                    }
+                }
+                pressedCode = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                releaseKey();
+                if (listener != null && pressedCode != -1)
+                    listener.onRelease(pressedCode);
+                pressedCode = -1;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseKey();
+        backgrounds.clear();
+    }
+
+    private int getKeyIndex(int x, int y) {
+        int[] nearest = keyboard.getNearestKeys(x, y);
+        return nearest.length == 0 ? -1 : nearest[0];
+    }
+
+    private void pressKey(int key) {
+        invalidateKey(currentKey);
+        currentKey = key;
+        renderer.setPressedKey(key);
+        invalidateKey(key);
+        showPreview(key);
+    }
+
+    private void releaseKey() {
+        if (currentKey != -1) {
+            invalidateKey(currentKey);
+            currentKey = -1;
+            renderer.setPressedKey(-1);
+        }
+        if (previewPopup != null)
+            previewPopup.dismiss();
+    }
+
+    private void showPreview(int keyIndex) {
+        if (previewLayout == 0)
+            return;
+        Keyboard.Key key = keyIndex == -1 ? null : keyboard.getKeys().get(keyIndex);
+        if (key == null || key.label == null || key.icon != null) {
+            if (previewPopup != null)
+                previewPopup.dismiss();
+            return;
+        }
+        if (previewPopup == null) {
+            previewText = (TextView) LayoutInflater.from(getContext()).inflate(previewLayout, null);
+            previewPopup = new PopupWindow(previewText);
+            previewPopup.setTouchable(false);
+            previewPopup.setClippingEnabled(false);
+        }
+        previewText.setText(KeyboardRenderer.adjustCase(key.label.toString(), isShifted()));
+        getLocationInWindow(windowLocation);
+        int x = windowLocation[0] + getPaddingLeft() + key.x;
+        int y = windowLocation[1] + getPaddingTop() + key.y - key.height;
+        if (previewPopup.isShowing()) {
+            previewPopup.update(x, y, key.width, key.height);
+        } else {
+            previewPopup.setWidth(key.width);
+            previewPopup.setHeight(key.height);
+            previewPopup.showAtLocation(this, Gravity.NO_GRAVITY, x, y);
+        }
+    }
+
+    private static long backgroundKey(int width, int height, boolean isPressed) {
+        return ((long) width << 32) | ((long) height << 1) | (isPressed ? 1 : 0);
+    }
+
+    private Bitmap getBackground(int width, int height, boolean isPressed) {
+        long key = backgroundKey(width, height, isPressed);
+        Bitmap bitmap = backgrounds.get(key);
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            keyBackground.setState(isPressed ? PRESSED_STATE : NORMAL_STATE);
+            keyBackground.setBounds(0, 0, width, height);
+            keyBackground.draw(new Canvas(bitmap));
+            backgrounds.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns the key's icon baked to fit the key, shared by every keyboard of the process.
+     */
+    private Bitmap getIcon(Keyboard.Key key) {
+        return KeyIconCache.getBitmap(getResources(), key.icon,
+                key.width - keyPadding.left - keyPadding.right, key.height - keyPadding.top - keyPadding.bottom);
+    }
+
+    private final class CanvasSurface implements KeyboardRenderer.Surface {
+
+        Canvas canvas;
+        List<Keyboard.Key> keys;
+
+        @Override
+        public float measureText(String label, boolean isSmall) {
+            return (isSmall ? smallPaint : largePaint).measureText(label);
+        }
+
+        @Override
+        public void drawBackground(int x, int y, int width, int height, boolean isPressed) {
+            canvas.drawBitmap(getBackground(width, height, isPressed), x, y, bitmapPaint);
+        }
+
+        @Override
+        public void drawIcon(int key, int x, int y, int width, int height) {
+            Bitmap icon = getIcon(keys.get(key));
+            int left = x + keyPadding.left + (width - keyPadding.left - keyPadding.right - icon.getWidth()) / 2;
+            int top = y + keyPadding.top + (height - keyPadding.top - keyPadding.bottom - icon.getHeight()) / 2;
+            canvas.drawBitmap(icon, left, top, bitmapPaint);
+        }
+
+        @Override
+        public void drawLabel(String label, boolean isSmall, float x, float y) {
+            canvas.drawText(label, x, y, isSmall ? smallPaint : largePaint);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.klsoft.logintest.keyboard;
+
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.LongSparseArray;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+
+/**
+ * Special key icons shared by every keyboard of the process.
+ * An icon resource is loaded once per density, as one Drawable made from its ConstantState, and
+ * baked into a bitmap once per key size. Building or switching keyboards then neither decodes nor
+ * scales icons. Everything is dropped when the density or UI mode changes.
+ * <p>
+ * Used from the UI thread only.
+ */
+final class KeyIconCache {
+
+    // configuration changes that can resolve a resource to another drawable
+    private static final int DRAWABLE_CONFIG_CHANGES = ActivityInfo.CONFIG_DENSITY | ActivityInfo.CONFIG_UI_MODE;
+
+    private static final class Entry {
+        final Drawable drawable;
+        // baked bitmaps by maximum size, (width << 32 | height)
+        final LongSparseArray<Bitmap> bitmaps = new LongSparseArray<>();
+
+        Entry(Drawable drawable) {
+            this.drawable = drawable;
+        }
+    }
+
+    private static final SparseArray<Entry> BY_RESOURCE = new SparseArray<>();
+    private static final HashMap<Drawable, Entry> BY_DRAWABLE = new HashMap<>();
+    private static Configuration configuration;
+
+    private KeyIconCache() {
+    }
+
+    /**
+     * Returns the shared icon of the resource. Keys may hold it, but must not change its state.
+     */
+    static Drawable getDrawable(Resources resources, int resId) {
+        evictIfChanged(resources);
+        Entry entry = BY_RESOURCE.get(resId);
+        if (entry == null) {
+            Drawable drawable = resources.getDrawable(resId, null);
+            Drawable.ConstantState state = drawable.getConstantState();
+            if (state != null)
+                drawable = state.newDrawable(resources);
+            entry = new Entry(drawable);
+            BY_RESOURCE.put(resId, entry);
+            BY_DRAWABLE.put(drawable, entry);
+        }
+        return entry.drawable;
+    }
+
+    /**
+     * Returns the icon baked at its intrinsic size, scaled down to fit maxWidth x maxHeight.
+     * Icons not obtained from getDrawable are cached as well, by instance.
+     */
+    static Bitmap getBitmap(Resources resources, Drawable icon, int maxWidth, int maxHeight) {
+        evictIfChanged(resources);
+        Entry entry = BY_DRAWABLE.get(icon);
+        if (entry == null) {
+            entry = new Entry(icon);
+            BY_DRAWABLE.put(icon, entry);
+        }
+        long size = ((long) maxWidth << 32) | (maxHeight & 0xFFFFFFFFL);
+        Bitmap bitmap = entry.bitmaps.get(size);
+        if (bitmap == null) {
+            bitmap = bake(icon, maxWidth, maxHeight);
+            entry.bitmaps.put(size, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap bake(Drawable icon, int maxWidth, int maxHeight) {
+        int width = icon.getIntrinsicWidth() > 0 ? icon.getIntrinsicWidth() : maxWidth;
+        int height = icon.getIntrinsicHeight() > 0 ? icon.getIntrinsicHeight() : maxHeight;
+        float scale = Math.min(1f, Math.min((float) maxWidth / width, (float) maxHeight / height));
+        width = Math.max(1, Math.round(width * scale));
+        height = Math.max(1, Math.round(height * scale));
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        icon.setBounds(0, 0, width, height);
+        icon.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static void evictIfChanged(Resources resources) {
+        Configuration current = resources.getConfiguration();
+        if (configuration == null || (configuration.diff(current) & DRAWABLE_CONFIG_CHANGES) != 0) {
+            clear();
+            configuration = new Configuration(current);
+        }
+    }
+
+    private static void clear() {
+        BY_RESOURCE.clear();
+        BY_DRAWABLE.clear();
+    }
+}
@@ -0,0 +1,102 @@
+package org.klsoft.logintest.keyboard;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeats a held key on the main thread, in step with the display frames.
+ * After the initial delay the key repeats every interval, and the interval shrinks by the
+ * acceleration factor after each repeat down to the minimum interval. All repeats due by a frame
+ * are delivered together in one onRepeat call, so a fast repeat costs one edit per frame.
+ * <p>
+ * Must be created and used on the main thread.
+ */
+final class KeyRepeater implements Choreographer.FrameCallback {
+
+    interface Listener {
+
+        /**
+         * @param count number of repeats due since the last call, at least 1
+         */
+        void onRepeat(int primaryCode, int count);
+    }
+
+    // repeats delivered at most per frame, eg. after the main thread stalled
+    private static final int MAX_BATCH = 32;
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Listener listener;
+
+    private long initialDelayNanos;
+    private long startIntervalNanos;
+    private long minIntervalNanos;
+    private float acceleration;
+
+    private int primaryCode;
+    private boolean isRepeating;
+    private long nextRepeatNanos;
+    private long intervalNanos;
+
+    KeyRepeater(Listener listener, long initialDelayMillis, long startIntervalMillis,
+                long minIntervalMillis, float acceleration) {
+        this.listener = listener;
+        setTiming(initialDelayMillis, startIntervalMillis, minIntervalMillis, acceleration);
+    }
+
+    /**
+     * @param acceleration factor applied to the interval after each repeat, 1 for a constant rate
+     */
+    void setTiming(long initialDelayMillis, long startIntervalMillis, long minIntervalMillis, float acceleration) {
+        if (initialDelayMillis < 0 || minIntervalMillis <= 0 || startIntervalMillis < minIntervalMillis
+                || acceleration <= 0 || acceleration > 1) {
+            throw new IllegalArgumentException("delay " + initialDelayMillis + ", interval " + startIntervalMillis
+                    + ".." + minIntervalMillis + ", acceleration " + acceleration);
+        }
+        initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+        startIntervalNanos = TimeUnit.MILLISECONDS.toNanos(startIntervalMillis);
+        minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+        this.acceleration = acceleration;
+    }
+
+    /**
+     * Starts repeating the key after the initial delay, replacing any key being repeated.
+     */
+    void start(int primaryCode) {
+        cancel();
+        this.primaryCode = primaryCode;
+        isRepeating = true;
+        nextRepeatNanos = System.nanoTime() + initialDelayNanos;
+        intervalNanos = startIntervalNanos;
+        choreographer.postFrameCallbackDelayed(this, TimeUnit.NANOSECONDS.toMillis(initialDelayNanos));
+    }
+
+    void cancel() {
+        if (isRepeating) {
+            choreographer.removeFrameCallback(this);
+            isRepeating = false;
+        }
+    }
+
+    boolean isRepeating() {
+        return isRepeating;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isRepeating)
+            return;
+        int count = 0;
+        while (nextRepeatNanos <= frameTimeNanos && count < MAX_BATCH) {
+            count++;
+            nextRepeatNanos += intervalNanos;
+            intervalNanos = Math.max(minIntervalNanos, (long) (intervalNanos * acceleration));
+        }
+        if (nextRepeatNanos <= frameTimeNanos)
+            nextRepeatNanos = frameTimeNanos + intervalNanos;
+        // sleep until the frame of the next repeat
+        choreographer.postFrameCallbackDelayed(this, TimeUnit.NANOSECONDS.toMillis(nextRepeatNanos - frameTimeNanos));
+        if (count > 0)
+            listener.onRepeat(primaryCode, count);
+    }
+}
@@ -0,0 +1,294 @@
+package org.klsoft.logintest.keyboard;
+
+/**
+ * Immutable description of one keyboard for one screen size: the unshuffled key order, the special
+ * key positions, the groups of keys shuffled together and the x/width of every key.
+ * It uses plain Java types only, the key codes included, and never changes after construction,
+ * so layouts can be built on a worker thread (see KeyboardLayoutCache) and handed to the UI thread,
+ * which only creates the Keyboard.
+ */
+final class KeyboardLayout {
+
+    static final char SHIFT_KEY_CODE = '\1';
+    static final char SPACE_KEY_CODE = '\2';
+    static final char SYMBOL_KEY_CODE = '\3';
+    static final char ENTER_KEY_CODE = '\4';
+    static final char DELETE_KEY_CODE = '\5';
+    static final char LANGUAGE_KEY_CODE = '\6';
+
+    enum LanguageKey {
+        ENGLISH,
+        KOREA,
+        KOREA_SHIFT,
+        SYMBOL
+    }
+
+    static final int NUM_KEY_ROWS = 5;
+
+    // Letter slots of the Korean keyboards, filled in from the current HangulLayout
+    static final char LETTER_KEY_CODE = '\0';
+
+    // Placeholder that ends a short row, it takes no space in the last two rows
+    private static final char EMPTY_KEY_CODE = ' ';
+
+    // The digit row is shuffled on its own, the other non-special keys among themselves
+    private static final int DIGIT_KEY_COUNT = 10;
+
+    private static final char[] ENGLISH_KEYS =
+            {
+                    '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
+                    'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j',
+                    'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', ' ',
+                    SHIFT_KEY_CODE, 't', 'u', 'v', 'w', 'x', 'y', 'z', DELETE_KEY_CODE, ' ',
+                    SYMBOL_KEY_CODE, ',', LANGUAGE_KEY_CODE, SPACE_KEY_CODE, '.', ' ', ENTER_KEY_CODE
+            };
+
+    // Letter keys are filled in from the current HangulLayout, in its QWERTY order:
+    // the digit row, Q-P, A-L, Z-M, then the ',' and '.' slots
+    private static final char[] KOREA_KEYS_TEMPLATE =
+            {
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE,
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE,
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE,
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE,
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE,
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, ' ',
+                    SHIFT_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE,
+                    LETTER_KEY_CODE, LETTER_KEY_CODE, LETTER_KEY_CODE, DELETE_KEY_CODE, ' ',
+                    SYMBOL_KEY_CODE, LETTER_KEY_CODE, LANGUAGE_KEY_CODE, SPACE_KEY_CODE, LETTER_KEY_CODE, ' ', ENTER_KEY_CODE
+            };
+
+    private static final char[] SYMBOL_KEYS =
+            {
+                    '1', '2', '3', '4', '5', '6', '7', '8', '9', '0',
+                    '+', '×', '÷', '=', '/', '_', '€', '£', '¥', '₩',
+                    '!', '@', '#', '$', '%', '^', '&', '(', ')', ' ',
+                    SHIFT_KEY_CODE, '-', '\'', '"', ':', ';', '*', '?', ' ', DELETE_KEY_CODE,
+                    SYMBOL_KEY_CODE, ',', LANGUAGE_KEY_CODE, SPACE_KEY_CODE, '.', ' ', ENTER_KEY_CODE
+            };
+
+    static final int MAX_KEY_COUNT = Math.max(ENGLISH_KEYS.length, Math.max(KOREA_KEYS_TEMPLATE.length, SYMBOL_KEYS.length));
+
+    private final LanguageKey languageKey;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final char[] keys;
+
+    private final int shiftKeyIndex;
+    private final int deleteKeyIndex;
+    private final int symbolKeyIndex;
+    private final int languageKeyIndex;
+    private final int spaceKeyIndex;
+    private final int enterKeyIndex;
+
+    private final int[][] shuffleGroups;
+
+    private final int defaultKeyWidth;
+    private final int defaultKeyHeight;
+    private final int[] keyX;
+    private final int[] keyWidth;
+
+    KeyboardLayout(LanguageKey languageKey, int screenWidth, int screenHeight) {
+        this.languageKey = languageKey;
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.keys = getBaseKeys(languageKey);
+        shiftKeyIndex = indexOf(keys, SHIFT_KEY_CODE);
+        deleteKeyIndex = indexOf(keys, DELETE_KEY_CODE);
+        symbolKeyIndex = indexOf(keys, SYMBOL_KEY_CODE);
+        languageKeyIndex = indexOf(keys, LANGUAGE_KEY_CODE);
+        spaceKeyIndex = indexOf(keys, SPACE_KEY_CODE);
+        enterKeyIndex = indexOf(keys, ENTER_KEY_CODE);
+        shuffleGroups = new int[][]{
+                getShuffledPositions(keys, 0, DIGIT_KEY_COUNT),
+                getShuffledPositions(keys, DIGIT_KEY_COUNT, keys.length)
+        };
+
+        int defaultHeight = (screenHeight / 3) / NUM_KEY_ROWS;
+        int defaultWidth = (screenWidth / 10);
+        //fill width/height gap in case last digit of screenWidth/screenHeight is bigger than 0. eg. 768
+        if (screenWidth % 10 != 0)
+            defaultWidth += 1;
+        if (screenHeight % 10 != 0)
+            defaultHeight += 1;
+        defaultKeyWidth = defaultWidth;
+        defaultKeyHeight = defaultHeight;
+        keyX = new int[keys.length];
+        keyWidth = new int[keys.length];
+        computeKeyWidths();
+    }
+
+    private void computeKeyWidths() {
+        int rowIndex = 0;
+        int width = defaultKeyWidth;
+        int key_x = 0;
+        int totalWidth = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == shiftKeyIndex || i == deleteKeyIndex || i == languageKeyIndex || i == symbolKeyIndex) {
+                width += width / 2;
+                keyWidth[i] = width;
+            } else if (i == enterKeyIndex) {
+                width = width * 2;
+                keyWidth[i] = width;
+            } else if (i == spaceKeyIndex) {
+                int otherKeysWidth = (2 * width /* "." & ";" key*/ + (
+                        width + width / 2) * 2 /*special key width*/
+                        + width * 2 /*enter key*/);
+                width = screenWidth - otherKeysWidth;
+                keyWidth[i] = width;
+            } else if (keys[i] == EMPTY_KEY_CODE) {
+                if (rowIndex >= 3)
+                    width = 0;
+                keyWidth[i] = 0;
+            } else {
+                keyWidth[i] = width;
+            }
+            totalWidth += width;
+            keyX[i] = key_x;
+            key_x += width;
+            if (totalWidth >= screenWidth) {
+                if (rowIndex == 1)
+                    key_x = defaultKeyWidth / 2;
+                else
+                    key_x = 0;
+                totalWidth = 0;
+                rowIndex++;
+            }
+            width = defaultKeyWidth;
+        }
+    }
+
+    private static char[] getBaseKeys(LanguageKey languageKey) {
+        switch (languageKey) {
+            case KOREA:
+            case KOREA_SHIFT:
+                return KOREA_KEYS_TEMPLATE;
+            case SYMBOL:
+                return SYMBOL_KEYS;
+            default:
+                return ENGLISH_KEYS;
+        }
+    }
+
+    private static int indexOf(char[] keys, char code) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == code)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int[] getShuffledPositions(char[] keys, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (isShuffledKey(keys[i]))
+                count++;
+        }
+        int[] positions = new int[count];
+        for (int i = from, n = 0; i < to; i++) {
+            if (isShuffledKey(keys[i]))
+                positions[n++] = i;
+        }
+        return positions;
+    }
+
+    private static boolean isShuffledKey(char code) {
+        switch (code) {
+            case SHIFT_KEY_CODE:
+            case SPACE_KEY_CODE:
+            case SYMBOL_KEY_CODE:
+            case ENTER_KEY_CODE:
+            case DELETE_KEY_CODE:
+            case LANGUAGE_KEY_CODE:
+            case EMPTY_KEY_CODE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    LanguageKey getLanguageKey() {
+        return languageKey;
+    }
+
+    boolean isKorean() {
+        return languageKey == LanguageKey.KOREA || languageKey == LanguageKey.KOREA_SHIFT;
+    }
+
+    /**
+     * @return the unshuffled keys, Korean letter slots as LETTER_KEY_CODE
+     */
+    String getKeyString() {
+        return new String(keys);
+    }
+
+    int getKeyCount() {
+        return keys.length;
+    }
+
+    char getKey(int index) {
+        return keys[index];
+    }
+
+    int getShiftKeyIndex() {
+        return shiftKeyIndex;
+    }
+
+    int getDeleteKeyIndex() {
+        return deleteKeyIndex;
+    }
+
+    int getSymbolKeyIndex() {
+        return symbolKeyIndex;
+    }
+
+    int getLanguageKeyIndex() {
+        return languageKeyIndex;
+    }
+
+    int getSpaceKeyIndex() {
+        return spaceKeyIndex;
+    }
+
+    int getEnterKeyIndex() {
+        return enterKeyIndex;
+    }
+
+    int getShuffleGroupCount() {
+        return shuffleGroups.length;
+    }
+
+    int getShuffleGroupSize(int group) {
+        return shuffleGroups[group].length;
+    }
+
+    /**
+     * @return the key index of the i-th key in the shuffle group
+     */
+    int getShuffledPosition(int group, int i) {
+        return shuffleGroups[group][i];
+    }
+
+    int getDefaultKeyWidth() {
+        return defaultKeyWidth;
+    }
+
+    int getDefaultKeyHeight() {
+        return defaultKeyHeight;
+    }
+
+    int getKeyX(int index) {
+        return keyX[index];
+    }
+
+    /**
+     * @return the key width, 0 for a placeholder that is not shown
+     */
+    int getKeyWidth(int index) {
+        return keyWidth[index];
+    }
+
+    boolean isHidden(int index) {
+        return keys[index] == EMPTY_KEY_CODE;
+    }
+}
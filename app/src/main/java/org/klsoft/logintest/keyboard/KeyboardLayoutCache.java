@@ -0,0 +1,77 @@
+package org.klsoft.logintest.keyboard;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * KeyboardLayouts by (LanguageKey, orientation, widthPixels, heightPixels, densityDpi).
+ * A layout is computed once per key, on the executor, and shared afterwards, so rotating back and
+ * forth or switching modes finds the geometry ready instead of laying the keys out again.
+ */
+final class KeyboardLayoutCache {
+
+    // Screen sizes seen by one process are few (two orientations, maybe split screen)
+    private static final int MAX_ENTRIES = 32;
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Long, Future<KeyboardLayout>> layouts = new ConcurrentHashMap<>();
+
+    KeyboardLayoutCache(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts computing the layouts of every LanguageKey for the screen, if not cached yet.
+     */
+    void prepare(int orientation, int widthPixels, int heightPixels, int densityDpi) {
+        for (KeyboardLayout.LanguageKey languageKey : KeyboardLayout.LanguageKey.values()) {
+            getFuture(languageKey, orientation, widthPixels, heightPixels, densityDpi);
+        }
+    }
+
+    /**
+     * Returns the cached layout, waiting for it if it is still being computed in the background.
+     * Computes it on the caller's thread if the background computation failed.
+     */
+    KeyboardLayout get(KeyboardLayout.LanguageKey languageKey, int orientation,
+                       int widthPixels, int heightPixels, int densityDpi) {
+        Future<KeyboardLayout> future = getFuture(languageKey, orientation, widthPixels, heightPixels, densityDpi);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            layouts.remove(key(languageKey, orientation, widthPixels, heightPixels, densityDpi), future);
+        }
+        return new KeyboardLayout(languageKey, widthPixels, heightPixels);
+    }
+
+    private Future<KeyboardLayout> getFuture(KeyboardLayout.LanguageKey languageKey, int orientation,
+                                             int widthPixels, int heightPixels, int densityDpi) {
+        long key = key(languageKey, orientation, widthPixels, heightPixels, densityDpi);
+        Future<KeyboardLayout> future = layouts.get(key);
+        if (future == null) {
+            if (layouts.size() >= MAX_ENTRIES)
+                layouts.clear();
+            future = layouts.computeIfAbsent(key, k ->
+                    executor.submit(() -> new KeyboardLayout(languageKey, widthPixels, heightPixels)));
+        }
+        return future;
+    }
+
+    /**
+     * Packs the cache key into a long : language 4 bits, orientation 4 bits, density 16 bits,
+     * width and height 20 bits each.
+     */
+    static long key(KeyboardLayout.LanguageKey languageKey, int orientation,
+                    int widthPixels, int heightPixels, int densityDpi) {
+        long language = languageKey.ordinal();
+        return (language << 60)
+                | ((long) (orientation & 0xF) << 56)
+                | ((long) (densityDpi & 0xFFFF) << 40)
+                | ((long) (widthPixels & 0xFFFFF) << 20)
+                | (heightPixels & 0xFFFFF);
+    }
+}
@@ -0,0 +1,160 @@
+package org.klsoft.logintest.keyboard;
+
+/**
+ * Draws the keys of a keyboard in one pass onto a Surface, skipping the keys outside the clip.
+ * Keeps the label position of every key, so a label is measured only when it or the key
+ * geometry changes, not on every frame. Android-free, so draw calls can be counted on the JVM.
+ * <p>
+ * Used from the UI thread only.
+ */
+final class KeyboardRenderer {
+
+    /**
+     * What the renderer draws on, eg. a Canvas with prebaked key bitmaps.
+     */
+    interface Surface {
+
+        /**
+         * @param isSmall multi-char labels are drawn smaller, eg. "space"
+         */
+        float measureText(String label, boolean isSmall);
+
+        void drawBackground(int x, int y, int width, int height, boolean isPressed);
+
+        void drawIcon(int key, int x, int y, int width, int height);
+
+        void drawLabel(String label, boolean isSmall, float x, float y);
+    }
+
+    private int keyCount;
+    private int[] keyX = new int[0];
+    private int[] keyY = new int[0];
+    private int[] keyWidth = new int[0];
+    private int[] keyHeight = new int[0];
+    private boolean[] hasIcon = new boolean[0];
+    // label as set, label as shown (upper-cased when shifted) and its cached position
+    private String[] labels = new String[0];
+    private String[] shownLabels = new String[0];
+    private float[] labelX = new float[0];
+    private float[] labelY = new float[0];
+    private boolean[] isLabelValid = new boolean[0];
+
+    private int pressedKey = -1;
+    private boolean isShifted;
+    // from the key center to the baseline of a label
+    private float largeTextOffset;
+    private float smallTextOffset;
+
+    void setKeyCount(int count) {
+        if (keyX.length < count) {
+            keyX = new int[count];
+            keyY = new int[count];
+            keyWidth = new int[count];
+            keyHeight = new int[count];
+            hasIcon = new boolean[count];
+            labels = new String[count];
+            shownLabels = new String[count];
+            labelX = new float[count];
+            labelY = new float[count];
+            isLabelValid = new boolean[count];
+        }
+        keyCount = count;
+        invalidateLabels();
+    }
+
+    int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Updates a key. The label is measured again only if the label or the geometry changed.
+     */
+    void setKey(int key, int x, int y, int width, int height, String label, boolean hasIcon) {
+        if (keyX[key] != x || keyY[key] != y || keyWidth[key] != width || keyHeight[key] != height
+                || labels[key] != label) {
+            keyX[key] = x;
+            keyY[key] = y;
+            keyWidth[key] = width;
+            keyHeight[key] = height;
+            labels[key] = label;
+            isLabelValid[key] = false;
+        }
+        this.hasIcon[key] = hasIcon;
+    }
+
+    void setTextOffsets(float largeTextOffset, float smallTextOffset) {
+        this.largeTextOffset = largeTextOffset;
+        this.smallTextOffset = smallTextOffset;
+        invalidateLabels();
+    }
+
+    void setShifted(boolean shifted) {
+        if (isShifted != shifted) {
+            isShifted = shifted;
+            invalidateLabels();
+        }
+    }
+
+    void setPressedKey(int key) {
+        pressedKey = key;
+    }
+
+    int getPressedKey() {
+        return pressedKey;
+    }
+
+    private void invalidateLabels() {
+        for (int i = 0; i < keyCount; i++) {
+            isLabelValid[i] = false;
+        }
+    }
+
+    /**
+     * Draws every key that intersects the clip rectangle [left, right) x [top, bottom).
+     *
+     * @return the number of keys drawn
+     */
+    int draw(Surface surface, int left, int top, int right, int bottom) {
+        int drawn = 0;
+        for (int i = 0; i < keyCount; i++) {
+            int x = keyX[i];
+            int y = keyY[i];
+            int width = keyWidth[i];
+            int height = keyHeight[i];
+            if (width <= 0 || height <= 0 || x >= right || x + width <= left || y >= bottom || y + height <= top)
+                continue;
+            surface.drawBackground(x, y, width, height, i == pressedKey);
+            if (hasIcon[i]) {
+                surface.drawIcon(i, x, y, width, height);
+            } else if (labels[i] != null) {
+                if (!isLabelValid[i])
+                    layoutLabel(surface, i);
+                surface.drawLabel(shownLabels[i], isSmall(shownLabels[i]), labelX[i], labelY[i]);
+            }
+            drawn++;
+        }
+        return drawn;
+    }
+
+    private void layoutLabel(Surface surface, int key) {
+        String label = adjustCase(labels[key], isShifted);
+        boolean isSmall = isSmall(label);
+        shownLabels[key] = label;
+        labelX[key] = keyX[key] + (keyWidth[key] - surface.measureText(label, isSmall)) / 2;
+        labelY[key] = keyY[key] + keyHeight[key] / 2f + (isSmall ? smallTextOffset : largeTextOffset);
+        isLabelValid[key] = true;
+    }
+
+    /**
+     * As KeyboardView does, short lower case labels are shown upper case while shifted.
+     */
+    static String adjustCase(String label, boolean isShifted) {
+        if (isShifted && label.length() > 0 && label.length() < 3 && Character.isLowerCase(label.charAt(0)))
+            return label.toUpperCase();
+        return label;
+    }
+
+    private static boolean isSmall(String label) {
+        return label.length() > 1;
+    }
+}
@@ -0,0 +1,101 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Desc : 쓰여지는 한글을, 한글조합되는 영문문자열로 변환하여 출력하는 Writer
+ * 한글->영문 변환은 문자 단위이므로, 변환결과를 버퍼에 모았다가 가득 차거나 flush/close 할 때 한번에 쓴다.
+ * ex) "한글" -> gksrmf
+ */
+final class Kor2EngWriter extends Writer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Writer out;
+
+    /**
+     * 아직 out 에 쓰지 않은 변환결과, block 으로 복사하여 한번에 쓴다.
+     */
+    private final StringBuilder buffer;
+    private final char[] block;
+
+    Kor2EngWriter(Writer out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param out        영문 타이핑 문자열 출력
+     * @param bufferSize 출력 버퍼 크기 (최소 {@link EngKorTypingConvertor#MAX_ENG_KEYS_PER_CHAR})
+     */
+    Kor2EngWriter(Writer out, int bufferSize) {
+        super(out);
+        if (bufferSize < EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR) {
+            throw new IllegalArgumentException("bufferSize < " + EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR);
+        }
+        this.out = out;
+        this.buffer = new StringBuilder(bufferSize);
+        this.block = new char[bufferSize];
+    }
+
+    private void convert(char korChar) throws IOException {
+        if (buffer.length() > block.length - EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR) {
+            flushBuffer();
+        }
+        EngKorTypingConvertor.convertKor2Eng(korChar, buffer);
+    }
+
+    private void flushBuffer() throws IOException {
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        buffer.getChars(0, length, block, 0);
+        buffer.setLength(0);
+        out.write(block, 0, length);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        synchronized (lock) {
+            convert((char) c);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            for (int i = off; i < off + len; i++) {
+                convert(cbuf[i]);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        synchronized (lock) {
+            for (int i = off; i < off + len; i++) {
+                convert(str.charAt(i));
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            try {
+                flushBuffer();
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.klsoft.logintest.keyboard;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Desc : 한/영 오입력 판별기
+ * 영문자판으로 입력된 단어를, 영어로 읽었을때와 한글로 조합했을때(convertEng2Kor)의 문자 3-gram 비용으로 비교한다.
+ * ex) gksrmf -> 한글 (한글), keyboard -> 영어
+ * <p>
+ * 모델은 memory-map 한 파일을 그대로 읽는다. (LanguageModelBuilder 로 생성)
+ * - header : magic, version, 영어 기호수, 한글 기호수 (int x 4)
+ * - 영어 3-gram 비용 : byte[27^3], 기호 0 : 단어경계, 1~26 : a~z
+ * - 한글 3-gram 비용 : byte[68^3], 기호 0 : 단어경계, 1~19 : 초성, 20~40 : 중성, 41~67 : 종성
+ * 비용은 -log2(확률) 을 COST_SCALE 배 한 값이다.
+ * <p>
+ * 판별시 메모리 할당이 없는 대신 내부 버퍼를 쓰므로, 한 thread 에서만 사용한다.
+ */
+final class LanguageDetector {
+
+    enum Language {
+        ENGLISH, KOREAN, UNKNOWN
+    }
+
+    static final String ASSET_NAME = "language_model.bin";
+
+    static final int MAGIC = 0x4B4C4E47; // KLNG
+    static final int VERSION = 1;
+
+    static final int ENGLISH_SYMBOLS = 27;
+    static final int KOREAN_SYMBOLS = 68;
+
+    static final int HEADER_SIZE = 16;
+    static final int ENGLISH_TABLE_SIZE = ENGLISH_SYMBOLS * ENGLISH_SYMBOLS * ENGLISH_SYMBOLS;
+    static final int KOREAN_TABLE_SIZE = KOREAN_SYMBOLS * KOREAN_SYMBOLS * KOREAN_SYMBOLS;
+    static final int MODEL_SIZE = HEADER_SIZE + ENGLISH_TABLE_SIZE + KOREAN_TABLE_SIZE;
+
+    /**
+     * 비용 단위 : 1/8 bit
+     **/
+    static final int COST_SCALE = 8;
+
+    /**
+     * 판별할 단어의 최대 길이 (키 수), 더 긴 단어는 판별하지 않는다.
+     **/
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    /**
+     * 판별에 필요한 최소 키 수
+     **/
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    /**
+     * 판별에 필요한 키당 최소 비용차이 (1 bit)
+     **/
+    private static final int MARGIN_PER_KEY = COST_SCALE;
+
+    private static final int JUNGSUNG_SYMBOL_START = 1 + EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR.length;
+    private static final int JONGSUNG_SYMBOL_BASE = JUNGSUNG_SYMBOL_START + EngKorTypingConvertor.SPLIT_JUNGSUNG_CHAR.length - 1;
+
+    private final ByteBuffer model;
+
+    private final char[] converted = new char[MAX_TOKEN_LENGTH];
+    private final CharBuffer convertedView = CharBuffer.wrap(converted);
+    private final IntBuffer jamo = IntBuffer.allocate(MAX_TOKEN_LENGTH * EngKorTypingConvertor.MAX_JAMO_PER_CHAR);
+
+    LanguageDetector(ByteBuffer model) {
+        if (model.remaining() < MODEL_SIZE
+                || model.getInt(model.position()) != MAGIC
+                || model.getInt(model.position() + 4) != VERSION
+                || model.getInt(model.position() + 8) != ENGLISH_SYMBOLS
+                || model.getInt(model.position() + 12) != KOREAN_SYMBOLS) {
+            throw new IllegalArgumentException("not a language model");
+        }
+        this.model = model.slice();
+    }
+
+    /**
+     * 영문자판으로 입력된 단어가 영어인지 한글인지 판별한다.
+     *
+     * @param keys  입력된 키 (영문자만)
+     * @param start 시작 index
+     * @param end   끝 index (exclusive)
+     * @return 판별할 수 없으면 UNKNOWN
+     */
+    Language detect(CharSequence keys, int start, int end) {
+        int length = end - start;
+        if (length < MIN_TOKEN_LENGTH || length > MAX_TOKEN_LENGTH) {
+            return Language.UNKNOWN;
+        }
+
+        int englishCost = 0;
+        int prev2 = 0, prev1 = 0;
+        for (int i = start; i < end; i++) {
+            int symbol = englishSymbol(keys.charAt(i));
+            if (symbol == 0) {
+                return Language.UNKNOWN;
+            }
+            englishCost += englishCost(prev2, prev1, symbol);
+            prev2 = prev1;
+            prev1 = symbol;
+        }
+        englishCost += englishCost(prev2, prev1, 0);
+
+        int n = EngKorTypingConvertor.convertEng2Kor(keys, start, end, converted, 0, false);
+        jamo.clear();
+        EngKorTypingConvertor.decomposeJamoIdx(convertedView, 0, n, jamo, null);
+        int koreanCost = 0;
+        prev2 = 0;
+        prev1 = 0;
+        for (int i = 0; i < jamo.position(); i++) {
+            int symbol = koreanSymbol(jamo.get(i));
+            koreanCost += koreanCost(prev2, prev1, symbol);
+            prev2 = prev1;
+            prev1 = symbol;
+        }
+        koreanCost += koreanCost(prev2, prev1, 0);
+
+        int margin = MARGIN_PER_KEY * (length + 1);
+        if (englishCost - koreanCost > margin) {
+            return Language.KOREAN;
+        } else if (koreanCost - englishCost > margin) {
+            return Language.ENGLISH;
+        }
+        return Language.UNKNOWN;
+    }
+
+    private int englishCost(int prev2, int prev1, int symbol) {
+        return model.get(HEADER_SIZE + (prev2 * ENGLISH_SYMBOLS + prev1) * ENGLISH_SYMBOLS + symbol) & 0xFF;
+    }
+
+    private int koreanCost(int prev2, int prev1, int symbol) {
+        return model.get(HEADER_SIZE + ENGLISH_TABLE_SIZE + (prev2 * KOREAN_SYMBOLS + prev1) * KOREAN_SYMBOLS + symbol) & 0xFF;
+    }
+
+    /**
+     * @return 영문자 -> 1~26 (대소문자 구분없음), 그 외 0
+     */
+    static int englishSymbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @param jamoIdx EngKorTypingConvertor.decomposeJamoIdx 의 결과값
+     * @return 초성 1~19, 중성 20~40, 종성 41~67, 그 외 0
+     */
+    static int koreanSymbol(int jamoIdx) {
+        int idx = jamoIdx & ~EngKorTypingConvertor.JAMO_TYPE_MASK;
+        switch (jamoIdx & EngKorTypingConvertor.JAMO_TYPE_MASK) {
+            case EngKorTypingConvertor.JAMO_CHOSUNG:
+                return 1 + idx;
+            case EngKorTypingConvertor.JAMO_JUNGSUNG:
+                return JUNGSUNG_SYMBOL_START + idx;
+            case EngKorTypingConvertor.JAMO_JONGSUNG:
+                return JONGSUNG_SYMBOL_BASE + idx;
+            default:
+                return 0;
+        }
+    }
+}
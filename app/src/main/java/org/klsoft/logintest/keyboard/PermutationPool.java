@@ -0,0 +1,102 @@
+package org.klsoft.logintest.keyboard;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+/**
+ * Uniformly random permutations of 0..size-1 (Fisher-Yates over SecureRandom), generated ahead of
+ * time on a background executor. The UI thread copies a ready permutation out of the pool without
+ * allocating or waiting for entropy; only when the pool has run dry does it shuffle on the spot.
+ */
+final class PermutationPool {
+
+    private final int size;
+    private final Random random;
+    private final Executor executor;
+    private final Runnable refill = this::refill;
+
+    // ring of ready permutations, guarded by this
+    private final int[][] ring;
+    private int head;
+    private int count;
+    private boolean isRefilling;
+
+    // used by the refill task only
+    private final int[] scratch;
+
+    /**
+     * @param random   source of the shuffles, eg. a SecureRandom (must be thread-safe)
+     * @param executor runs the refill task, eg. a single background thread
+     */
+    PermutationPool(int size, int capacity, Random random, Executor executor) {
+        if (size < 0 || capacity < 1) {
+            throw new IllegalArgumentException("size " + size + ", capacity " + capacity);
+        }
+        this.size = size;
+        this.random = random;
+        this.executor = executor;
+        this.ring = new int[capacity][size];
+        this.scratch = new int[size];
+        synchronized (this) {
+            scheduleRefill();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Writes a fresh random permutation of 0..size-1 into dst[0..size).
+     */
+    void next(int[] dst) {
+        synchronized (this) {
+            if (count > 0) {
+                System.arraycopy(ring[head], 0, dst, 0, size);
+                head = (head + 1) % ring.length;
+                count--;
+                scheduleRefill();
+                return;
+            }
+            scheduleRefill();
+        }
+        // the pool ran dry, shuffle on the caller's thread
+        shuffle(dst, size, random);
+    }
+
+    private void scheduleRefill() {
+        if (!isRefilling && count <= ring.length / 2) {
+            isRefilling = true;
+            executor.execute(refill);
+        }
+    }
+
+    private void refill() {
+        while (true) {
+            shuffle(scratch, size, random);
+            synchronized (this) {
+                System.arraycopy(scratch, 0, ring[(head + count) % ring.length], 0, size);
+                count++;
+                if (count == ring.length) {
+                    isRefilling = false;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills a[0..length) with a uniformly random permutation of 0..length-1 (Fisher-Yates).
+     */
+    static void shuffle(int[] a, int length, Random random) {
+        for (int i = 0; i < length; i++) {
+            a[i] = i;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.klsoft.logintest.keyboard;
+
+/**
+ * Desc : 세벌식 390 자판
+ * 초성, 중성, 종성 키가 따로 있고, 첫가끝 자모를 key code 로 보낸다.
+ * 받침은 종성키로만 입력되므로 다음 음절로 옮기지 않는다. ex) 닭 + ㅏ -> 닭ㅏ
+ * 겹모음/겹받침은 연달아 입력하고, 된소리 초성은 같은 초성키를 두번 누른다.
+ * ex) ㅗ + ㅏ -> ㅘ, ㄹ + ㄱ -> ㄺ, ㄱ + ㄱ -> ㄲ
+ * 숫자는 390 과 같이 shift 단의 오른쪽 (Y~P : 5~9, H~; : 0~4) 에 있다.
+ * shift 단의 나머지 기호 자리에는 390 의 기호 대신 자주 쓰는 문장부호를 놓았다.
+ */
+final class Sebeolsik390Layout implements HangulLayout {
+
+    private static final char[] LETTER_KEYS = {
+            // 1~0 : 종성 ㅎ ㅆ ㅂ, 중성 ㅛ ㅠ ㅑ ㅖ ㅢ ㅜ, 초성 ㅋ
+            'ᇂ', 'ᆻ', 'ᆸ', 'ᅭ', 'ᅲ', 'ᅣ', 'ᅨ', 'ᅴ', 'ᅮ', 'ᄏ',
+            // Q~P : 종성 ㅅ ㄹ, 중성 ㅕ ㅐ ㅓ, 초성 ㄹ ㄷ ㅁ ㅊ ㅍ
+            'ᆺ', 'ᆯ', 'ᅧ', 'ᅢ', 'ᅥ', 'ᄅ', 'ᄃ', 'ᄆ', 'ᄎ', 'ᄑ',
+            // A~L : 종성 ㅇ ㄴ, 중성 ㅣ ㅏ ㅡ, 초성 ㄴ ㅇ ㄱ ㅈ
+            'ᆼ', 'ᆫ', 'ᅵ', 'ᅡ', 'ᅳ', 'ᄂ', 'ᄋ', 'ᄀ', 'ᄌ',
+            // Z~M : 종성 ㅁ ㄱ, 중성 ㅔ ㅗ ㅜ, 초성 ㅅ ㅎ
+            'ᆷ', 'ᆨ', 'ᅦ', 'ᅩ', 'ᅮ', 'ᄉ', 'ᄒ',
+            // ; ' : 초성 ㅂ ㅌ
+            'ᄇ', 'ᄐ'
+    };
+
+    private static final char[] SHIFT_LETTER_KEYS = {
+            // 1~5 : 종성 ㄲ ㄺ ㅈ ㄿ ㄾ
+            'ᆩ', 'ᆰ', 'ᆽ', 'ᆵ', 'ᆴ', ',', '.', '?', '!', '~',
+            // Q~T : 종성 ㅍ ㅌ ㄵ ㅀ ㄽ
+            'ᇁ', 'ᇀ', 'ᆬ', 'ᆶ', 'ᆳ', '5', '6', '7', '8', '9',
+            // A~G : 종성 ㄷ ㄶ ㄼ ㄻ, 중성 ㅒ
+            'ᆮ', 'ᆭ', 'ᆲ', 'ᆱ', 'ᅤ', '0', '1', '2', '3',
+            // Z~V : 종성 ㅊ ㅄ ㅋ ㄳ
+            'ᆾ', 'ᆹ', 'ᆿ', 'ᆪ', '-', '\'', '"',
+            '4', '·'
+    };
+
+    @Override
+    public char getLetterKey(boolean shifted, int index) {
+        return shifted ? SHIFT_LETTER_KEYS[index] : LETTER_KEYS[index];
+    }
+
+    @Override
+    public boolean movesJongsung() {
+        return false;
+    }
+
+    @Override
+    public boolean doublesChosung() {
+        return true;
+    }
+}
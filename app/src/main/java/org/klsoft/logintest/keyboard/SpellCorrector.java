@@ -0,0 +1,272 @@
+package org.klsoft.logintest.keyboard;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Desc : 자모 단위 오타 교정기 (SymSpell, symmetric delete)
+ * 단어를 자모(SPLIT_CHOSUNG_CHAR/SPLIT_JUNGSUNG_CHAR/SPLIT_JONGSUNG_CHAR)로 분해하고,
+ * 사전 단어에서 자모를 maxDistance 개까지 지운 문자열의 hash 를 미리 색인해 둔다.
+ * 조회시에는 입력 단어의 삭제 문자열 hash 로 후보를 모은 뒤, 후보만 편집거리(OSA)로 확인한다.
+ * ex) 한귿 -> 한글 (ㄷ -> ㄹ, 거리 1)
+ * <p>
+ * 색인은 memory-map 한 파일을 그대로 읽는다. (SpellIndexBuilder 로 생성)
+ * - header : int x 8 (magic, version, maxDistance, maxJamo, 단어수, bucket 수, posting byte 수, 단어 char 수)
+ * - bucket : int[bucket 수 + 1], bucket 별 posting 시작 위치
+ * - posting : byte[], bucket 별로 정렬된 단어 id 의 차이값 (varint)
+ * - 빈도 : int[단어수]
+ * - 단어 : int[단어수 + 1] 시작 위치, char[] 단어
+ * <p>
+ * 내부 버퍼를 쓰므로, 한 thread 에서만 사용한다.
+ */
+final class SpellCorrector {
+
+    static final String ASSET_NAME = "spell_index.bin";
+
+    static final int MAGIC = 0x4B4C5353; // KLSS
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * 한 번의 조회에서 확인할 최대 후보 수
+     **/
+    private static final int MAX_CANDIDATES = 4096;
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final int maxDistance;
+    private final int maxJamo;
+    private final int bucketMask;
+    private final IntBuffer buckets;
+    private final ByteBuffer postings;
+    private final IntBuffer frequencies;
+    private final IntBuffer wordOffsets;
+    private final CharBuffer words;
+
+    private final char[] query;
+    private final char[] candidate;
+    private final char[] scratch;
+    private final int[] hashes;
+    private final int[] candidates = new int[MAX_CANDIDATES];
+    private final int[][] rows;
+    private int[] foundIds = new int[0];
+    private int[] foundDistances = new int[0];
+
+    SpellCorrector(ByteBuffer index) {
+        ByteBuffer header = index.duplicate();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("not a spell index");
+        }
+        maxDistance = header.getInt();
+        maxJamo = header.getInt();
+        int wordCount = header.getInt();
+        int bucketCount = header.getInt();
+        int postingSize = header.getInt();
+        int wordChars = header.getInt();
+        if (Integer.bitCount(bucketCount) != 1 || maxDistance < 0 || maxJamo <= maxDistance) {
+            throw new IllegalArgumentException("invalid spell index");
+        }
+        bucketMask = bucketCount - 1;
+
+        ByteBuffer body = header.slice();
+        buckets = section(body, (bucketCount + 1) * 4).asIntBuffer();
+        postings = section(body, postingSize);
+        frequencies = section(body, wordCount * 4).asIntBuffer();
+        wordOffsets = section(body, (wordCount + 1) * 4).asIntBuffer();
+        words = section(body, wordChars * 2).asCharBuffer();
+
+        query = new char[maxJamo];
+        candidate = new char[maxJamo];
+        scratch = new char[maxJamo * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        hashes = new int[deleteCount(maxJamo, maxDistance)];
+        rows = new int[3][maxJamo + 1];
+    }
+
+    private static ByteBuffer section(ByteBuffer body, int length) {
+        if (body.remaining() < length) {
+            throw new IllegalArgumentException("truncated spell index");
+        }
+        ByteBuffer section = body.slice();
+        section.limit(length);
+        body.position(body.position() + length);
+        return section;
+    }
+
+    /**
+     * 단어와 편집거리 maxDistance 이내인 사전 단어를, 거리가 가깝고 빈도가 높은 순서로 찾는다.
+     * 사전에 있는 단어면 그 단어가 첫번째(거리 0) 결과이다.
+     *
+     * @param text  입력된 문자열
+     * @param start 단어 시작 index
+     * @param end   단어 끝 index (exclusive)
+     * @param out   결과를 담을 배열, 최대 out.length 개를 찾는다.
+     * @return 찾은 단어 수
+     */
+    int correct(CharSequence text, int start, int end, String[] out) {
+        if (start >= end || end - start > maxJamo) {
+            return 0;
+        }
+        int length = EngKorTypingConvertor.decomposeJamo(text, start, end, scratch, 0, null);
+        if (length > maxJamo) {
+            return 0;
+        }
+        System.arraycopy(scratch, 0, query, 0, length);
+
+        // 1. 삭제 문자열의 bucket 에서 후보를 모은다.
+        int hashCount = deleteHashes(query, length, maxDistance, hashes, scratch);
+        int candidateCount = 0;
+        for (int h = 0; h < hashCount && candidateCount < MAX_CANDIDATES; h++) {
+            int bucket = hashes[h] & bucketMask;
+            int pos = buckets.get(bucket);
+            int limit = buckets.get(bucket + 1);
+            int id = 0;
+            while (pos < limit && candidateCount < MAX_CANDIDATES) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = postings.get(pos++);
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                candidates[candidateCount++] = id;
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+
+        // 2. 후보의 편집거리를 확인하고, (거리, 빈도) 순서로 상위 out.length 개를 남긴다.
+        if (foundIds.length < out.length) {
+            foundIds = new int[out.length];
+            foundDistances = new int[out.length];
+        }
+        int found = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int id = candidates[i];
+            if (i > 0 && id == candidates[i - 1]) {
+                continue;
+            }
+            int wordStart = wordOffsets.get(id);
+            int wordEnd = wordOffsets.get(id + 1);
+            if (wordEnd - wordStart > maxJamo) {
+                continue;
+            }
+            int n = EngKorTypingConvertor.decomposeJamo(words, wordStart, wordEnd, scratch, 0, null);
+            if (n > maxJamo || Math.abs(n - length) > maxDistance) {
+                continue;
+            }
+            System.arraycopy(scratch, 0, candidate, 0, n);
+            int distance = distance(query, length, candidate, n, maxDistance);
+            if (distance > maxDistance) {
+                continue;
+            }
+            int pos = found < out.length ? found++ : out.length;
+            while (pos > 0 && isBetter(distance, id, foundDistances[pos - 1], foundIds[pos - 1])) {
+                if (pos < out.length) {
+                    foundDistances[pos] = foundDistances[pos - 1];
+                    foundIds[pos] = foundIds[pos - 1];
+                }
+                pos--;
+            }
+            if (pos < out.length) {
+                foundDistances[pos] = distance;
+                foundIds[pos] = id;
+            }
+        }
+        for (int i = 0; i < found; i++) {
+            out[i] = words.subSequence(wordOffsets.get(foundIds[i]), wordOffsets.get(foundIds[i] + 1)).toString();
+        }
+        return found;
+    }
+
+    private boolean isBetter(int distance, int id, int otherDistance, int otherId) {
+        return distance < otherDistance
+                || (distance == otherDistance && frequencies.get(id) > frequencies.get(otherId));
+    }
+
+    /**
+     * 제한된 Damerau-Levenshtein(OSA) 거리, maxDistance 를 넘으면 maxDistance + 1
+     */
+    private int distance(char[] a, int aLength, char[] b, int bLength, int maxDistance) {
+        int[] prev2 = rows[0];
+        int[] prev = rows[1];
+        int[] cur = rows[2];
+        for (int j = 0; j <= bLength; j++) prev[j] = j;
+        for (int i = 1; i <= aLength; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= bLength; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a[i - 1] == b[j - 2] && a[i - 2] == b[j - 1]) {
+                    d = Math.min(d, prev2[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[bLength];
+    }
+
+    /**
+     * @return 길이 length 인 문자열에서 maxDistance 개까지 지운 문자열의 수 (자신 포함)
+     */
+    static int deleteCount(int length, int maxDistance) {
+        int count = 0;
+        long combination = 1;
+        for (int d = 0; d <= maxDistance && d <= length; d++) {
+            count += combination;
+            combination = combination * (length - d) / (d + 1);
+        }
+        return count;
+    }
+
+    /**
+     * 자모열에서 maxDistance 개까지 지운 모든 문자열(자신 포함)의 hash 를 hashes 에 쓴다.
+     * 같은 위치 조합은 한 번씩만 만든다.
+     *
+     * @param scratch 길이 length 이상의 작업 버퍼
+     * @return hashes 에 쓴 수
+     */
+    static int deleteHashes(char[] jamo, int length, int maxDistance, int[] hashes, char[] scratch) {
+        System.arraycopy(jamo, 0, scratch, 0, length);
+        hashes[0] = hash(scratch, length);
+        return deleteHashes(scratch, length, 0, maxDistance, hashes, 1);
+    }
+
+    private static int deleteHashes(char[] word, int length, int from, int remaining, int[] hashes, int count) {
+        if (remaining == 0) {
+            return count;
+        }
+        for (int i = from; i < length; i++) {
+            char deleted = word[i];
+            System.arraycopy(word, i + 1, word, i, length - i - 1);
+            hashes[count++] = hash(word, length - 1);
+            count = deleteHashes(word, length - 1, i, remaining - 1, hashes, count);
+            System.arraycopy(word, i, word, i + 1, length - i - 1);
+            word[i] = deleted;
+        }
+        return count;
+    }
+
+    /**
+     * FNV-1a
+     */
+    static int hash(char[] jamo, int length) {
+        int hash = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ jamo[i]) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
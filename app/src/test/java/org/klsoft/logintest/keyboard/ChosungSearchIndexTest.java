@@ -0,0 +1,154 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Index built in parallel chunks -> posting lists -> search, checked against a scan of the
+ * chosung strings. Entries use a few initial consonants, so that the postings are long.
+ */
+public class ChosungSearchIndexTest {
+
+    // more than one chunk of ChosungSearchIndex
+    private static final int ENTRIES = 10000;
+    private static final int QUERIES = 2000;
+    private static final int CHOSUNG_CHOICES = 5;
+    private static final int SYLLABLES_PER_CHOSUNG = 21 * 28;
+
+    private static char syllable(Random random) {
+        return (char) (EngKorTypingConvertor.HANGUL_CHAR_START_CODE
+                + random.nextInt(CHOSUNG_CHOICES) * SYLLABLES_PER_CHOSUNG + random.nextInt(SYLLABLES_PER_CHOSUNG));
+    }
+
+    private static String chosungOf(CharSequence text) {
+        StringBuilder chosung = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int syllable = c - EngKorTypingConvertor.HANGUL_CHAR_START_CODE;
+            boolean isSyllable = syllable >= 0 && syllable < EngKorTypingConvertor.TOTAL_HANGUL_CHAR;
+            chosung.append(isSyllable ? EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR[syllable / SYLLABLES_PER_CHOSUNG] : c);
+        }
+        return chosung.toString();
+    }
+
+    private static List<Integer> scan(List<String> chosungs, String query, boolean prefix, int limit) {
+        String q = chosungOf(query);
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 0; id < chosungs.size() && expected.size() < limit; id++) {
+            if (prefix ? chosungs.get(id).startsWith(q) : chosungs.get(id).contains(q)) expected.add(id);
+        }
+        return expected;
+    }
+
+    private static List<Integer> asList(int[] out, int count) {
+        List<Integer> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) list.add(out[i]);
+        return list;
+    }
+
+    @Test
+    public void matchesAScanOfTheChosungStrings() {
+        Random random = new Random(13);
+        List<String> entries = new ArrayList<>();
+        List<String> chosungs = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            StringBuilder entry = new StringBuilder();
+            for (int j = 1 + random.nextInt(6); j > 0; j--) {
+                int kind = random.nextInt(10);
+                entry.append(kind == 0 ? ' ' : kind == 1 ? (char) ('a' + random.nextInt(3)) : syllable(random));
+            }
+            entries.add(entry.toString());
+            chosungs.add(chosungOf(entry));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ChosungSearchIndex index;
+        try {
+            index = new ChosungSearchIndex(entries, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(ENTRIES, index.size());
+        for (int id = 0; id < ENTRIES; id += 97) {
+            assertEquals(chosungs.get(id), index.chosungOf(id));
+        }
+
+        int[] all = new int[ENTRIES];
+        int[] few = new int[20];
+        char[] chosung = new char[3];
+        for (int q = 0; q < QUERIES; q++) {
+            StringBuilder query = new StringBuilder();
+            for (int j = 1 + random.nextInt(3); j > 0; j--) {
+                int kind = random.nextInt(10);
+                char c = syllable(random);
+                // a syllable, its chosung as typed, or a char that is not Hangul
+                query.append(kind < 4 ? c : kind < 9 ? chosungOf(String.valueOf(c)).charAt(0) : 'a');
+            }
+            String text = query.toString();
+            for (boolean prefix : new boolean[]{false, true}) {
+                int count = index.search(text, prefix, chosung, all);
+                assertEquals(text, scan(chosungs, text, prefix, ENTRIES), asList(all, count));
+                count = index.search(text, prefix, chosung, few);
+                assertEquals(text, scan(chosungs, text, prefix, few.length), asList(few, count));
+            }
+        }
+    }
+
+    @Test
+    public void findsInitialConsonantQueries() {
+        ChosungSearchIndex index = new ChosungSearchIndex(Arrays.asList("한국", "한글", "대한국어", "국어", "hello"));
+        char[] chosung = new char[8];
+        int[] out = new int[5];
+        assertEquals(Arrays.asList(0, 1, 2), asList(out, index.search("ㅎㄱ", false, chosung, out)));
+        assertEquals(Arrays.asList(0, 1), asList(out, index.search("한ㄱ", true, chosung, out)));
+        assertEquals(Arrays.asList(4), asList(out, index.search("ell", false, chosung, out)));
+        assertEquals(0, index.search("ㅂ", false, chosung, out));
+    }
+
+    @Test
+    public void scansEveryEntryForAQueryWithoutChosung() {
+        ChosungSearchIndex index = new ChosungSearchIndex(Arrays.asList("한 글", "hello", "help 한", "국어"));
+        char[] chosung = new char[8];
+        int[] out = new int[4];
+        assertEquals(Arrays.asList(1, 2), asList(out, index.search("hel", false, chosung, out)));
+        assertEquals(Arrays.asList(1, 2), asList(out, index.search("hel", true, chosung, out)));
+        assertEquals(Arrays.asList(0, 2), asList(out, index.search(" ", false, chosung, out)));
+        assertEquals(0, index.search(" ", true, chosung, out));
+        assertEquals(0, index.search("", false, chosung, out));
+        // jungsung alone has no chosung, and is dropped from the query
+        assertEquals(0, index.search("\u1161", false, chosung, out));
+    }
+
+    @Test
+    public void matchesAPrefixWhoseSecondCharIsNotAChosung() {
+        ChosungSearchIndex index = new ChosungSearchIndex(Arrays.asList("한a", "국한a", "ㅎa", "한 글", "a한"));
+        char[] chosung = new char[8];
+        int[] out = new int[5];
+        assertEquals(Arrays.asList(0, 2), asList(out, index.search("ㅎa", true, chosung, out)));
+        assertEquals(Arrays.asList(0, 2), asList(out, index.search("한a", true, chosung, out)));
+        assertEquals(Arrays.asList(0, 1, 2), asList(out, index.search("ㅎa", false, chosung, out)));
+        assertEquals(Arrays.asList(3), asList(out, index.search("ㅎ ", true, chosung, out)));
+        assertEquals(Arrays.asList(3), asList(out, index.search("한 ㄱ", true, chosung, out)));
+    }
+
+    @Test
+    public void reusesTheCallersChosungBuffer() {
+        ChosungSearchIndex index = new ChosungSearchIndex(Arrays.asList("한국", "하늘"));
+        char[] chosung = new char[2];
+        int[] out = new int[2];
+        assertEquals(Arrays.asList(0), asList(out, index.search("한국", true, chosung, out)));
+        assertArrayEquals(new char[]{'ㅎ', 'ㄱ'}, chosung);
+        assertEquals(Arrays.asList(0, 1), asList(out, index.search("ㅎ", true, chosung, out)));
+        try {
+            index.search("한국어", true, chosung, out);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
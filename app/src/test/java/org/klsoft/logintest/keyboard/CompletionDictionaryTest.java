@@ -0,0 +1,123 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * CompletionDictionaryBuilder -> mapped DAWG -> CompletionDictionary, checked against a scan of
+ * the key sequences: completions are the longer words sharing the typed keys, shortest first and
+ * in key order within a length.
+ */
+public class CompletionDictionaryTest {
+
+    private static final int WORDS = 3000;
+    private static final int QUERIES = 1000;
+    private static final int RESULTS = 3;
+
+    private static final Comparator<String> SHORTEST_FIRST =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private static CompletionDictionary build(Iterable<String> words) throws IOException {
+        CompletionDictionaryBuilder builder = new CompletionDictionaryBuilder();
+        for (String word : words) assertTrue(word, builder.add(word));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.write(out);
+        return new CompletionDictionary(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static List<String> scan(TreeSet<String> keys, String query) {
+        String prefix = EngKorTypingConvertor.convertKor2Eng(query);
+        List<String> found = new ArrayList<>();
+        for (String key : keys.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            if (key.length() > prefix.length()) found.add(key);
+        }
+        found.sort(SHORTEST_FIRST);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < found.size() && i < RESULTS; i++) {
+            expected.add(EngKorTypingConvertor.convertEng2Kor(found.get(i)));
+        }
+        return expected;
+    }
+
+    @Test
+    public void matchesAScanOfTheKeySequences() throws IOException {
+        Random random = new Random(11);
+        TreeSet<String> keys = new TreeSet<>();
+        List<String> words = new ArrayList<>();
+        while (words.size() < WORDS) {
+            char[] word = new char[1 + random.nextInt(4)];
+            for (int i = 0; i < word.length; i++) {
+                // few chosung and jungsung, so that words share long prefixes
+                word[i] = (char) (EngKorTypingConvertor.HANGUL_CHAR_START_CODE + random.nextInt(28 * 21 * 3));
+            }
+            String text = new String(word);
+            if (keys.add(EngKorTypingConvertor.convertKor2Eng(text))) words.add(text);
+        }
+        CompletionDictionary dictionary = build(words);
+
+        String[] out = new String[RESULTS];
+        for (int q = 0; q < QUERIES; q++) {
+            String key = EngKorTypingConvertor.convertKor2Eng(words.get(random.nextInt(WORDS)));
+            // cut the keys anywhere, also inside a syllable
+            String query = EngKorTypingConvertor.convertEng2Kor(key.substring(0, 1 + random.nextInt(key.length())));
+            int count = dictionary.complete(query, 0, query.length(), out);
+            assertEquals(query, scan(keys, query), Arrays.asList(out).subList(0, count));
+        }
+    }
+
+    @Test
+    public void completesTheSyllableBeingComposed() throws IOException {
+        CompletionDictionary dictionary = build(Arrays.asList("한글", "한국", "한국어", "하늘"));
+        String[] out = new String[RESULTS];
+
+        String text = "abc 한그";
+        assertEquals(1, dictionary.complete(text, 4, text.length(), out));
+        assertEquals("한글", out[0]);
+
+        assertEquals(2, dictionary.complete("한구", 0, 2, out));
+        assertEquals("한국", out[0]);
+        assertEquals("한국어", out[1]);
+
+        assertEquals(1, dictionary.complete("한국", 0, 2, out));
+        assertEquals("한국어", out[0]);
+        assertEquals(0, dictionary.complete("영어", 0, 2, out));
+    }
+
+    @Test
+    public void givesUpOnAQueryThatVisitsTooManyArcs() throws IOException {
+        // thousands of five syllable words under 가, none of them shorter than 8 keys
+        Random random = new Random(13);
+        TreeSet<String> keys = new TreeSet<>();
+        List<String> words = new ArrayList<>();
+        while (words.size() < WORDS) {
+            char[] word = new char[5];
+            word[0] = '가';
+            for (int i = 1; i < word.length; i++) {
+                word[i] = (char) (EngKorTypingConvertor.HANGUL_CHAR_START_CODE + random.nextInt(19 * 21) * 28);
+            }
+            String text = new String(word);
+            if (keys.add(EngKorTypingConvertor.convertKor2Eng(text))) words.add(text);
+        }
+        String[] out = new String[RESULTS];
+        assertEquals(RESULTS, scan(keys, "가").size());
+        assertEquals(0, build(words).complete("가", 0, 1, out));
+
+        // the same words are found in a smaller dictionary
+        List<String> few = words.subList(0, 100);
+        TreeSet<String> fewKeys = new TreeSet<>();
+        for (String word : few) fewKeys.add(EngKorTypingConvertor.convertKor2Eng(word));
+        int count = build(few).complete("가", 0, 1, out);
+        assertEquals(scan(fewKeys, "가"), Arrays.asList(out).subList(0, count));
+    }
+}
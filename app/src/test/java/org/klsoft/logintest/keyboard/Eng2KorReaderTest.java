@@ -0,0 +1,125 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streaming eng->kor conversion must not depend on how the input is split: the reader is fed one
+ * char per read and drained in random chunk sizes, and must match the whole-string conversion.
+ */
+public class Eng2KorReaderTest {
+
+    private static final String OTHER_CHARS = " .,?!\n1a한ㄱ";
+
+    /**
+     * Typed text of random syllables, compatibility jamo and other chars.
+     */
+    static String randomKorean(Random random, int length) {
+        StringBuilder kor = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                kor.append((char) (0xAC00 + random.nextInt(11172)));
+            } else if (kind < 8) {
+                kor.append((char) (0x3131 + random.nextInt(0x3163 - 0x3131 + 1)));
+            } else {
+                kor.append(OTHER_CHARS.charAt(random.nextInt(OTHER_CHARS.length())));
+            }
+        }
+        return kor.toString();
+    }
+
+    private static String expected(String eng, boolean allowDoubleJaum) {
+        char[] dst = new char[eng.length()];
+        int length = EngKorTypingConvertor.convertEng2Kor(eng, 0, eng.length(), dst, 0, allowDoubleJaum);
+        return new String(dst, 0, length);
+    }
+
+    private static String readAll(Reader reader, Random random) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] chunk = new char[64];
+        while (true) {
+            if (random.nextInt(8) == 0) {
+                int c = reader.read();
+                if (c < 0) {
+                    break;
+                }
+                result.append((char) c);
+            } else {
+                int n = reader.read(chunk, 0, 1 + random.nextInt(chunk.length));
+                if (n < 0) {
+                    break;
+                }
+                result.append(chunk, 0, n);
+            }
+        }
+        return result.toString();
+    }
+
+    private static void assertStreams(boolean allowDoubleJaum) throws IOException {
+        Random random = new Random(allowDoubleJaum ? 3 : 2);
+        for (int round = 0; round < 20; round++) {
+            String eng = EngKorTypingConvertor.convertKor2Eng(randomKorean(random, 500 + random.nextInt(2000)));
+            int bufferSize = EngKorTypingConvertor.ENG2KOR_LOOKAHEAD + random.nextInt(100);
+            Reader reader = new Eng2KorReader(new OneCharReader(eng), bufferSize, allowDoubleJaum);
+            assertEquals(expected(eng, allowDoubleJaum), readAll(reader, random));
+        }
+    }
+
+    @Test
+    public void matchesTheStringConversionWithoutDoubleJaum() throws IOException {
+        assertStreams(false);
+    }
+
+    @Test
+    public void matchesTheStringConversionWithDoubleJaum() throws IOException {
+        assertStreams(true);
+    }
+
+    @Test
+    public void defaultReaderMatchesConvertEng2Kor() throws IOException {
+        String eng = EngKorTypingConvertor.convertKor2Eng(randomKorean(new Random(4), 20000));
+        Reader reader = new Eng2KorReader(new StringReader(eng));
+        assertEquals(EngKorTypingConvertor.convertEng2Kor(eng), readAll(reader, new Random(5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsABufferSmallerThanTheLookahead() {
+        new Eng2KorReader(new StringReader(""), EngKorTypingConvertor.ENG2KOR_LOOKAHEAD - 1, false);
+    }
+
+    /**
+     * Returns at most one char per read, so every syllable straddles a read boundary.
+     */
+    static final class OneCharReader extends Reader {
+
+        private final String text;
+        private int pos;
+
+        OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == text.length()) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            cbuf[off] = text.charAt(pos++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.text.Normalizer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Eng<->kor conversion of the table-driven convertor: known Dubeolsik key sequences, compound
+ * jungsung and jongsung, and every syllable of the block. The jamo decomposition into caller
+ * buffers is checked for its type/index encoding and the source offsets it records, and the
+ * conjoining jamo (NFD) handling against java.text.Normalizer.
+ */
+public class EngKorTypingConvertorTest {
+
+    private static final String[][] WORDS = {
+            {"dkssudgktpdy", "안녕하세요"},
+            {"gksrmf", "한글"},
+            {"fkaus", "라면"},
+            {"dnpqtkdlxm", "웹사이트"},
+            {"qnpfr", "뷁"},
+    };
+
+    @Test
+    public void convertsKnownWordsBothWays() {
+        for (String[] word : WORDS) {
+            assertEquals(word[1], EngKorTypingConvertor.convertEng2Kor(word[0]));
+            assertEquals(word[0], EngKorTypingConvertor.convertKor2Eng(word[1]));
+        }
+    }
+
+    @Test
+    public void combinesCompoundJungsung() {
+        assertEquals("와", EngKorTypingConvertor.convertEng2Kor("dhk"));
+        assertEquals("의자", EngKorTypingConvertor.convertEng2Kor("dmlwk"));
+        assertEquals("봐봐", EngKorTypingConvertor.convertEng2Kor("qhkqhk"));
+        assertEquals("dho", EngKorTypingConvertor.convertKor2Eng("왜"));
+    }
+
+    @Test
+    public void combinesCompoundJongsungAndMovesItsLastConsonant() {
+        assertEquals("닭", EngKorTypingConvertor.convertEng2Kor("ekfr"));
+        assertEquals("달가", EngKorTypingConvertor.convertEng2Kor("ekfrk"));
+        assertEquals("ekfr", EngKorTypingConvertor.convertKor2Eng("닭"));
+        // a compound consonant without a vowel stays split
+        assertEquals("ㄱㅅ", EngKorTypingConvertor.convertEng2Kor("rt"));
+        assertEquals("rt", EngKorTypingConvertor.convertKor2Eng("ㄳ"));
+    }
+
+    @Test
+    public void leavesOtherCharactersAsTyped() {
+        assertEquals("한글 123!", EngKorTypingConvertor.convertEng2Kor("gksrmf 123!"));
+        assertEquals("gksrmf ABC", EngKorTypingConvertor.convertKor2Eng("한글 ABC"));
+        assertEquals("ㄱㄱㄱ", EngKorTypingConvertor.convertEng2Kor("rrr"));
+        assertEquals("ㅏㅏㅏ", EngKorTypingConvertor.convertEng2Kor("kkk"));
+    }
+
+    @Test
+    public void everySyllableSurvivesTheRoundTrip() {
+        for (char c = 0xAC00; c <= 0xD7A3; c++) {
+            String syllable = String.valueOf(c);
+            assertEquals(syllable, EngKorTypingConvertor.convertEng2Kor(EngKorTypingConvertor.convertKor2Eng(syllable)));
+        }
+    }
+
+    @Test
+    public void charAfterTheLastSyllableIsNotHangul() {
+        // U+D7A4 is one past 힣, where the old "chars <= TOTAL_HANGUL_CHAR" check indexed out of bounds
+        assertEquals("glg", EngKorTypingConvertor.convertKor2Eng("힣"));
+        assertEquals("힤", EngKorTypingConvertor.convertKor2Eng("힤"));
+
+        char[] dst = new char[3 * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        int length = EngKorTypingConvertor.decomposeJamo("닭힤x", 0, 3, dst, 0, null);
+        assertEquals("ㄷㅏㄺ힤x", new String(dst, 0, length));
+    }
+
+    @Test
+    public void convertsKor2EngIntoABuffer() {
+        String kor = "x뷁ㄳ왜";
+        char[] dst = new char[1 + kor.length() * EngKorTypingConvertor.MAX_ENG_KEYS_PER_CHAR];
+        int length = EngKorTypingConvertor.convertKor2Eng(kor, 1, kor.length(), dst, 1);
+        assertEquals("qnpfrrtdho", new String(dst, 1, length));
+    }
+
+    private static int[] decomposeJamoIdx(String kor) {
+        IntBuffer dst = IntBuffer.allocate(kor.length() * EngKorTypingConvertor.MAX_JAMO_PER_CHAR);
+        int length = EngKorTypingConvertor.decomposeJamoIdx(kor, 0, kor.length(), dst, null);
+        assertEquals(dst.position(), length);
+        int[] jamo = new int[length];
+        dst.flip();
+        dst.get(jamo);
+        return jamo;
+    }
+
+    @Test
+    public void decomposeJamoIdxTagsEachJamoWithItsType() {
+        assertArrayEquals(new int[]{
+                        EngKorTypingConvertor.JAMO_CHOSUNG | 18,
+                        EngKorTypingConvertor.JAMO_JUNGSUNG | 0,
+                        EngKorTypingConvertor.JAMO_JONGSUNG | 4,
+                        EngKorTypingConvertor.JAMO_CHOSUNG | 0,
+                        EngKorTypingConvertor.JAMO_JUNGSUNG | 0,
+                        EngKorTypingConvertor.JAMO_NONE | '1'},
+                decomposeJamoIdx("한가1"));
+    }
+
+    @Test
+    public void decomposeJamoIdxReadsCompatibilityJamo() {
+        // a consonant that can start a syllable is a chosung, a compound one only a jongsung
+        assertArrayEquals(new int[]{
+                        EngKorTypingConvertor.JAMO_CHOSUNG | 0,
+                        EngKorTypingConvertor.JAMO_JUNGSUNG | 0,
+                        EngKorTypingConvertor.JAMO_JONGSUNG | 3,
+                        EngKorTypingConvertor.JAMO_CHOSUNG | 8,
+                        EngKorTypingConvertor.JAMO_JUNGSUNG | 10},
+                decomposeJamoIdx("ㄱㅏㄳㅃㅙ"));
+        // decomposeJamo leaves them as they are
+        char[] dst = new char[5 * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        int length = EngKorTypingConvertor.decomposeJamo("ㄱㅏㄳㅃㅙ", 0, 5, dst, 0, null);
+        assertEquals("ㄱㅏㄳㅃㅙ", new String(dst, 0, length));
+    }
+
+    @Test
+    public void bothOverloadsAgreeOnEverySyllable() {
+        int[] jamo = new int[EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        char[] chars = new char[EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        for (char c = 0xAC00; c <= 0xD7A3; c++) {
+            String syllable = String.valueOf(c);
+            IntBuffer dst = IntBuffer.wrap(jamo);
+            int length = EngKorTypingConvertor.decomposeJamoIdx(syllable, 0, 1, dst, null);
+            assertEquals(length, EngKorTypingConvertor.decomposeJamo(syllable, 0, 1, chars, 0, null));
+            assertEquals(EngKorTypingConvertor.JAMO_CHOSUNG, jamo[0] & EngKorTypingConvertor.JAMO_TYPE_MASK);
+            assertEquals(EngKorTypingConvertor.JAMO_JUNGSUNG, jamo[1] & EngKorTypingConvertor.JAMO_TYPE_MASK);
+            assertEquals(EngKorTypingConvertor.SPLIT_CHOSUNG_CHAR[jamo[0] & 0xFFFF], chars[0]);
+            assertEquals(EngKorTypingConvertor.SPLIT_JUNGSUNG_CHAR[jamo[1] & 0xFFFF], chars[1]);
+            if (length == 3) {
+                assertEquals(EngKorTypingConvertor.JAMO_JONGSUNG, jamo[2] & EngKorTypingConvertor.JAMO_TYPE_MASK);
+                assertEquals(EngKorTypingConvertor.SPLIT_JONGSUNG_CHAR[jamo[2] & 0xFFFF], chars[2]);
+            }
+        }
+    }
+
+    @Test
+    public void offsetsMapEachJamoBackToItsSourceChar() {
+        String kor = "ab닭 한ㄳ가x";
+        int start = 2;
+        int end = kor.length() - 1;
+        int[] offsets = new int[end - start + 1];
+
+        // char[] overload, written after a prefix of dst
+        char[] dst = new char[4 + kor.length() * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        int length = EngKorTypingConvertor.decomposeJamo(kor, start, end, dst, 4, offsets);
+        assertEquals("ㄷㅏㄺ ㅎㅏㄴㄳㄱㅏ", new String(dst, 4, length));
+        assertArrayEquals(new int[]{4, 7, 8, 11, 12, 14}, offsets);
+        for (int i = start; i < end; i++) {
+            char[] single = new char[EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+            int n = EngKorTypingConvertor.decomposeJamo(kor, i, i + 1, single, 0, null);
+            assertEquals(new String(single, 0, n), new String(dst, offsets[i - start], offsets[i - start + 1] - offsets[i - start]));
+        }
+
+        // IntBuffer overload, from a position that is not 0
+        IntBuffer jamo = IntBuffer.allocate(4 + kor.length() * EngKorTypingConvertor.MAX_JAMO_PER_CHAR);
+        jamo.position(4);
+        length = EngKorTypingConvertor.decomposeJamoIdx(kor, start, end, jamo, offsets);
+        assertEquals(10, length);
+        assertArrayEquals(new int[]{4, 7, 8, 11, 12, 14}, offsets);
+        assertEquals(EngKorTypingConvertor.JAMO_NONE | ' ', jamo.get(7));
+        assertEquals(EngKorTypingConvertor.JAMO_CHOSUNG | 18, jamo.get(8));
+        assertEquals(EngKorTypingConvertor.JAMO_JONGSUNG | 3, jamo.get(11));
+        assertEquals(EngKorTypingConvertor.JAMO_CHOSUNG | 0, jamo.get(12));
+    }
+
+    @Test
+    public void conjoiningJamoMatchesTheNormalizerOnEverySyllable() {
+        char[] nfd = new char[EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        char[] nfc = new char[EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        IntBuffer nfcJamo = IntBuffer.allocate(EngKorTypingConvertor.MAX_JAMO_PER_CHAR);
+        IntBuffer nfdJamo = IntBuffer.allocate(EngKorTypingConvertor.MAX_JAMO_PER_CHAR * EngKorTypingConvertor.MAX_JAMO_PER_CHAR);
+        for (char c = 0xAC00; c <= 0xD7A3; c++) {
+            String syllable = String.valueOf(c);
+            String expected = Normalizer.normalize(syllable, Normalizer.Form.NFD);
+
+            int length = EngKorTypingConvertor.decomposeToConjoiningJamo(syllable, 0, 1, nfd, 0);
+            assertEquals(expected, new String(nfd, 0, length));
+            assertEquals(1, EngKorTypingConvertor.composeConjoiningJamo(expected, 0, expected.length(), nfc, 0));
+            assertEquals(Normalizer.normalize(expected, Normalizer.Form.NFC).charAt(0), nfc[0]);
+            assertEquals(c, nfc[0]);
+
+            assertEquals(EngKorTypingConvertor.convertKor2Eng(syllable), EngKorTypingConvertor.convertKor2Eng(expected));
+            nfcJamo.clear();
+            nfdJamo.clear();
+            EngKorTypingConvertor.decomposeJamoIdx(syllable, 0, 1, nfcJamo, null);
+            EngKorTypingConvertor.decomposeJamoIdx(expected, 0, expected.length(), nfdJamo, null);
+            nfcJamo.flip();
+            nfdJamo.flip();
+            assertEquals(nfcJamo, nfdJamo);
+        }
+    }
+
+    @Test
+    public void composesConjoiningJamoLikeTheNormalizer() {
+        // LV+T, a lone L or T, and jamo between other chars
+        String[] inputs = {
+                "\uAC00\u11A8", "\u1112\u1161\u11AB\u1100\u1173\u11AF", "\u1100", "\u11A8\u1161",
+                "a\u1100\u1161b\u1103\u1161\u11B0!", "\u1100\u1100\u1161", "\uAC01\u11A8",
+        };
+        for (String input : inputs) {
+            String expected = Normalizer.normalize(input, Normalizer.Form.NFC);
+            assertEquals(input, expected, EngKorTypingConvertor.composeConjoiningJamo(input));
+            assertEquals(input, EngKorTypingConvertor.convertKor2Eng(expected),
+                    EngKorTypingConvertor.convertKor2Eng(Normalizer.normalize(input, Normalizer.Form.NFD)));
+        }
+    }
+}
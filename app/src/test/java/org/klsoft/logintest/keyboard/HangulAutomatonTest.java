@@ -0,0 +1,158 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keystroke by keystroke states of the composition automaton, as the keyboard service shows them:
+ * the committed char followed by the composing one.
+ */
+public class HangulAutomatonTest {
+
+    /**
+     * Types the keys and returns the text the editor would show.
+     */
+    private static String type(HangulAutomaton automaton, String keys) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < keys.length(); i++) {
+            assertTrue(automaton.input(keys.charAt(i)));
+            if (automaton.getCommitted() != 0)
+                text.append(automaton.getCommitted());
+        }
+        if (automaton.getComposing() != 0)
+            text.append(automaton.getComposing());
+        return text.toString();
+    }
+
+    @Test
+    public void composesSyllables() {
+        assertEquals("한글", type(new HangulAutomaton(), "ㅎㅏㄴㄱㅡㄹ"));
+        assertEquals("안녕", type(new HangulAutomaton(), "ㅇㅏㄴㄴㅕㅇ"));
+    }
+
+    @Test
+    public void combinesCompoundJungsungAndJongsung() {
+        assertEquals("왜", type(new HangulAutomaton(), "ㅇㅗㅐ"));
+        assertEquals("의", type(new HangulAutomaton(), "ㅇㅡㅣ"));
+        assertEquals("닭", type(new HangulAutomaton(), "ㄷㅏㄹㄱ"));
+        assertEquals("값", type(new HangulAutomaton(), "ㄱㅏㅂㅅ"));
+    }
+
+    @Test
+    public void movesTheLastJongsungToTheNextSyllable() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        assertEquals("닭", type(automaton, "ㄷㅏㄹㄱ"));
+        assertTrue(automaton.input('ㅏ'));
+        assertEquals('달', automaton.getCommitted());
+        assertEquals('가', automaton.getComposing());
+    }
+
+    @Test
+    public void sebeolsikKeepsTheJongsung() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        automaton.setLayout(HangulLayout.SEBEOLSIK_390);
+        // 초성 ㄷ, 중성 ㅏ, 종성 ㄹ, 종성 ㄱ, 중성 ㅏ
+        assertEquals("닭ㅏ", type(automaton, "\u1103\u1161\u11AF\u11A8\u1161"));
+    }
+
+    @Test
+    public void sebeolsikDoublesARepeatedChosung() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        automaton.setLayout(HangulLayout.SEBEOLSIK_390);
+        // 초성 ㄱ, 초성 ㄱ, 중성 ㅏ
+        assertEquals("까", type(automaton, "\u1100\u1100\u1161"));
+        automaton.reset();
+        assertEquals("ㄲㄱ", type(automaton, "\u1100\u1100\u1100"));
+        automaton.reset();
+        // ㄴ has no doubled form, a doubled initial is only made before the vowel
+        assertEquals("ㄴㄴ", type(automaton, "\u1102\u1102"));
+        automaton.reset();
+        assertEquals("가ㄱ", type(automaton, "\u1100\u1161\u1100"));
+
+        // the doubled initial is deleted the way it was typed
+        automaton.reset();
+        type(automaton, "\u1109\u1109");
+        assertTrue(automaton.backspace());
+        assertEquals('ㅅ', automaton.getComposing());
+        assertTrue(automaton.backspace());
+        assertFalse(automaton.isComposing());
+    }
+
+    @Test
+    public void dubeolsikDoesNotDoubleChosung() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        assertEquals("ㄱㄱ", type(automaton, "ㄱㄱ"));
+        automaton.reset();
+        type(automaton, "ㄲ");
+        assertTrue(automaton.backspace());
+        assertFalse(automaton.isComposing());
+    }
+
+    @Test
+    public void labelsConjoiningJamoWithCompatibilityJamo() {
+        assertEquals('ㄱ', HangulAutomaton.keyLabel('\u1100'));
+        assertEquals('ㅏ', HangulAutomaton.keyLabel('\u1161'));
+        assertEquals('ㄱ', HangulAutomaton.keyLabel('\u11A8'));
+        assertEquals('ㄳ', HangulAutomaton.keyLabel('\u11AA'));
+        assertEquals('ㄱ', HangulAutomaton.keyLabel('ㄱ'));
+        assertEquals('5', HangulAutomaton.keyLabel('5'));
+    }
+
+    @Test
+    public void ignoresKeysThatAreNotJamo() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        type(automaton, "ㅎㅏ");
+        assertFalse(automaton.input('a'));
+        assertFalse(automaton.input(' '));
+        assertEquals('하', automaton.getComposing());
+    }
+
+    @Test
+    public void backspaceRemovesOneJamoAtATime() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        type(automaton, "ㄷㅏㄹㄱ");
+        char[] expected = {'달', '다', 'ㄷ'};
+        for (char c : expected) {
+            assertTrue(automaton.backspace());
+            assertEquals(c, automaton.getComposing());
+            assertEquals(0, automaton.getCommitted());
+        }
+        assertTrue(automaton.backspace());
+        assertFalse(automaton.isComposing());
+        assertFalse(automaton.backspace());
+
+        type(automaton, "ㄱㅗㅏ");
+        assertTrue(automaton.backspace());
+        assertEquals('고', automaton.getComposing());
+    }
+
+    @Test
+    public void restoreContinuesFromATypedSyllable() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        assertTrue(automaton.restore('닭'));
+        assertTrue(automaton.backspace());
+        assertEquals('달', automaton.getComposing());
+
+        assertTrue(automaton.restore('가'));
+        assertTrue(automaton.input('ㅁ'));
+        assertEquals('감', automaton.getComposing());
+
+        assertTrue(automaton.restore('ㄱ'));
+        assertTrue(automaton.input('ㅏ'));
+        assertEquals('가', automaton.getComposing());
+
+        assertFalse(automaton.restore('x'));
+        assertFalse(automaton.restore('힤'));
+        assertEquals('가', automaton.getComposing());
+    }
+
+    @Test
+    public void finishEndsTheComposition() {
+        HangulAutomaton automaton = new HangulAutomaton();
+        type(automaton, "ㄱㅏ");
+        assertEquals('가', automaton.finish());
+        assertFalse(automaton.isComposing());
+        assertEquals(0, automaton.finish());
+    }
+}
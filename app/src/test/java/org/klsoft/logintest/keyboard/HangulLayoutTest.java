@@ -0,0 +1,89 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * The letter keys of each layout, in QWERTY order: Dubeolsik must agree with the eng->kor tables of
+ * EngKorTypingConvertor, and Sebeolsik 390 must reach every jamo of a modern syllable.
+ */
+public class HangulLayoutTest {
+
+    private static final String QWERTY = "1234567890qwertyuiopasdfghjklzxcvbnm";
+
+    private static String type(HangulLayout layout, boolean shifted, int... indices) {
+        HangulAutomaton automaton = new HangulAutomaton();
+        automaton.setLayout(layout);
+        StringBuilder text = new StringBuilder();
+        for (int index : indices) {
+            assertTrue(automaton.input(layout.getLetterKey(shifted, index)));
+            if (automaton.getCommitted() != 0)
+                text.append(automaton.getCommitted());
+        }
+        return text.append(automaton.finish()).toString();
+    }
+
+    @Test
+    public void dubeolsikMatchesTheQwertyTables() {
+        for (int i = 0; i < QWERTY.length(); i++) {
+            String key = QWERTY.substring(i, i + 1);
+            assertEquals(key, EngKorTypingConvertor.convertEng2Kor(key),
+                    String.valueOf(HangulLayout.DUBEOLSIK.getLetterKey(false, i)));
+            // the tables only have the shifted keys that differ, Q W E R T O P
+            String shifted = EngKorTypingConvertor.convertEng2Kor(key.toUpperCase());
+            assertEquals(key, shifted.isEmpty() ? EngKorTypingConvertor.convertEng2Kor(key) : shifted,
+                    String.valueOf(HangulLayout.DUBEOLSIK.getLetterKey(true, i)));
+        }
+        assertEquals(',', HangulLayout.DUBEOLSIK.getLetterKey(false, 36));
+        assertEquals('.', HangulLayout.DUBEOLSIK.getLetterKey(false, 37));
+    }
+
+    @Test
+    public void sebeolsikReachesEveryJamo() {
+        Set<Character> chosung = new HashSet<>();
+        Set<Character> jungsung = new HashSet<>();
+        Set<Character> jongsung = new HashSet<>();
+        for (boolean shifted : new boolean[]{false, true}) {
+            for (int i = 0; i < HangulLayout.LETTER_KEY_COUNT; i++) {
+                char key = HangulLayout.SEBEOLSIK_390.getLetterKey(shifted, i);
+                if (key >= 0x1100 && key < 0x1113)
+                    assertTrue(chosung.add(key));
+                else if (key >= 0x1161 && key < 0x1176)
+                    jungsung.add(key);
+                else if (key >= 0x11A8 && key < 0x11C3)
+                    assertTrue(jongsung.add(key));
+                else
+                    assertEquals(0, HangulAutomaton.keyEntry(key));
+            }
+        }
+        // ㄲ ㄸ ㅃ ㅆ ㅉ are typed as a repeated initial, ㅘ ㅙ ㅚ ㅝ ㅞ ㅟ as two vowels
+        assertEquals(19 - 5, chosung.size());
+        assertEquals(21 - 6, jungsung.size());
+        assertEquals(27, jongsung.size());
+    }
+
+    @Test
+    public void sebeolsikHasTheDigitsOnTheShiftLayer() {
+        StringBuilder digits = new StringBuilder();
+        for (int index : new int[]{25, 26, 27, 28, 36, 15, 16, 17, 18, 19}) {
+            digits.append(HangulLayout.SEBEOLSIK_390.getLetterKey(true, index));
+        }
+        assertEquals("0123456789", digits.toString());
+    }
+
+    @Test
+    public void typesWordsByKeyPosition() {
+        // g k s r m f
+        assertEquals("한글", type(HangulLayout.DUBEOLSIK, false, 24, 27, 21, 13, 35, 23));
+        // 390 : m f s k g w
+        assertEquals("한글", type(HangulLayout.SEBEOLSIK_390, false, 35, 23, 21, 27, 24, 11));
+        // 390 : u f w x f, the jongsung stays
+        assertEquals("닭ㅏ", type(HangulLayout.SEBEOLSIK_390, false, 16, 23, 11, 30, 23));
+        // 390 : k k f, a repeated initial doubles
+        assertEquals("까", type(HangulLayout.SEBEOLSIK_390, false, 27, 27, 23));
+    }
+}
@@ -0,0 +1,159 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * HanjaDictionaryBuilder -> mapped front-coded blocks -> HanjaDictionary, checked against a map
+ * of the added pairs: a word finds its candidates in the order they were added, anything else none.
+ */
+public class HanjaDictionaryTest {
+
+    private static final int PAIRS = 8000;
+    private static final int QUERIES = 2000;
+    private static final int RESULTS = 4;
+
+    private static String hangul(Random random, int length) {
+        char[] word = new char[length];
+        // few syllables, so that neighbouring words share their front and some words many candidates
+        for (int i = 0; i < length; i++) {
+            word[i] = (char) (EngKorTypingConvertor.HANGUL_CHAR_START_CODE + random.nextInt(24) * 28);
+        }
+        return new String(word);
+    }
+
+    private static String hanja(Random random, int length) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) word[i] = (char) (0x4E00 + random.nextInt(16));
+        return new String(word);
+    }
+
+    private static HanjaDictionary build(HanjaDictionaryBuilder builder) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.write(out);
+        return new HanjaDictionary(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    private static List<String> lookup(HanjaDictionary dictionary, CharSequence text, int start, int end) {
+        String[] out = new String[RESULTS];
+        return Arrays.asList(out).subList(0, dictionary.lookup(text, start, end, out));
+    }
+
+    private static List<String> expected(Map<String, Set<String>> pairs, String word) {
+        Set<String> candidates = pairs.get(word);
+        if (candidates == null) return Collections.emptyList();
+        List<String> expected = new ArrayList<>(candidates);
+        return expected.subList(0, Math.min(RESULTS, expected.size()));
+    }
+
+    @Test
+    public void matchesTheAddedPairs() throws IOException {
+        Random random = new Random(15);
+        HanjaDictionaryBuilder builder = new HanjaDictionaryBuilder();
+        Map<String, Set<String>> pairs = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < PAIRS; i++) {
+            String word = hangul(random, 1 + random.nextInt(3));
+            String hanja = hanja(random, word.length());
+            assertTrue(word, builder.add(word, hanja));
+            Set<String> candidates = pairs.get(word);
+            if (candidates == null) {
+                candidates = new LinkedHashSet<>();
+                pairs.put(word, candidates);
+                words.add(word);
+            }
+            candidates.add(hanja);
+        }
+        HanjaDictionary dictionary = build(builder);
+
+        for (String word : words) {
+            assertEquals(word, expected(pairs, word), lookup(dictionary, word, 0, word.length()));
+        }
+        for (int q = 0; q < QUERIES; q++) {
+            // words in the middle of other text, and mostly absent words
+            String word = random.nextBoolean() ? words.get(random.nextInt(words.size())) : hangul(random, 1 + random.nextInt(4));
+            String text = hangul(random, random.nextInt(3)) + word + hangul(random, random.nextInt(3));
+            int start = text.indexOf(word);
+            assertEquals(word, expected(pairs, word), lookup(dictionary, text, start, start + word.length()));
+        }
+        // never added, in the first block and after the last one
+        assertEquals(Collections.emptyList(), lookup(dictionary, "\uAC01", 0, 1));
+        assertEquals(Collections.emptyList(), lookup(dictionary, "힣", 0, 1));
+    }
+
+    @Test
+    public void keepsTheOrderOfTheCandidates() throws IOException {
+        HanjaDictionaryBuilder builder = new HanjaDictionaryBuilder();
+        assertTrue(builder.add("한", "韓"));
+        assertTrue(builder.add("한국", "韓國"));
+        assertTrue(builder.add("한", "漢"));
+        assertTrue(builder.add("한", "韓"));
+        assertTrue(builder.add("한", "限"));
+        assertFalse(builder.add("한국", "韓"));
+        assertFalse(builder.add("han", "韓國"));
+        assertFalse(builder.add("", ""));
+        HanjaDictionary dictionary = build(builder);
+
+        assertEquals(Arrays.asList("韓", "漢", "限"), lookup(dictionary, "한", 0, 1));
+        assertEquals(Arrays.asList("韓國"), lookup(dictionary, "대한국민", 1, 3));
+        assertEquals(Collections.emptyList(), lookup(dictionary, "한국어", 0, 3));
+        assertEquals(Collections.emptyList(), lookup(dictionary, "국", 0, 1));
+        String[] out = new String[2];
+        assertEquals(2, dictionary.lookup("한", 0, 1, out));
+        assertArrayEquals(new String[]{"韓", "漢"}, out);
+    }
+
+    @Test
+    public void findsTheKeysNextToTheFirstKeyOfABlock() throws IOException {
+        // every 1-3 syllable word over four syllables, about half of them added, so that the first key
+        // of a block has neighbours one syllable shorter and longer, in the dictionary or not
+        String[] syllables = {"가", "나", "다", "라"};
+        Random random = new Random(16);
+        HanjaDictionaryBuilder builder = new HanjaDictionaryBuilder();
+        TreeMap<String, String> pairs = new TreeMap<>();
+        List<String> words = new ArrayList<>(Arrays.asList(syllables));
+        for (int i = 0; i < words.size() && words.get(i).length() < 3; i++) {
+            for (String syllable : syllables) words.add(words.get(i) + syllable);
+        }
+        for (String word : words) {
+            if (random.nextBoolean()) {
+                String hanja = hanja(random, word.length());
+                assertTrue(word, builder.add(word, hanja));
+                pairs.put(word, hanja);
+            }
+        }
+        HanjaDictionary dictionary = build(builder);
+
+        List<String> sorted = new ArrayList<>(pairs.keySet());
+        assertTrue(sorted.size() > 2 * HanjaDictionary.BLOCK_ENTRIES);
+        for (int block = 0; block < sorted.size(); block += HanjaDictionary.BLOCK_ENTRIES) {
+            String first = sorted.get(block);
+            List<String> keys = new ArrayList<>();
+            keys.add(first);
+            if (first.length() > 1) keys.add(first.substring(0, first.length() - 1));
+            for (String syllable : syllables) keys.add(first + syllable);
+            keys.add(first + "마");
+            for (String key : keys) {
+                List<String> expected = pairs.containsKey(key)
+                        ? Collections.singletonList(pairs.get(key))
+                        : Collections.<String>emptyList();
+                assertEquals(key, expected, lookup(dictionary, key, 0, key.length()));
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Typing and deleting jamo by jamo into the filter, checked after every keystroke against a
+ * from-scratch scan of the key sequences. Narrowing keystrokes must only re-check the previous hits.
+ */
+public class IncrementalFilterTest {
+
+    private static final int ENTRIES = 5000;
+    private static final int WORDS_TYPED = 200;
+    // moves the keys typed for Hangul away from ASCII
+    private static final char HANGUL_KEY_MARK = 0xF000;
+
+    private static boolean isHangul(char c) {
+        return (c >= 0xAC00 && c <= 0xD7A3) || (c >= 0x3131 && c <= 0x3163);
+    }
+
+    /**
+     * Dubeolsik keys of the Hangul chars, kept apart from typed ASCII.
+     */
+    private static String keysOf(CharSequence text) {
+        StringBuilder keys = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isHangul(c)) {
+                for (char key : EngKorTypingConvertor.convertKor2Eng(String.valueOf(c)).toCharArray()) {
+                    keys.append((char) (HANGUL_KEY_MARK + key));
+                }
+            } else {
+                keys.append(c);
+            }
+        }
+        return keys.toString();
+    }
+
+    private static List<Integer> scan(List<String> keys, String text) {
+        String query = keysOf(text);
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 0; id < keys.size(); id++) {
+            if (keys.get(id).contains(query)) expected.add(id);
+        }
+        return expected;
+    }
+
+    private static List<Integer> hits(IncrementalFilter filter) {
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < filter.getHitCount(); i++) hits.add(filter.getHit(i));
+        return hits;
+    }
+
+    private static void check(IncrementalFilter filter, List<String> keys, String text, int previousHits) {
+        int count = filter.filter(text);
+        assertEquals(text, scan(keys, text), hits(filter));
+        assertEquals(count, filter.getHitCount());
+        if (filter.isIncremental())
+            assertEquals(previousHits, filter.getCheckedCount());
+        else
+            assertEquals(filter.size(), filter.getCheckedCount());
+    }
+
+    @Test
+    public void matchesAScanAfterEveryKeystroke() {
+        Random random = new Random(14);
+        List<String> entries = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            char[] entry = new char[1 + random.nextInt(5)];
+            for (int j = 0; j < entry.length; j++) {
+                // few chosung and jungsung, and some ASCII that matches Hangul keys by code
+                entry[j] = random.nextInt(8) == 0 ? (char) ('a' + random.nextInt(26))
+                        : (char) (EngKorTypingConvertor.HANGUL_CHAR_START_CODE + random.nextInt(28 * 21 * 3));
+            }
+            entries.add(new String(entry));
+            keys.add(keysOf(entries.get(i)));
+        }
+        IncrementalFilter filter = new IncrementalFilter(entries);
+
+        char[] jamo = new char[5 * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        for (int w = 0; w < WORDS_TYPED; w++) {
+            String word = entries.get(random.nextInt(ENTRIES));
+            int length = EngKorTypingConvertor.decomposeJamo(word, 0, word.length(), jamo, 0, null);
+            HangulAutomaton automaton = new HangulAutomaton();
+            StringBuilder committed = new StringBuilder();
+            filter.reset();
+            int previousHits = 0;
+            for (int i = 0; i < length; i++) {
+                if (!automaton.input(jamo[i])) {
+                    if (automaton.isComposing()) committed.append(automaton.finish());
+                    committed.append(jamo[i]);
+                } else if (automaton.getCommitted() != 0) {
+                    committed.append(automaton.getCommitted());
+                }
+                String text = automaton.isComposing() ? committed.toString() + automaton.getComposing() : committed.toString();
+                check(filter, keys, text, previousHits);
+                previousHits = filter.getHitCount();
+            }
+            // delete a few jamo, then type one again
+            for (int i = 1 + random.nextInt(3); i > 0 && automaton.backspace(); i--) {
+                String text = automaton.isComposing() ? committed.toString() + automaton.getComposing() : committed.toString();
+                check(filter, keys, text, previousHits);
+                previousHits = filter.getHitCount();
+            }
+        }
+    }
+
+    @Test
+    public void narrowsThePreviousHitsWhileTyping() {
+        IncrementalFilter filter = new IncrementalFilter(Arrays.asList("대한민국", "대학교", "한국", "대한"));
+        assertEquals(3, filter.filter("ㄷ"));
+        assertFalse(filter.isIncremental());
+        assertEquals(3, filter.filter("대"));
+        assertTrue(filter.isIncremental());
+        assertEquals(2, filter.filter("대한"));
+        assertEquals(3, filter.getCheckedCount());
+        assertEquals(1, filter.filter("대한민"));
+        assertEquals(2, filter.getCheckedCount());
+        assertEquals(0, filter.getHit(0));
+
+        // deleting widens the result, so every entry is checked again
+        assertEquals(2, filter.filter("대한"));
+        assertFalse(filter.isIncremental());
+        assertEquals(4, filter.getCheckedCount());
+    }
+
+    @Test
+    public void fallsBackToAFullQueryAfterADeletion() {
+        List<String> entries = Arrays.asList("대한민국", "대학교", "한국", "대한", "하늘");
+        IncrementalFilter filter = new IncrementalFilter(entries);
+        assertEquals(1, filter.filter("대한민"));
+
+        // a jamo deleted inside a syllable: 한 -> 하 drops the ㄴ key
+        assertEquals(Arrays.asList(0, 1, 3), filterAndList(filter, "대하"));
+        assertFalse(filter.isIncremental());
+        assertEquals(entries.size(), filter.getCheckedCount());
+
+        // typing again narrows the widened result, not the one before the deletion
+        assertEquals(Arrays.asList(1), filterAndList(filter, "대학"));
+        assertTrue(filter.isIncremental());
+        assertEquals(3, filter.getCheckedCount());
+
+        // a replaced jamo does not extend the previous keys either
+        assertEquals(Arrays.asList(0, 3), filterAndList(filter, "대한"));
+        assertFalse(filter.isIncremental());
+
+        // deleting everything matches every entry
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), filterAndList(filter, ""));
+        assertFalse(filter.isIncremental());
+        assertEquals(Arrays.asList(4), filterAndList(filter, "늘"));
+        assertTrue(filter.isIncremental());
+        assertEquals(entries.size(), filter.getCheckedCount());
+
+        // after reset even a narrowing query checks every entry
+        filter.reset();
+        assertEquals(Arrays.asList(4), filterAndList(filter, "하늘"));
+        assertFalse(filter.isIncremental());
+        assertEquals(entries.size(), filter.getCheckedCount());
+    }
+
+    private static List<Integer> filterAndList(IncrementalFilter filter, String text) {
+        filter.filter(text);
+        return hits(filter);
+    }
+}
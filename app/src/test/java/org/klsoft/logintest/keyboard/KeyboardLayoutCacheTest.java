@@ -0,0 +1,110 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keys and reuse of the layout cache. The executor runs the layouts inline and counts them, so a
+ * count that does not move means the layout came from the cache.
+ */
+public class KeyboardLayoutCacheTest {
+
+    private static final class CountingExecutor extends AbstractExecutorService {
+        int executed;
+
+        @Override
+        public void execute(Runnable command) {
+            executed++;
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    @Test
+    public void packsEveryFieldIntoItsOwnBits() {
+        assertEquals(3L << 60 | 1L << 56 | 480L << 40 | 1080L << 20 | 1920L,
+                KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.SYMBOL, 1, 1080, 1920, 480));
+        // the language sits in the top bits, past the reach of an int shift
+        assertEquals(1L << 60, KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.KOREA, 0, 0, 0, 0));
+        assertEquals(0xFFFFFL << 20, KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.ENGLISH, 0, 0xFFFFF, 0, 0));
+
+        long key = KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.KOREA, 0, 1080, 1920, 480);
+        assertNotEquals(key, KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.KOREA_SHIFT, 0, 1080, 1920, 480));
+        assertNotEquals(key, KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.KOREA, 1, 1080, 1920, 480));
+        assertNotEquals(key, KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.KOREA, 0, 1920, 1080, 480));
+        assertNotEquals(key, KeyboardLayoutCache.key(KeyboardLayout.LanguageKey.KOREA, 0, 1080, 1920, 420));
+    }
+
+    @Test
+    public void computesEachLayoutOnce() {
+        CountingExecutor executor = new CountingExecutor();
+        KeyboardLayoutCache cache = new KeyboardLayoutCache(executor);
+        cache.prepare(0, 1080, 1920, 480);
+        assertEquals(KeyboardLayout.LanguageKey.values().length, executor.executed);
+
+        KeyboardLayout korea = cache.get(KeyboardLayout.LanguageKey.KOREA, 0, 1080, 1920, 480);
+        assertSame(korea, cache.get(KeyboardLayout.LanguageKey.KOREA, 0, 1080, 1920, 480));
+        cache.prepare(0, 1080, 1920, 480);
+        assertEquals(KeyboardLayout.LanguageKey.values().length, executor.executed);
+        assertSame(KeyboardLayout.LanguageKey.KOREA, korea.getLanguageKey());
+        assertEquals(108, korea.getDefaultKeyWidth());
+
+        // the rotated screen and another density are other keys
+        KeyboardLayout rotated = cache.get(KeyboardLayout.LanguageKey.KOREA, 1, 1920, 1080, 480);
+        assertNotSame(korea, rotated);
+        assertEquals(192, rotated.getDefaultKeyWidth());
+        assertNotSame(korea, cache.get(KeyboardLayout.LanguageKey.KOREA, 0, 1080, 1920, 420));
+        assertEquals(KeyboardLayout.LanguageKey.values().length + 2, executor.executed);
+    }
+
+    @Test
+    public void startsOverPastThirtyTwoLayouts() {
+        CountingExecutor executor = new CountingExecutor();
+        KeyboardLayoutCache cache = new KeyboardLayoutCache(executor);
+        KeyboardLayout first = cache.get(KeyboardLayout.LanguageKey.ENGLISH, 0, 1000, 1000, 480);
+        // 4 layouts per screen, the first screen and 7 more fill the cache
+        cache.prepare(0, 1000, 1000, 480);
+        for (int width = 1001; width < 1008; width++) {
+            cache.prepare(0, width, 1000, 480);
+        }
+        assertEquals(32, executor.executed);
+        assertSame(first, cache.get(KeyboardLayout.LanguageKey.ENGLISH, 0, 1000, 1000, 480));
+
+        // a 33rd layout empties the cache first
+        cache.get(KeyboardLayout.LanguageKey.ENGLISH, 0, 2000, 1000, 480);
+        assertEquals(33, executor.executed);
+        KeyboardLayout again = cache.get(KeyboardLayout.LanguageKey.ENGLISH, 0, 1000, 1000, 480);
+        assertNotSame(first, again);
+        assertEquals(34, executor.executed);
+        assertSame(again, cache.get(KeyboardLayout.LanguageKey.ENGLISH, 0, 1000, 1000, 480));
+    }
+}
@@ -0,0 +1,163 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Key order, geometry and shuffle groups of the precomputed layouts, on a 1080 x 1920 screen
+ * (108 px keys, 128 px rows) unless said otherwise.
+ */
+public class KeyboardLayoutTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private static KeyboardLayout layout(KeyboardLayout.LanguageKey languageKey) {
+        return new KeyboardLayout(languageKey, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void keepsTheKeysInRowOrder() {
+        KeyboardLayout english = layout(KeyboardLayout.LanguageKey.ENGLISH);
+        assertEquals(47, english.getKeyCount());
+        assertTrue(english.getKeyString().startsWith("1234567890abcdefghijklmnopqrs "));
+        assertEquals('t', english.getKey(31));
+        assertEquals(',', english.getKey(41));
+        assertEquals('.', english.getKey(44));
+
+        assertEquals(30, english.getShiftKeyIndex());
+        assertEquals(38, english.getDeleteKeyIndex());
+        assertEquals(40, english.getSymbolKeyIndex());
+        assertEquals(42, english.getLanguageKeyIndex());
+        assertEquals(43, english.getSpaceKeyIndex());
+        assertEquals(46, english.getEnterKeyIndex());
+        assertEquals(KeyboardLayout.SPACE_KEY_CODE, english.getKey(english.getSpaceKeyIndex()));
+
+        // the symbol keyboard has its delete key after the placeholder
+        KeyboardLayout symbol = layout(KeyboardLayout.LanguageKey.SYMBOL);
+        assertEquals(39, symbol.getDeleteKeyIndex());
+        assertEquals('₩', symbol.getKey(19));
+    }
+
+    @Test
+    public void leavesEveryShuffledKeyOfTheKoreanLayoutAsALetterSlot() {
+        for (KeyboardLayout.LanguageKey languageKey : new KeyboardLayout.LanguageKey[]{
+                KeyboardLayout.LanguageKey.KOREA, KeyboardLayout.LanguageKey.KOREA_SHIFT}) {
+            KeyboardLayout korea = layout(languageKey);
+            assertTrue(korea.isKorean());
+            boolean[] shuffled = shuffledKeys(korea);
+            int letters = 0;
+            for (int i = 0; i < korea.getKeyCount(); i++) {
+                boolean letter = korea.getKey(i) == KeyboardLayout.LETTER_KEY_CODE;
+                assertEquals("key " + i, shuffled[i], letter);
+                if (letter)
+                    letters++;
+            }
+            assertEquals(HangulLayout.LETTER_KEY_COUNT, letters);
+            assertEquals(layout(KeyboardLayout.LanguageKey.ENGLISH).getSpaceKeyIndex(), korea.getSpaceKeyIndex());
+        }
+        assertFalse(layout(KeyboardLayout.LanguageKey.ENGLISH).isKorean());
+        assertFalse(layout(KeyboardLayout.LanguageKey.SYMBOL).isKorean());
+    }
+
+    @Test
+    public void shufflesTheDigitRowApartFromTheOtherKeys() {
+        for (KeyboardLayout.LanguageKey languageKey : KeyboardLayout.LanguageKey.values()) {
+            KeyboardLayout layout = layout(languageKey);
+            assertEquals(2, layout.getShuffleGroupCount());
+            assertEquals(10, layout.getShuffleGroupSize(0));
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, layout.getShuffledPosition(0, i));
+            }
+            // 19 + 7 letters or symbols, then ',' and '.'
+            assertEquals(28, layout.getShuffleGroupSize(1));
+            for (int i = 0; i < 28; i++) {
+                int position = layout.getShuffledPosition(1, i);
+                assertTrue(position >= 10);
+                assertFalse(layout.isHidden(position));
+                if (i > 0)
+                    assertTrue(position > layout.getShuffledPosition(1, i - 1));
+            }
+            boolean[] shuffled = shuffledKeys(layout);
+            assertFalse(shuffled[layout.getShiftKeyIndex()]);
+            assertFalse(shuffled[layout.getDeleteKeyIndex()]);
+            assertFalse(shuffled[layout.getSymbolKeyIndex()]);
+            assertFalse(shuffled[layout.getLanguageKeyIndex()]);
+            assertFalse(shuffled[layout.getSpaceKeyIndex()]);
+            assertFalse(shuffled[layout.getEnterKeyIndex()]);
+        }
+    }
+
+    @Test
+    public void placesTheKeysOfEachRow() {
+        KeyboardLayout english = layout(KeyboardLayout.LanguageKey.ENGLISH);
+        assertEquals(108, english.getDefaultKeyWidth());
+        assertEquals(128, english.getDefaultKeyHeight());
+        for (int i = 0; i < 10; i++) {
+            assertKey(english, i, i * 108, 108);
+            assertKey(english, 10 + i, i * 108, 108);
+        }
+        // the third row is indented by half a key
+        for (int i = 0; i < 9; i++) {
+            assertKey(english, 20 + i, 54 + i * 108, 108);
+        }
+        // shift and delete are one and a half keys wide
+        assertKey(english, 30, 0, 162);
+        for (int i = 0; i < 7; i++) {
+            assertKey(english, 31 + i, 162 + i * 108, 108);
+        }
+        assertKey(english, 38, 918, 162);
+        // the space key takes what the others leave
+        assertKey(english, 40, 0, 162);
+        assertKey(english, 41, 162, 108);
+        assertKey(english, 42, 270, 162);
+        assertKey(english, 43, 432, 324);
+        assertKey(english, 44, 756, 108);
+        assertKey(english, 46, 864, 216);
+    }
+
+    @Test
+    public void roundsTheKeySizeUpToFillTheScreen() {
+        KeyboardLayout english = new KeyboardLayout(KeyboardLayout.LanguageKey.ENGLISH, 768, 1281);
+        assertEquals(77, english.getDefaultKeyWidth());
+        assertEquals(86, english.getDefaultKeyHeight());
+        assertKey(english, 9, 9 * 77, 77);
+        assertKey(english, 20, 38, 77);
+    }
+
+    @Test
+    public void hidesThePlaceholdersThatEndAShortRow() {
+        KeyboardLayout english = layout(KeyboardLayout.LanguageKey.ENGLISH);
+        for (int i = 0; i < english.getKeyCount(); i++) {
+            assertEquals("key " + i, i == 29 || i == 39 || i == 45, english.isHidden(i));
+        }
+        assertEquals(0, english.getKeyWidth(29));
+        assertEquals(0, english.getKeyWidth(39));
+        assertEquals(0, english.getKeyWidth(45));
+        // the placeholders of the last two rows take no space, the enter key follows the '.' key
+        assertEquals(english.getKeyX(45), english.getKeyX(46));
+
+        KeyboardLayout symbol = layout(KeyboardLayout.LanguageKey.SYMBOL);
+        assertTrue(symbol.isHidden(38));
+        assertEquals(0, symbol.getKeyWidth(38));
+        assertKey(symbol, 39, 918, 162);
+    }
+
+    private static boolean[] shuffledKeys(KeyboardLayout layout) {
+        boolean[] shuffled = new boolean[layout.getKeyCount()];
+        for (int group = 0; group < layout.getShuffleGroupCount(); group++) {
+            for (int i = 0; i < layout.getShuffleGroupSize(group); i++) {
+                int position = layout.getShuffledPosition(group, i);
+                assertFalse("shuffled twice: " + position, shuffled[position]);
+                shuffled[position] = true;
+            }
+        }
+        return shuffled;
+    }
+
+    private static void assertKey(KeyboardLayout layout, int index, int x, int width) {
+        assertEquals("x of key " + index, x, layout.getKeyX(index));
+        assertEquals("width of key " + index, width, layout.getKeyWidth(index));
+    }
+}
@@ -0,0 +1,172 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Draw calls per frame of the keyboard renderer, counted on a fake surface laid out like the
+ * 47-key keyboard: a full frame draws every visible key once, a press redraws one key, and labels
+ * are measured only when they change.
+ */
+public class KeyboardRendererTest {
+
+    private static final int KEY_WIDTH = 108;
+    private static final int KEY_HEIGHT = 131;
+    private static final int COLUMNS = 10;
+    private static final int KEY_COUNT = 47;
+    // placeholders of the template, drawn with no height
+    private static final int[] HIDDEN_KEYS = {29, 39, 45};
+    private static final int ICON_KEY = 30;
+
+    private static final class CountingSurface implements KeyboardRenderer.Surface {
+
+        int measures;
+        int backgrounds;
+        int pressedBackgrounds;
+        int icons;
+        int labels;
+
+        @Override
+        public float measureText(String label, boolean isSmall) {
+            measures++;
+            return label.length() * 10;
+        }
+
+        @Override
+        public void drawBackground(int x, int y, int width, int height, boolean isPressed) {
+            backgrounds++;
+            if (isPressed)
+                pressedBackgrounds++;
+        }
+
+        @Override
+        public void drawIcon(int key, int x, int y, int width, int height) {
+            icons++;
+        }
+
+        @Override
+        public void drawLabel(String label, boolean isSmall, float x, float y) {
+            labels++;
+        }
+
+        int drawCalls() {
+            return backgrounds + icons + labels;
+        }
+
+        void reset() {
+            measures = backgrounds = pressedBackgrounds = icons = labels = 0;
+        }
+    }
+
+    private static final String[] LABELS = new String[KEY_COUNT];
+
+    static {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            LABELS[i] = String.valueOf((char) ('a' + i % 26));
+        }
+    }
+
+    private static boolean isHidden(int key) {
+        for (int hidden : HIDDEN_KEYS) {
+            if (hidden == key) return true;
+        }
+        return false;
+    }
+
+    private static KeyboardRenderer newRenderer() {
+        KeyboardRenderer renderer = new KeyboardRenderer();
+        renderer.setKeyCount(KEY_COUNT);
+        renderer.setTextOffsets(8, 5);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            setKey(renderer, i, LABELS[i]);
+        }
+        return renderer;
+    }
+
+    private static void setKey(KeyboardRenderer renderer, int i, String label) {
+        renderer.setKey(i, (i % COLUMNS) * KEY_WIDTH, (i / COLUMNS) * KEY_HEIGHT,
+                isHidden(i) ? 0 : KEY_WIDTH, isHidden(i) ? 0 : KEY_HEIGHT,
+                i == ICON_KEY ? null : label, i == ICON_KEY);
+    }
+
+    private static int drawAll(KeyboardRenderer renderer, CountingSurface surface) {
+        return renderer.draw(surface, 0, 0, COLUMNS * KEY_WIDTH, 5 * KEY_HEIGHT);
+    }
+
+    private static int drawKey(KeyboardRenderer renderer, CountingSurface surface, int key) {
+        int x = (key % COLUMNS) * KEY_WIDTH;
+        int y = (key / COLUMNS) * KEY_HEIGHT;
+        return renderer.draw(surface, x, y, x + KEY_WIDTH, y + KEY_HEIGHT);
+    }
+
+    @Test
+    public void fullFrameDrawsEachVisibleKeyOnce() {
+        KeyboardRenderer renderer = newRenderer();
+        CountingSurface surface = new CountingSurface();
+        int visible = KEY_COUNT - HIDDEN_KEYS.length;
+
+        assertEquals(visible, drawAll(renderer, surface));
+        assertEquals(visible, surface.backgrounds);
+        assertEquals(1, surface.icons);
+        assertEquals(visible - 1, surface.labels);
+        assertEquals(2 * visible, surface.drawCalls());
+        assertEquals(visible - 1, surface.measures);
+    }
+
+    @Test
+    public void labelsAreMeasuredOnlyWhenTheyChange() {
+        KeyboardRenderer renderer = newRenderer();
+        CountingSurface surface = new CountingSurface();
+        drawAll(renderer, surface);
+
+        surface.reset();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            setKey(renderer, i, LABELS[i]);
+        }
+        drawAll(renderer, surface);
+        assertEquals(0, surface.measures);
+
+        surface.reset();
+        setKey(renderer, 12, "z");
+        drawAll(renderer, surface);
+        assertEquals(1, surface.measures);
+
+        surface.reset();
+        renderer.setShifted(true);
+        drawAll(renderer, surface);
+        assertEquals(KEY_COUNT - HIDDEN_KEYS.length - 1, surface.measures);
+    }
+
+    @Test
+    public void pressRedrawsOnlyTheDirtyKey() {
+        KeyboardRenderer renderer = newRenderer();
+        CountingSurface surface = new CountingSurface();
+        drawAll(renderer, surface);
+
+        surface.reset();
+        renderer.setPressedKey(15);
+        assertEquals(1, drawKey(renderer, surface, 15));
+        assertEquals(2, surface.drawCalls());
+        assertEquals(1, surface.pressedBackgrounds);
+        assertEquals(0, surface.measures);
+
+        surface.reset();
+        renderer.setPressedKey(-1);
+        assertEquals(1, drawKey(renderer, surface, 15));
+        assertEquals(0, surface.pressedBackgrounds);
+    }
+
+    @Test
+    public void hiddenKeysAreNeverDrawn() {
+        KeyboardRenderer renderer = newRenderer();
+        CountingSurface surface = new CountingSurface();
+        for (int hidden : HIDDEN_KEYS) {
+            int x = (hidden % COLUMNS) * KEY_WIDTH;
+            int y = (hidden / COLUMNS) * KEY_HEIGHT;
+            // the clip covers only the placeholder's slot
+            assertEquals(0, renderer.draw(surface, x, y, x + KEY_WIDTH, y + KEY_HEIGHT));
+        }
+        assertEquals(0, surface.drawCalls());
+    }
+}
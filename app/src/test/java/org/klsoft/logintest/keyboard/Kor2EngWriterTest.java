@@ -0,0 +1,88 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streaming kor->eng conversion written in random chunk sizes must match the whole-string
+ * conversion, and nothing reaches the target before flush or a full buffer.
+ */
+public class Kor2EngWriterTest {
+
+    private static void writeRandomly(Writer writer, String kor, Random random) throws IOException {
+        char[] chars = kor.toCharArray();
+        for (int i = 0; i < chars.length; ) {
+            int n = Math.min(chars.length - i, 1 + random.nextInt(40));
+            switch (random.nextInt(3)) {
+                case 0:
+                    writer.write(chars[i]);
+                    n = 1;
+                    break;
+                case 1:
+                    writer.write(chars, i, n);
+                    break;
+                default:
+                    writer.write(kor, i, n);
+                    break;
+            }
+            i += n;
+        }
+    }
+
+    @Test
+    public void matchesConvertKor2Eng() throws IOException {
+        Random random = new Random(6);
+        for (int round = 0; round < 20; round++) {
+            String kor = Eng2KorReaderTest.randomKorean(random, 500 + random.nextInt(2000));
+            StringWriter target = new StringWriter();
+            Writer writer = new Kor2EngWriter(target, 5 + random.nextInt(100));
+            writeRandomly(writer, kor, random);
+            writer.close();
+            assertEquals(EngKorTypingConvertor.convertKor2Eng(kor), target.toString());
+        }
+    }
+
+    @Test
+    public void roundTripsThroughTheReader() throws IOException {
+        String kor = Eng2KorReaderTest.randomKorean(new Random(7), 20000);
+        StringWriter target = new StringWriter();
+        try (Writer writer = new Kor2EngWriter(target)) {
+            writeRandomly(writer, kor, new Random(8));
+        }
+        String eng = target.toString();
+        StringBuilder back = new StringBuilder();
+        try (Eng2KorReader reader = new Eng2KorReader(new Eng2KorReaderTest.OneCharReader(eng), 16, false)) {
+            for (int c; (c = reader.read()) >= 0; ) {
+                back.append((char) c);
+            }
+        }
+        assertEquals(EngKorTypingConvertor.convertEng2Kor(eng), back.toString());
+    }
+
+    @Test
+    public void buffersUntilFlush() throws IOException {
+        StringWriter target = new StringWriter();
+        Writer writer = new Kor2EngWriter(target);
+        writer.write("한글");
+        assertEquals("", target.toString());
+        writer.flush();
+        assertEquals("gksrmf", target.toString());
+    }
+
+    @Test
+    public void writesFullBlocksWithoutFlush() throws IOException {
+        StringWriter target = new StringWriter();
+        Writer writer = new Kor2EngWriter(target, 8);
+        writer.write("한글한글");
+        assertTrue(target.toString().length() > 0);
+        assertTrue("gksrmfgksrmf".startsWith(target.toString()));
+        writer.close();
+        assertEquals("gksrmfgksrmf", target.toString());
+    }
+}
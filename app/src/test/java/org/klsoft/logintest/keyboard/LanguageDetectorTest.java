@@ -0,0 +1,163 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * LanguageDetector over a model built in memory by LanguageModelBuilder from two small corpora,
+ * and over hand-made models whose costs are flat, to pin the margin.
+ */
+public class LanguageDetectorTest {
+
+    private static final String ENGLISH = "the keyboard is on the table\n"
+            + "type a word and the board shows it\n"
+            + "keys and words are typed on a keyboard every day\n";
+    private static final String KOREAN = "한글 자판으로 글을 입력한다\n"
+            + "한글과 영어를 함께 쓰는 사람이 많다\n"
+            + "글자를 잘못 입력하면 한글로 바꾼다\n";
+
+    private static LanguageDetector detector;
+
+    @BeforeClass
+    public static void buildModel() throws IOException {
+        ByteArrayOutputStream model = new ByteArrayOutputStream();
+        LanguageModelBuilder.write(new BufferedReader(new StringReader(ENGLISH)),
+                new BufferedReader(new StringReader(KOREAN)), model);
+        assertEquals(LanguageDetector.MODEL_SIZE, model.size());
+        detector = new LanguageDetector(ByteBuffer.wrap(model.toByteArray()));
+    }
+
+    private static LanguageDetector.Language detect(LanguageDetector detector, String keys) {
+        return detector.detect(keys, 0, keys.length());
+    }
+
+    /**
+     * every English trigram costs english, every Korean one korean
+     */
+    private static LanguageDetector flatModel(int english, int korean) {
+        byte[] model = new byte[LanguageDetector.MODEL_SIZE];
+        ByteBuffer.wrap(model)
+                .putInt(LanguageDetector.MAGIC)
+                .putInt(LanguageDetector.VERSION)
+                .putInt(LanguageDetector.ENGLISH_SYMBOLS)
+                .putInt(LanguageDetector.KOREAN_SYMBOLS);
+        int englishEnd = LanguageDetector.HEADER_SIZE + LanguageDetector.ENGLISH_TABLE_SIZE;
+        Arrays.fill(model, LanguageDetector.HEADER_SIZE, englishEnd, (byte) english);
+        Arrays.fill(model, englishEnd, model.length, (byte) korean);
+        return new LanguageDetector(ByteBuffer.wrap(model));
+    }
+
+    @Test
+    public void detectsHangulTypedOnTheEnglishKeyboard() {
+        // 한글
+        assertEquals(LanguageDetector.Language.KOREAN, detect(detector, "gksrmf"));
+        // 입력
+        assertEquals(LanguageDetector.Language.KOREAN, detect(detector, "dlqfur"));
+    }
+
+    @Test
+    public void detectsEnglish() {
+        assertEquals(LanguageDetector.Language.ENGLISH, detect(detector, "keyboard"));
+        assertEquals(LanguageDetector.Language.ENGLISH, detect(detector, "KEYBOARD"));
+        assertEquals(LanguageDetector.Language.ENGLISH, detect(detector, "the"));
+    }
+
+    @Test
+    public void detectsOnlyTheGivenRange() {
+        assertEquals(LanguageDetector.Language.KOREAN, detector.detect("the gksrmf", 4, 10));
+        assertEquals(LanguageDetector.Language.ENGLISH, detector.detect("gksrmf keyboard", 7, 15));
+    }
+
+    @Test
+    public void leavesShortLongAndNonLetterTokensUnknown() {
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(detector, ""));
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(detector, "g"));
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(detector, "한글"));
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(detector, "gks1rmf"));
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(detector, "key-board"));
+
+        StringBuilder keys = new StringBuilder();
+        while (keys.length() <= LanguageDetector.MAX_TOKEN_LENGTH) keys.append("gksrmf");
+        assertEquals(LanguageDetector.Language.KOREAN,
+                detector.detect(keys, 0, LanguageDetector.MAX_TOKEN_LENGTH - 2));
+        assertEquals(LanguageDetector.Language.UNKNOWN,
+                detector.detect(keys, 0, LanguageDetector.MAX_TOKEN_LENGTH + 1));
+    }
+
+    @Test
+    public void needsMoreThanOneBitPerKeyToDecide() {
+        // "gksrmf" is 6 keys, and 한글 is 6 jamo: both sides add 7 costs, the margin is 8 x 7
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(flatModel(20, 20), "gksrmf"));
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(flatModel(28, 20), "gksrmf"));
+        assertEquals(LanguageDetector.Language.KOREAN, detect(flatModel(29, 20), "gksrmf"));
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(flatModel(20, 28), "gksrmf"));
+        assertEquals(LanguageDetector.Language.ENGLISH, detect(flatModel(20, 29), "gksrmf"));
+        // the costs are read as unsigned bytes
+        assertEquals(LanguageDetector.Language.KOREAN, detect(flatModel(0xFF, 0), "gksrmf"));
+    }
+
+    @Test
+    public void mapsJamoToContiguousSymbols() {
+        assertEquals(0, LanguageDetector.koreanSymbol('x'));
+        assertEquals(1, LanguageDetector.koreanSymbol(EngKorTypingConvertor.JAMO_CHOSUNG));
+        assertEquals(19, LanguageDetector.koreanSymbol(EngKorTypingConvertor.JAMO_CHOSUNG | 18));
+        assertEquals(20, LanguageDetector.koreanSymbol(EngKorTypingConvertor.JAMO_JUNGSUNG));
+        assertEquals(40, LanguageDetector.koreanSymbol(EngKorTypingConvertor.JAMO_JUNGSUNG | 20));
+        // jongsung 0 is "no jongsung" and is never decomposed
+        assertEquals(41, LanguageDetector.koreanSymbol(EngKorTypingConvertor.JAMO_JONGSUNG | 1));
+        assertEquals(LanguageDetector.KOREAN_SYMBOLS - 1,
+                LanguageDetector.koreanSymbol(EngKorTypingConvertor.JAMO_JONGSUNG | 27));
+
+        assertEquals(0, LanguageDetector.englishSymbol('1'));
+        assertEquals(1, LanguageDetector.englishSymbol('a'));
+        assertEquals(26, LanguageDetector.englishSymbol('Z'));
+    }
+
+    @Test
+    public void rejectsAnythingButAModel() {
+        byte[] model = new byte[LanguageDetector.MODEL_SIZE];
+        ByteBuffer header = ByteBuffer.wrap(model)
+                .putInt(LanguageDetector.MAGIC)
+                .putInt(LanguageDetector.VERSION)
+                .putInt(LanguageDetector.ENGLISH_SYMBOLS)
+                .putInt(LanguageDetector.KOREAN_SYMBOLS);
+        new LanguageDetector(ByteBuffer.wrap(model));
+
+        assertRejected(Arrays.copyOf(model, LanguageDetector.MODEL_SIZE - 1));
+        for (int offset = 0; offset < LanguageDetector.HEADER_SIZE; offset += 4) {
+            byte[] corrupt = model.clone();
+            ByteBuffer.wrap(corrupt).putInt(offset, header.getInt(offset) + 1);
+            assertRejected(corrupt);
+        }
+    }
+
+    @Test
+    public void readsTheModelFromTheBufferPosition() {
+        byte[] model = new byte[LanguageDetector.MODEL_SIZE + 3];
+        ByteBuffer buffer = ByteBuffer.wrap(model);
+        buffer.position(3);
+        buffer.duplicate()
+                .putInt(LanguageDetector.MAGIC)
+                .putInt(LanguageDetector.VERSION)
+                .putInt(LanguageDetector.ENGLISH_SYMBOLS)
+                .putInt(LanguageDetector.KOREAN_SYMBOLS);
+        assertEquals(LanguageDetector.Language.UNKNOWN, detect(new LanguageDetector(buffer), "gksrmf"));
+    }
+
+    private static void assertRejected(byte[] model) {
+        try {
+            new LanguageDetector(ByteBuffer.wrap(model));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
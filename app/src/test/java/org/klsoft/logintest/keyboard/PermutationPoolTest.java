@@ -0,0 +1,93 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Uniformity of the keyboard layout shuffle. The SecureRandom is seeded (SHA1PRNG) so the
+ * chi-square statistics are reproducible; the bounds are the 0.1% critical values.
+ */
+public class PermutationPoolTest {
+
+    // chi-square critical values at p = 0.001
+    private static final double CHI_SQUARE_23 = 49.73;
+    private static final double CHI_SQUARE_35 = 66.62;
+
+    private static SecureRandom seededRandom() throws NoSuchAlgorithmException {
+        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+        random.setSeed(20201017L);
+        return random;
+    }
+
+    @Test
+    public void allPermutationsOfFourAreEquallyLikely() throws NoSuchAlgorithmException {
+        PermutationPool pool = new PermutationPool(4, 8, seededRandom(), Runnable::run);
+        int draws = 24 * 1000;
+        int[] counts = new int[256];
+        int[] permutation = new int[4];
+        for (int n = 0; n < draws; n++) {
+            pool.next(permutation);
+            counts[permutation[0] << 6 | permutation[1] << 4 | permutation[2] << 2 | permutation[3]]++;
+        }
+        int distinct = 0;
+        double chiSquare = 0;
+        for (int count : counts) {
+            if (count == 0) continue;
+            distinct++;
+            chiSquare += (count - 1000.0) * (count - 1000.0) / 1000.0;
+        }
+        assertEquals(24, distinct);
+        assertTrue("chi-square " + chiSquare, chiSquare < CHI_SQUARE_23);
+    }
+
+    @Test
+    public void everyKeyIsEquallyLikelyAtEveryPosition() throws NoSuchAlgorithmException {
+        int size = 36;
+        PermutationPool pool = new PermutationPool(size, 8, seededRandom(), Runnable::run);
+        int draws = size * 1000;
+        int[][] counts = new int[size][size];
+        int[] permutation = new int[size];
+        for (int n = 0; n < draws; n++) {
+            pool.next(permutation);
+            boolean[] seen = new boolean[size];
+            for (int position = 0; position < size; position++) {
+                assertFalse(seen[permutation[position]]);
+                seen[permutation[position]] = true;
+                counts[position][permutation[position]]++;
+            }
+        }
+        for (int position = 0; position < size; position++) {
+            double chiSquare = 0;
+            for (int key = 0; key < size; key++) {
+                double diff = counts[position][key] - 1000.0;
+                chiSquare += diff * diff / 1000.0;
+            }
+            assertTrue("position " + position + " chi-square " + chiSquare, chiSquare < CHI_SQUARE_35);
+        }
+    }
+
+    @Test
+    public void drainedPoolShufflesOnTheCallerThread() throws NoSuchAlgorithmException {
+        List<Runnable> pending = new ArrayList<>();
+        Executor never = pending::add;
+        PermutationPool pool = new PermutationPool(10, 2, seededRandom(), never);
+        int[] permutation = new int[10];
+        pool.next(permutation);
+        int sum = 0;
+        for (int key : permutation) sum += key;
+        assertEquals(45, sum);
+        assertEquals(1, pending.size());
+
+        pending.get(0).run();
+        pool.next(permutation);
+        pool.next(permutation);
+        assertEquals(2, pending.size());
+    }
+}
@@ -0,0 +1,147 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * SpellIndexBuilder -> mapped index -> SpellCorrector, checked against a brute-force OSA scan
+ * over the same lexicon. Frequencies are distinct, so the expected order is unique.
+ */
+public class SpellCorrectorTest {
+
+    private static final int WORDS = 2000;
+    private static final int QUERIES = 500;
+    private static final int RESULTS = 5;
+
+    private static final class Word {
+        final String text;
+        final char[] jamo;
+        final int frequency;
+
+        Word(String text, int frequency) {
+            this.text = text;
+            this.jamo = decompose(text);
+            this.frequency = frequency;
+        }
+    }
+
+    private static char[] decompose(String text) {
+        char[] jamo = new char[text.length() * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        return Arrays.copyOf(jamo, EngKorTypingConvertor.decomposeJamo(text, 0, text.length(), jamo, 0, null));
+    }
+
+    private static char syllable(Random random) {
+        // a quarter of the syllables is drawn from a few, so that words share their jamo
+        int bound = random.nextInt(4) == 0 ? 28 * 20 : EngKorTypingConvertor.TOTAL_HANGUL_CHAR;
+        return (char) (EngKorTypingConvertor.HANGUL_CHAR_START_CODE + random.nextInt(bound));
+    }
+
+    private static List<Word> lexicon(Random random) {
+        Set<String> texts = new LinkedHashSet<>();
+        while (texts.size() < WORDS) {
+            char[] word = new char[1 + random.nextInt(4)];
+            for (int i = 0; i < word.length; i++) word[i] = syllable(random);
+            texts.add(new String(word));
+        }
+        List<Word> words = new ArrayList<>();
+        int frequency = 1;
+        for (String text : texts) words.add(new Word(text, frequency++));
+        return words;
+    }
+
+    private static SpellCorrector build(List<Word> words, int maxDistance) throws IOException {
+        SpellIndexBuilder builder = new SpellIndexBuilder(maxDistance);
+        for (Word word : words) assertTrue(builder.add(word.text, word.frequency));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.write(out);
+        return new SpellCorrector(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * Optimal string alignment distance, the metric SpellCorrector ranks by.
+     */
+    private static int distance(char[] a, char[] b) {
+        int[][] d = new int[a.length + 1][b.length + 1];
+        for (int i = 0; i <= a.length; i++) d[i][0] = i;
+        for (int j = 0; j <= b.length; j++) d[0][j] = j;
+        for (int i = 1; i <= a.length; i++) {
+            for (int j = 1; j <= b.length; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a[i - 1] == b[j - 2] && a[i - 2] == b[j - 1])
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+            }
+        }
+        return d[a.length][b.length];
+    }
+
+    private static List<String> bruteForce(List<Word> words, String query, int maxDistance) {
+        char[] jamo = decompose(query);
+        List<Word> found = new ArrayList<>();
+        List<Integer> distances = new ArrayList<>();
+        for (Word word : words) {
+            int distance = distance(jamo, word.jamo);
+            if (distance <= maxDistance) {
+                found.add(word);
+                distances.add(distance);
+            }
+        }
+        Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.<Integer>comparingInt(distances::get)
+                .thenComparing(i -> -found.get(i).frequency));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < order.length && i < RESULTS; i++) expected.add(found.get(order[i]).text);
+        return expected;
+    }
+
+    private static String misspell(Random random, String word) {
+        char[] chars = word.toCharArray();
+        chars[random.nextInt(chars.length)] = syllable(random);
+        return new String(chars);
+    }
+
+    @Test
+    public void matchesABruteForceScan() throws IOException {
+        Random random = new Random(12);
+        List<Word> words = lexicon(random);
+        for (int maxDistance = 1; maxDistance <= SpellIndexBuilder.DEFAULT_MAX_DISTANCE; maxDistance++) {
+            SpellCorrector corrector = build(words, maxDistance);
+            String[] out = new String[RESULTS];
+            for (int q = 0; q < QUERIES; q++) {
+                String word = words.get(random.nextInt(WORDS)).text;
+                String query = q % 4 == 0 ? word : misspell(random, word);
+                int count = corrector.correct(query, 0, query.length(), out);
+                assertEquals(query, bruteForce(words, query, maxDistance), Arrays.asList(out).subList(0, count));
+            }
+        }
+    }
+
+    @Test
+    public void correctsOneJamo() throws IOException {
+        List<Word> words = Arrays.asList(new Word("한글", 10), new Word("한국", 20), new Word("할게", 5));
+        SpellCorrector corrector = build(words, 2);
+        String[] out = new String[RESULTS];
+
+        String query = "x한귿";
+        int count = corrector.correct(query, 1, query.length(), out);
+        assertTrue(count > 0);
+        assertEquals("한글", out[0]);
+
+        count = corrector.correct("한국", 0, 2, out);
+        assertEquals("한국", out[0]);
+        assertEquals(bruteForce(words, "한국", 2), Arrays.asList(out).subList(0, count));
+    }
+}
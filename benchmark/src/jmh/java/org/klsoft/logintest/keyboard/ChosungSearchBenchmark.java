@@ -0,0 +1,97 @@
+package org.klsoft.logintest.keyboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-query latency of ChosungSearchIndex (bigram postings) against a scan over the precomputed
+ * chosung strings of every entry, and the parallel index build time.
+ * <p>
+ * Entries are synthetic (seeded random 2-9 syllable strings, some with spaces), queries are
+ * 2-3 initial consonants taken from random entries. Both sides stop after RESULTS hits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChosungSearchBenchmark {
+
+    private static final int QUERIES = 256;
+    private static final int RESULTS = 20;
+
+    @Param({"100000"})
+    public int entryCount;
+
+    private List<String> entries;
+    private String[] chosungs;
+    private ChosungSearchIndex index;
+    private String[] queries;
+    private final char[] chosung = new char[3];
+    private final int[] out = new int[RESULTS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            char[] entry = new char[2 + random.nextInt(8)];
+            for (int j = 0; j < entry.length; j++) {
+                entry[j] = random.nextInt(10) == 0 ? ' ' : (char) (0xAC00 + random.nextInt(11172));
+            }
+            entries.add(new String(entry));
+        }
+        index = new ChosungSearchIndex(entries);
+        chosungs = new String[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            chosungs[i] = EngKorTypingConvertor.convertKor2Chosung(entries.get(i));
+        }
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String chosung;
+            do {
+                chosung = chosungs[random.nextInt(entryCount)].replace(" ", "");
+            } while (chosung.length() < 3);
+            queries[i] = chosung.substring(0, 2 + random.nextInt(2));
+        }
+    }
+
+    @Benchmark
+    public int indexSubstring() {
+        return index.search(queries[next++ & (QUERIES - 1)], false, chosung, out);
+    }
+
+    @Benchmark
+    public int indexPrefix() {
+        return index.search(queries[next++ & (QUERIES - 1)], true, chosung, out);
+    }
+
+    @Benchmark
+    public int scanSubstring() {
+        String query = queries[next++ & (QUERIES - 1)];
+        int found = 0;
+        for (int i = 0; i < chosungs.length && found < RESULTS; i++) {
+            if (chosungs[i].contains(query)) {
+                out[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ChosungSearchIndex build() {
+        return new ChosungSearchIndex(entries);
+    }
+}
@@ -0,0 +1,80 @@
+package org.klsoft.logintest.keyboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the eng<->kor conversion on realistic inputs.
+ * "legacy" runs LegacyEngKorTypingConvertor, the convertor before the table-driven rewrite, on the same input.
+ * Run with the gc profiler (the default in build.gradle) to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConvertorBenchmark {
+
+    public enum Input {
+        SHORT_WORD("한글"),
+        LONG_SENTENCE("안녕하세요. 오늘은 날씨가 정말 좋아서 공원에 산책하러 가고 싶어요. "
+                + "닭갈비와 볶음밥을 먹고, 괜찮으면 영화도 보러 갈까요?"),
+        MIXED("Android 키보드 version 2.0 업데이트 - 로그인 test 화면에서 확인, OK?"),
+        CONSONANT_RUN("ㄱㄱㄱㄱㄲㄲㄲㄴㄴㄴㄷㄷㄸㄸㄹㄹㄹㄺㄺㄻㅂㅂㅄㅄㅅㅅㅆㅆㅇㅇㅈㅈㅉㅉㅊㅋㅌㅍㅎㅎ");
+
+        final String kor;
+
+        Input(String kor) {
+            this.kor = kor;
+        }
+    }
+
+    @Param
+    public Input input;
+
+    private String kor;
+    private String eng;
+    private char[] buffer;
+
+    @Setup
+    public void setUp() {
+        kor = input.kor;
+        eng = EngKorTypingConvertor.convertKor2Eng(kor);
+        buffer = new char[eng.length()];
+        if (!LegacyEngKorTypingConvertor.convertEng2Kor(eng).equals(EngKorTypingConvertor.convertEng2Kor(eng))
+                || !LegacyEngKorTypingConvertor.convertKor2Eng(kor).equals(eng)) {
+            throw new IllegalStateException("legacy convertor differs on " + input);
+        }
+    }
+
+    @Benchmark
+    public String eng2Kor() {
+        return EngKorTypingConvertor.convertEng2Kor(eng);
+    }
+
+    @Benchmark
+    public int eng2KorIntoBuffer() {
+        return EngKorTypingConvertor.convertEng2Kor(eng, 0, eng.length(), buffer, 0, false);
+    }
+
+    @Benchmark
+    public String eng2KorLegacy() {
+        return LegacyEngKorTypingConvertor.convertEng2Kor(eng);
+    }
+
+    @Benchmark
+    public String kor2Eng() {
+        return EngKorTypingConvertor.convertKor2Eng(kor);
+    }
+
+    @Benchmark
+    public String kor2EngLegacy() {
+        return LegacyEngKorTypingConvertor.convertKor2Eng(kor);
+    }
+}
@@ -0,0 +1,73 @@
+package org.klsoft.logintest.keyboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a HanjaDictionary lookup (binary search over front-coded blocks in a memory-mapped file)
+ * for the candidates shown on a long press of space.
+ * <p>
+ * The dictionary is synthetic: 60000 seeded random 1-4 syllable words with random CJK candidates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HanjaDictionaryBenchmark {
+
+    private static final int WORDS = 60000;
+    private static final int QUERIES = 256;
+
+    private HanjaDictionary dictionary;
+    private String[] queries;
+    private final String[] out = new String[8];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        HanjaDictionaryBuilder builder = new HanjaDictionaryBuilder();
+        queries = new String[QUERIES];
+        for (int i = 0; i < WORDS; i++) {
+            char[] hangul = new char[1 + random.nextInt(4)];
+            char[] hanja = new char[hangul.length];
+            for (int j = 0; j < hangul.length; j++) {
+                hangul[j] = (char) (0xAC00 + random.nextInt(399) * 28);
+                hanja[j] = (char) (0x4E00 + random.nextInt(20000));
+            }
+            builder.add(new String(hangul), new String(hanja));
+            if (i < QUERIES) {
+                queries[i] = new String(hangul);
+            }
+        }
+        File file = File.createTempFile("hanja", ".bin");
+        file.deleteOnExit();
+        try (OutputStream output = new FileOutputStream(file)) {
+            builder.write(output);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            dictionary = new HanjaDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        System.out.println("dictionary " + file.length() + " B");
+    }
+
+    @Benchmark
+    public int lookup() {
+        String query = queries[next++ & (QUERIES - 1)];
+        return dictionary.lookup(query, 0, query.length(), out);
+    }
+}
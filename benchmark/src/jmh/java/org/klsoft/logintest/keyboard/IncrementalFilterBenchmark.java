@@ -0,0 +1,69 @@
+package org.klsoft.logintest.keyboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of filtering a list while a word is typed jamo by jamo (하, 한, 한그, 한글, ...),
+ * narrowing the previous result set against filtering every entry again on each keystroke.
+ * <p>
+ * Entries are synthetic (seeded random 2-9 syllable strings). One op types the whole word.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IncrementalFilterBenchmark {
+
+    private static final String[] TYPING = {"ㄷ", "대", "댛", "대하", "대한", "대한미", "대한민", "대한민구", "대한민국"};
+
+    @Param({"100000"})
+    public int entryCount;
+
+    private IncrementalFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            char[] entry = new char[2 + random.nextInt(8)];
+            for (int j = 0; j < entry.length; j++) {
+                entry[j] = (char) (0xAC00 + random.nextInt(11172));
+            }
+            entries.add(random.nextInt(100) == 0 ? new String(entry) + "대한민국" : new String(entry));
+        }
+        filter = new IncrementalFilter(entries);
+    }
+
+    @Benchmark
+    public int incremental() {
+        filter.reset();
+        int hits = 0;
+        for (String query : TYPING) {
+            hits += filter.filter(query);
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int fromScratch() {
+        int hits = 0;
+        for (String query : TYPING) {
+            filter.reset();
+            hits += filter.filter(query);
+        }
+        return hits;
+    }
+}
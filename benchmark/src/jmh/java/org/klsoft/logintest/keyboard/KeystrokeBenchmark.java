@@ -0,0 +1,164 @@
+package org.klsoft.logintest.keyboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-keystroke compose/delete sequence of KLSoftKeyboardService.onKey and deleteText,
+ * with a StringBuilder standing in for the editor behind the InputConnection.
+ * <p>
+ * "legacy" replays the kor->eng->kor round trip the service did before HangulAutomaton, on
+ * LegacyEngKorTypingConvertor as it was then, "automaton" replays what the service does now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeystrokeBenchmark {
+
+    private static final Pattern ENG_PATTERN = Pattern.compile("[a-zA-Z]");
+
+    private static final String SENTENCE = "안녕하세요 오늘은 날씨가 정말 좋아서 공원에 산책하러 가고 싶어요 "
+            + "닭갈비와 볶음밥을 먹고 괜찮으면 영화도 보러 갈까요";
+
+    /**
+     * Key codes the Korean keyboard sends for SENTENCE, one jamo per key.
+     */
+    private char[] keys;
+
+    private final StringBuilder editor = new StringBuilder();
+    private final HangulAutomaton automaton = new HangulAutomaton();
+
+    @Setup
+    public void setUp() {
+        String eng = EngKorTypingConvertor.convertKor2Eng(SENTENCE);
+        keys = new char[eng.length()];
+        for (int i = 0; i < eng.length(); i++) {
+            keys[i] = EngKorTypingConvertor.convertEng2Kor(eng.substring(i, i + 1)).charAt(0);
+        }
+        composeLegacy();
+        String legacy = editor.toString();
+        composeAutomaton();
+        if (!legacy.equals(SENTENCE) || !editor.toString().equals(SENTENCE)) {
+            throw new IllegalStateException("compose differs: " + legacy + " / " + editor);
+        }
+    }
+
+    @Benchmark
+    public int composeLegacy() {
+        editor.setLength(0);
+        for (char key : keys) {
+            legacyKey(key);
+        }
+        return editor.length();
+    }
+
+    @Benchmark
+    public int composeAutomaton() {
+        editor.setLength(0);
+        automaton.reset();
+        for (char key : keys) {
+            automatonKey(key);
+        }
+        return editor.length();
+    }
+
+    @Benchmark
+    public int composeAndDeleteLegacy() {
+        composeLegacy();
+        while (editor.length() > 0) {
+            legacyDelete();
+        }
+        return editor.length();
+    }
+
+    @Benchmark
+    public int composeAndDeleteAutomaton() {
+        composeAutomaton();
+        while (editor.length() > 0) {
+            automatonDelete();
+        }
+        return editor.length();
+    }
+
+    private CharSequence textBeforeCursor() {
+        int length = editor.length();
+        return length == 0 ? "" : editor.subSequence(length - 1, length);
+    }
+
+    private void deleteBeforeCursor() {
+        if (editor.length() > 0) {
+            editor.setLength(editor.length() - 1);
+        }
+    }
+
+    private void legacyKey(char code) {
+        String c;
+        if (Character.isLetter(code)) {
+            CharSequence sequence = textBeforeCursor();
+            if (ENG_PATTERN.matcher(sequence).find()) {
+                c = String.valueOf(code);
+            } else {
+                sequence = LegacyEngKorTypingConvertor.convertKor2Eng(sequence.toString());
+                c = LegacyEngKorTypingConvertor.convertKor2Eng(String.valueOf(code));
+                c = LegacyEngKorTypingConvertor.convertEng2Kor(sequence + c);
+                deleteBeforeCursor();
+            }
+        } else {
+            c = String.valueOf(code);
+        }
+        editor.append(c);
+    }
+
+    private void legacyDelete() {
+        CharSequence sequence = textBeforeCursor();
+        if (!"".contentEquals(sequence)) {
+            sequence = LegacyEngKorTypingConvertor.convertKor2Eng(sequence.toString());
+            sequence = sequence.subSequence(0, sequence.length() - 1);
+            sequence = LegacyEngKorTypingConvertor.convertEng2Kor(sequence.toString());
+            deleteBeforeCursor();
+            editor.append(sequence);
+        }
+    }
+
+    private void automatonKey(char code) {
+        boolean wasComposing = automaton.isComposing();
+        if (automaton.input(code)) {
+            commitHangul(wasComposing);
+        } else {
+            automaton.reset();
+            editor.append(code);
+        }
+    }
+
+    private void automatonDelete() {
+        if (!automaton.isComposing()) {
+            CharSequence sequence = textBeforeCursor();
+            if (sequence.length() > 0)
+                automaton.restore(sequence.charAt(0));
+        }
+        if (automaton.backspace()) {
+            commitHangul(true);
+        } else {
+            deleteBeforeCursor();
+        }
+    }
+
+    private void commitHangul(boolean wasComposing) {
+        char committed = automaton.getCommitted();
+        char composing = automaton.getComposing();
+        if (wasComposing)
+            deleteBeforeCursor();
+        if (committed != 0)
+            editor.append(committed);
+        if (composing != 0)
+            editor.append(composing);
+    }
+}
@@ -0,0 +1,147 @@
+package org.klsoft.logintest.keyboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-word latency of the jamo-level SpellCorrector (symmetric delete index, max distance 2)
+ * against a naive scan computing the bounded edit distance to every lexicon word.
+ * <p>
+ * The lexicon is synthetic (seeded random 2-4 syllable words), the queries are lexicon words
+ * with one syllable changed. Setup prints the index size and the heap held by the naive scan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpellCorrectorBenchmark {
+
+    private static final int MAX_DISTANCE = 2;
+    private static final int QUERIES = 256;
+
+    @Param({"10000", "50000"})
+    public int lexiconSize;
+
+    private SpellCorrector corrector;
+    private String[] lexicon;
+    private char[][] lexiconJamo;
+    private String[] queries;
+    private final String[] out = new String[5];
+    private int next;
+
+    private char[] query;
+    private int[][] rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < lexiconSize) {
+            words.add(randomWord(random, 2 + random.nextInt(3)));
+        }
+        lexicon = words.toArray(new String[0]);
+
+        SpellIndexBuilder builder = new SpellIndexBuilder(MAX_DISTANCE);
+        lexiconJamo = new char[lexicon.length][];
+        long naiveBytes = 0;
+        for (int i = 0; i < lexicon.length; i++) {
+            builder.add(lexicon[i], 1 + random.nextInt(1000));
+            lexiconJamo[i] = jamo(lexicon[i]);
+            naiveBytes += 16 + 2 * lexiconJamo[i].length;
+        }
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        builder.write(index);
+        corrector = new SpellCorrector(ByteBuffer.wrap(index.toByteArray()));
+        System.out.println("lexicon " + lexiconSize + ": index " + index.size() + " B, naive jamo arrays ~" + naiveBytes + " B");
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            char[] word = lexicon[random.nextInt(lexicon.length)].toCharArray();
+            word[random.nextInt(word.length)] = randomSyllable(random);
+            queries[i] = new String(word);
+        }
+        query = new char[SpellIndexBuilder.MAX_JAMO * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        rows = new int[3][query.length + 1];
+    }
+
+    @Benchmark
+    public int symSpell() {
+        String q = queries[next++ & (QUERIES - 1)];
+        return corrector.correct(q, 0, q.length(), out);
+    }
+
+    @Benchmark
+    public int levenshteinScan() {
+        String q = queries[next++ & (QUERIES - 1)];
+        int length = EngKorTypingConvertor.decomposeJamo(q, 0, q.length(), query, 0, null);
+        int found = 0;
+        for (char[] word : lexiconJamo) {
+            if (Math.abs(word.length - length) <= MAX_DISTANCE && distance(query, length, word) <= MAX_DISTANCE) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private int distance(char[] a, int aLength, char[] b) {
+        int[] prev2 = rows[0];
+        int[] prev = rows[1];
+        int[] cur = rows[2];
+        for (int j = 0; j <= b.length; j++) prev[j] = j;
+        for (int i = 1; i <= aLength; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length; j++) {
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + (a[i - 1] == b[j - 1] ? 0 : 1));
+                if (i > 1 && j > 1 && a[i - 1] == b[j - 2] && a[i - 2] == b[j - 1]) {
+                    d = Math.min(d, prev2[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > MAX_DISTANCE) {
+                return MAX_DISTANCE + 1;
+            }
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length];
+    }
+
+    private static char[] jamo(String word) {
+        char[] dst = new char[word.length() * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        int length = EngKorTypingConvertor.decomposeJamo(word, 0, word.length(), dst, 0, null);
+        char[] jamo = new char[length];
+        System.arraycopy(dst, 0, jamo, 0, length);
+        return jamo;
+    }
+
+    private static String randomWord(Random random, int syllables) {
+        char[] word = new char[syllables];
+        for (int i = 0; i < syllables; i++) {
+            word[i] = randomSyllable(random);
+        }
+        return new String(word);
+    }
+
+    private static char randomSyllable(Random random) {
+        int jongsung = random.nextBoolean() ? 0 : 1 + random.nextInt(27);
+        return (char) (0xAC00 + (random.nextInt(19) * 21 + random.nextInt(21)) * 28 + jongsung);
+    }
+}
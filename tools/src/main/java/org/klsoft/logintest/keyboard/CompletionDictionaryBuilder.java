@@ -0,0 +1,204 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Desc : CompletionDictionary 의 DAWG 생성기
+ * 단어목록(UTF-8, 한 줄에 한 단어)의 각 단어를 두벌식 키 입력열로 바꾸고, 정렬된 입력으로 최소화 DAWG 를 만든다.
+ * (Daciuk et al. 2000, incremental construction of minimal acyclic finite-state automata)
+ * 키 입력열을 다시 조합했을때 원래 단어가 되지 않는 단어는 건너뛴다.
+ * 생성된 파일은 app/src/main/assets/completion_dictionary.bin 에 둔다.
+ * <p>
+ * usage : CompletionDictionaryBuilder words.txt output
+ */
+final class CompletionDictionaryBuilder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final class Node {
+        final List<Node> targets = new ArrayList<>(4);
+        final StringBuilder labels = new StringBuilder(4);
+        boolean fin;
+
+        Node lastChild() {
+            return targets.isEmpty() ? null : targets.get(targets.size() - 1);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node)) return false;
+            Node other = (Node) o;
+            if (fin != other.fin || targets.size() != other.targets.size()
+                    || !labels.toString().equals(other.labels.toString())) {
+                return false;
+            }
+            // 자식 node 는 이미 등록된(유일한) node 이므로 동일성으로 비교한다.
+            for (int i = 0; i < targets.size(); i++) {
+                if (targets.get(i) != other.targets.get(i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = fin ? 1 : 0;
+            for (int i = 0; i < targets.size(); i++) {
+                hash = hash * 31 + labels.charAt(i);
+                hash = hash * 31 + System.identityHashCode(targets.get(i));
+            }
+            return hash;
+        }
+    }
+
+    private final TreeSet<String> sorted = new TreeSet<>();
+    private final Node root = new Node();
+    private final Map<Node, Node> register = new HashMap<>();
+    private String previous = "";
+
+    /**
+     * @return 키 입력열로 바꿀 수 없거나, 다시 조합했을때 원래 단어가 되지 않으면 false
+     */
+    boolean add(String word) {
+        String keys = EngKorTypingConvertor.convertKor2Eng(word);
+        if (keys.length() > CompletionDictionary.MAX_WORD_KEYS || !isKeys(keys)
+                || !word.equals(EngKorTypingConvertor.convertEng2Kor(keys))) {
+            return false;
+        }
+        sorted.add(keys);
+        return true;
+    }
+
+    /**
+     * @param keys 키 입력열, 이전에 더한 것보다 뒤(String 순서)여야 한다.
+     */
+    private void insert(String keys) {
+        int common = 0;
+        while (common < keys.length() && common < previous.length()
+                && keys.charAt(common) == previous.charAt(common)) {
+            common++;
+        }
+        Node node = root;
+        for (int i = 0; i < common; i++) {
+            node = node.lastChild();
+        }
+        if (!node.targets.isEmpty()) {
+            replaceOrRegister(node);
+        }
+        for (int i = common; i < keys.length(); i++) {
+            Node child = new Node();
+            node.labels.append(keys.charAt(i));
+            node.targets.add(child);
+            node = child;
+        }
+        node.fin = true;
+        previous = keys;
+    }
+
+    private void replaceOrRegister(Node node) {
+        Node child = node.lastChild();
+        if (!child.targets.isEmpty()) {
+            replaceOrRegister(child);
+        }
+        Node registered = register.get(child);
+        if (registered != null) {
+            node.targets.set(node.targets.size() - 1, registered);
+        } else {
+            register.put(child, child);
+        }
+    }
+
+    /**
+     * 더한 단어로 DAWG 를 만들어 쓴다. 한 번만 호출한다.
+     */
+    void write(OutputStream output) throws IOException {
+        for (String keys : sorted) {
+            insert(keys);
+        }
+        sorted.clear();
+        if (!root.targets.isEmpty()) {
+            replaceOrRegister(root);
+        }
+        // 각 node 의 첫 arc index 를 정한다. arc 가 없는 node 는 0, index 0 은 비워둔다.
+        Map<Node, Integer> index = new IdentityHashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        int arcCount = assign(root, index, nodes, 1);
+        if (arcCount > CompletionDictionary.MAX_ARCS) {
+            throw new IllegalStateException("too many arcs " + arcCount);
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(CompletionDictionary.MAGIC);
+        out.writeInt(CompletionDictionary.VERSION);
+        out.writeInt(arcCount);
+        out.writeInt(root.targets.isEmpty() ? 0 : index.get(root));
+        out.writeInt(0);
+        for (Node node : nodes) {
+            for (int i = 0; i < node.targets.size(); i++) {
+                Node target = node.targets.get(i);
+                int value = CompletionDictionary.label(node.labels.charAt(i));
+                if (target.fin) value |= CompletionDictionary.ARC_FINAL;
+                if (i == node.targets.size() - 1) value |= CompletionDictionary.ARC_LAST;
+                value |= (target.targets.isEmpty() ? 0 : index.get(target)) << CompletionDictionary.TARGET_SHIFT;
+                out.writeInt(value);
+            }
+        }
+        out.flush();
+    }
+
+    private static int assign(Node node, Map<Node, Integer> index, List<Node> nodes, int next) {
+        if (node.targets.isEmpty() || index.containsKey(node)) {
+            return next;
+        }
+        index.put(node, next);
+        nodes.add(node);
+        next += node.targets.size();
+        for (Node target : node.targets) {
+            next = assign(target, index, nodes, next);
+        }
+        return next;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompletionDictionaryBuilder words.txt output");
+            System.exit(1);
+        }
+        CompletionDictionaryBuilder builder = new CompletionDictionaryBuilder();
+        int words = 0;
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim();
+                if (word.isEmpty()) continue;
+                if (builder.add(word)) words++;
+                else skipped++;
+            }
+        }
+        try (OutputStream out = new FileOutputStream(new File(args[1]))) {
+            builder.write(out);
+        }
+        System.out.println(words + " words, " + skipped + " skipped");
+    }
+
+    private static boolean isKeys(String keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            if (CompletionDictionary.label(keys.charAt(i)) == -1) return false;
+        }
+        return true;
+    }
+}
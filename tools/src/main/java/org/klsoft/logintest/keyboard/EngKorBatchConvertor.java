@@ -0,0 +1,225 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Desc : 대용량 파일 영문<->한글 일괄 변환기
+ * 입력파일을 memory-map 한 후, 음절이 나뉘지 않는 위치(영문자가 아닌 ASCII 문자 뒤)에서 잘라
+ * fork-join pool 에서 병렬로 변환하고, 입력 순서대로 출력한다.
+ * 변환할 문자가 없는 조각은 디코딩/인코딩 없이 transferTo 로 그대로 복사한다.
+ * 지원 인코딩 : UTF-8, UTF-16 (BOM), UTF-16BE, UTF-16LE
+ * <p>
+ * usage : EngKorBatchConvertor (eng2kor|kor2eng) input output [charset]
+ */
+final class EngKorBatchConvertor {
+
+    enum Direction {
+        ENG2KOR, KOR2ENG
+    }
+
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * 자를 위치를 찾을때 한번에 map 하는 크기
+     **/
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset UTF_16 = Charset.forName("UTF-16");
+    private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    private final Direction direction;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    EngKorBatchConvertor(Direction direction) {
+        this(direction, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    EngKorBatchConvertor(Direction direction, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < SCAN_WINDOW) {
+            throw new IllegalArgumentException("chunkSize < " + SCAN_WINDOW);
+        }
+        this.direction = direction;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * input 파일을 변환하여 output 파일에 쓴다.
+     *
+     * @param charset 입/출력 인코딩
+     */
+    void convert(File input, File output, Charset charset) throws IOException {
+        try (FileChannel in = new FileInputStream(input).getChannel();
+             FileChannel out = new FileOutputStream(output).getChannel()) {
+            long size = in.size();
+            long pos = 0;
+
+            // UTF-16 은 BOM 으로 byte order 를 정하고, BOM 은 그대로 복사한다.
+            int unitSize = UTF_8.equals(charset) ? 1 : 2;
+            if (UTF_16.equals(charset)) {
+                charset = UTF_16BE;
+                if (size >= 2) {
+                    ByteBuffer bom = in.map(FileChannel.MapMode.READ_ONLY, 0, 2);
+                    int mark = (bom.get(0) & 0xFF) << 8 | (bom.get(1) & 0xFF);
+                    if (mark == 0xFEFF || mark == 0xFFFE) {
+                        charset = mark == 0xFEFF ? UTF_16BE : UTF_16LE;
+                        transfer(in, 0, 2, out);
+                        pos = 2;
+                    }
+                }
+            } else if (unitSize == 2 && !UTF_16BE.equals(charset) && !UTF_16LE.equals(charset)) {
+                throw new IllegalArgumentException("unsupported charset " + charset);
+            }
+            boolean littleEndian = UTF_16LE.equals(charset);
+
+            // 병렬로 변환하되, 메모리 사용량을 제한하기 위해 진행중인 조각 수를 제한한다.
+            int window = pool.getParallelism() * 2;
+            ArrayDeque<ChunkTask> pending = new ArrayDeque<>(window);
+            while (pos < size || !pending.isEmpty()) {
+                while (pos < size && pending.size() < window) {
+                    long end = findChunkEnd(in, pos, size, unitSize, littleEndian);
+                    ChunkTask task = new ChunkTask(in, pos, end - pos, charset, direction);
+                    pool.execute(task);
+                    pending.add(task);
+                    pos = end;
+                }
+                ChunkTask done = pending.poll();
+                ByteBuffer converted = done.join();
+                if (converted == null) {
+                    transfer(in, done.start, done.length, out);
+                } else {
+                    while (converted.hasRemaining()) {
+                        out.write(converted);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * start + chunkSize 이후의 첫번째 안전한 위치를 찾는다.
+     * 영문자가 아닌 ASCII 문자는 어떤 음절에도 포함되지 않으므로, 그 바로 뒤에서 자르면
+     * 앞/뒤 조각을 따로 변환해도 전체를 변환한 결과와 같다.
+     */
+    private long findChunkEnd(FileChannel in, long start, long size, int unitSize, boolean littleEndian) throws IOException {
+        long pos = start + chunkSize - chunkSize % unitSize;
+        while (pos < size) {
+            int length = (int) Math.min(SCAN_WINDOW, size - pos);
+            if (length < unitSize) break;
+            ByteBuffer scan = in.map(FileChannel.MapMode.READ_ONLY, pos, length);
+            for (int i = 0; i + unitSize <= length; i += unitSize) {
+                int c;
+                if (unitSize == 1) {
+                    c = scan.get(i) & 0xFF;
+                } else if (littleEndian) {
+                    c = (scan.get(i + 1) & 0xFF) << 8 | (scan.get(i) & 0xFF);
+                } else {
+                    c = (scan.get(i) & 0xFF) << 8 | (scan.get(i + 1) & 0xFF);
+                }
+                if (c < 0x80 && !isAlphabet(c)) {
+                    return pos + i + unitSize;
+                }
+            }
+            pos += length - length % unitSize;
+        }
+        return size;
+    }
+
+    private static boolean isAlphabet(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static void transfer(FileChannel in, long start, long length, FileChannel out) throws IOException {
+        while (length > 0) {
+            long n = in.transferTo(start, length, out);
+            start += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * 한 조각을 변환한다. 변환할 문자가 없으면 null 을 돌려준다.
+     */
+    private static final class ChunkTask extends RecursiveTask<ByteBuffer> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel in;
+        private final long start;
+        private final long length;
+        private final Charset charset;
+        private final Direction direction;
+
+        ChunkTask(FileChannel in, long start, long length, Charset charset, Direction direction) {
+            this.in = in;
+            this.start = start;
+            this.length = length;
+            this.charset = charset;
+            this.direction = direction;
+        }
+
+        @Override
+        protected ByteBuffer compute() {
+            try {
+                ByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, start, length);
+                CharBuffer chars = charset.newDecoder().decode(mapped);
+                if (!needsConversion(chars)) {
+                    return null;
+                }
+                CharBuffer converted;
+                if (direction == Direction.ENG2KOR) {
+                    char[] dst = new char[chars.length()];
+                    int n = EngKorTypingConvertor.convertEng2Kor(chars, 0, chars.length(), dst, 0, false);
+                    converted = CharBuffer.wrap(dst, 0, n);
+                } else {
+                    StringBuilder sb = new StringBuilder(chars.length() * 2);
+                    for (int i = 0; i < chars.length(); i++) {
+                        EngKorTypingConvertor.convertKor2Eng(chars.charAt(i), sb);
+                    }
+                    converted = CharBuffer.wrap(sb);
+                }
+                return charset.newEncoder().encode(converted);
+            } catch (CharacterCodingException e) {
+                throw new IllegalArgumentException("malformed " + charset + " input at " + start, e);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private boolean needsConversion(CharBuffer chars) {
+            for (int i = 0; i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                if (direction == Direction.ENG2KOR
+                        ? isAlphabet(c)
+                        : (c >= 0x3131 && c <= 0x3163) || (c >= 0xAC00 && c <= 0xD7A3)
+                        || (c >= 0x1100 && c <= 0x11FF)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: EngKorBatchConvertor (eng2kor|kor2eng) input output [charset]");
+            System.exit(1);
+        }
+        Direction direction = "kor2eng".equalsIgnoreCase(args[0]) ? Direction.KOR2ENG : Direction.ENG2KOR;
+        Charset charset = args.length > 3 ? Charset.forName(args[3]) : UTF_8;
+        new EngKorBatchConvertor(direction).convert(new File(args[1]), new File(args[2]), charset);
+    }
+}
@@ -0,0 +1,127 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Desc : HanjaDictionary 생성기
+ * 한자 목록(UTF-8, 한 줄에 "한글:한자[:뜻]" or "한글\t한자")을 한글 단어로 정렬하여 HanjaDictionary 의 형식으로 쓴다.
+ * 같은 한글 단어의 한자 후보는 목록에 나온 순서를 지킨다. 한글과 한자의 길이가 다른 줄, # 으로 시작하는 줄은 건너뛴다.
+ * 생성된 파일은 app/src/main/assets/hanja_dictionary.bin 에 둔다.
+ * <p>
+ * usage : HanjaDictionaryBuilder hanja.txt output
+ */
+final class HanjaDictionaryBuilder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+
+    /**
+     * @return 한글 단어가 아니거나 길이가 맞지 않아 더할 수 없으면 false
+     */
+    boolean add(String hangul, String hanja) {
+        if (hangul.isEmpty() || hangul.length() > HanjaDictionary.MAX_KEY_LENGTH
+                || hangul.length() != hanja.length() || !isHangul(hangul)) {
+            return false;
+        }
+        Set<String> candidates = entries.get(hangul);
+        if (candidates == null) {
+            candidates = new LinkedHashSet<>();
+            entries.put(hangul, candidates);
+        }
+        candidates.add(hanja);
+        return true;
+    }
+
+    /**
+     * 사전 파일을 쓴다. output 은 닫지 않는다.
+     */
+    void write(OutputStream output) throws IOException {
+        // block 별로 앞부분을 생략한 data 를 만든다. TreeMap 의 순서는 char 순서이다.
+        StringBuilder data = new StringBuilder();
+        List<Integer> blocks = new ArrayList<>();
+        String previous = "";
+        int index = 0;
+        for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            int shared = 0;
+            if (index % HanjaDictionary.BLOCK_ENTRIES == 0) {
+                blocks.add(data.length());
+            } else {
+                while (shared < key.length() && shared < previous.length()
+                        && key.charAt(shared) == previous.charAt(shared)) {
+                    shared++;
+                }
+            }
+            data.append((char) shared).append((char) (key.length() - shared)).append(key, shared, key.length());
+            data.append((char) entry.getValue().size());
+            for (String hanja : entry.getValue()) {
+                data.append(hanja);
+            }
+            previous = key;
+            index++;
+        }
+        blocks.add(data.length());
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(HanjaDictionary.MAGIC);
+        out.writeInt(HanjaDictionary.VERSION);
+        out.writeInt(entries.size());
+        out.writeInt(blocks.size() - 1);
+        out.writeInt(data.length());
+        for (int offset : blocks) {
+            out.writeInt(offset);
+        }
+        out.writeChars(data.toString());
+        out.flush();
+    }
+
+    private static boolean isHangul(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < EngKorTypingConvertor.HANGUL_CHAR_START_CODE
+                    || c >= EngKorTypingConvertor.HANGUL_CHAR_START_CODE + EngKorTypingConvertor.TOTAL_HANGUL_CHAR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: HanjaDictionaryBuilder hanja.txt output");
+            System.exit(1);
+        }
+        HanjaDictionaryBuilder builder = new HanjaDictionaryBuilder();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split(line.indexOf('\t') >= 0 ? "\t" : ":");
+                if (fields.length < 2 || !builder.add(fields[0].trim(), fields[1].trim())) {
+                    skipped++;
+                }
+            }
+        }
+        try (OutputStream out = new FileOutputStream(new File(args[1]))) {
+            builder.write(out);
+        }
+        System.out.println(builder.entries.size() + " words, " + skipped + " skipped");
+    }
+}
@@ -0,0 +1,166 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Desc : LanguageDetector 의 3-gram 모델 생성기
+ * 영어/한국어 말뭉치(UTF-8 텍스트)에서 단어별 3-gram 을 세고, 보간(interpolation)한 확률의 비용을 기록한다.
+ * 생성된 파일은 app/src/main/assets/language_model.bin 에 두면 KLSoftKeyboardService 가 memory-map 한다.
+ * 저장소에는 assets 가 없으므로, 모델을 생성해 넣기 전에는 판별 기능이 꺼져 있다.
+ * (assets 는 압축하지 않아야 map 할 수 있다. build.gradle 의 noCompress 참고)
+ * <p>
+ * usage : LanguageModelBuilder english.txt korean.txt output
+ */
+final class LanguageModelBuilder {
+
+    /**
+     * 3-gram/2-gram/1-gram/균등분포 보간 비율
+     **/
+    private static final double[] LAMBDA = {0.6, 0.25, 0.1, 0.05};
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int symbols;
+    private final long[] trigram;
+    private final long[] bigram;
+    private final long[] unigram;
+
+    private LanguageModelBuilder(int symbols) {
+        this.symbols = symbols;
+        this.trigram = new long[symbols * symbols * symbols];
+        this.bigram = new long[symbols * symbols];
+        this.unigram = new long[symbols];
+    }
+
+    /**
+     * 단어 하나의 기호열을 센다. 앞/뒤는 단어경계(0)로 채운다.
+     */
+    private void addWord(int[] word, int length) {
+        int prev2 = 0, prev1 = 0;
+        for (int i = 0; i <= length; i++) {
+            int symbol = i < length ? word[i] : 0;
+            trigram[(prev2 * symbols + prev1) * symbols + symbol]++;
+            bigram[prev1 * symbols + symbol]++;
+            unigram[symbol]++;
+            prev2 = prev1;
+            prev1 = symbol;
+        }
+    }
+
+    /**
+     * [앞 기호 2개][기호] 순서의 비용표를 만든다.
+     */
+    private byte[] build() {
+        long[] trigramContext = new long[symbols * symbols];
+        long[] bigramContext = new long[symbols];
+        long total = 0;
+        for (int i = 0; i < trigram.length; i++) trigramContext[i / symbols] += trigram[i];
+        for (int i = 0; i < bigram.length; i++) bigramContext[i / symbols] += bigram[i];
+        for (long count : unigram) total += count;
+
+        byte[] costs = new byte[trigram.length];
+        for (int i = 0; i < trigram.length; i++) {
+            int symbol = i % symbols;
+            int prev1 = i / symbols % symbols;
+            double p = LAMBDA[3] / symbols;
+            p += ratio(trigram[i], trigramContext[i / symbols]) * LAMBDA[0];
+            p += ratio(bigram[prev1 * symbols + symbol], bigramContext[prev1]) * LAMBDA[1];
+            p += ratio(unigram[symbol], total) * LAMBDA[2];
+            long cost = Math.round(-Math.log(p) / Math.log(2) * LanguageDetector.COST_SCALE);
+            costs[i] = (byte) Math.min(cost, 0xFF);
+        }
+        return costs;
+    }
+
+    private static double ratio(long count, long total) {
+        return total == 0 ? 0 : (double) count / total;
+    }
+
+    private static LanguageModelBuilder countEnglish(BufferedReader reader) throws IOException {
+        LanguageModelBuilder builder = new LanguageModelBuilder(LanguageDetector.ENGLISH_SYMBOLS);
+        int[] word = new int[LanguageDetector.MAX_TOKEN_LENGTH];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int length = 0;
+            for (int i = 0; i <= line.length(); i++) {
+                int symbol = i < line.length() ? LanguageDetector.englishSymbol(line.charAt(i)) : 0;
+                if (symbol != 0) {
+                    if (length < word.length) word[length] = symbol;
+                    length++;
+                } else {
+                    if (length > 0 && length <= word.length) builder.addWord(word, length);
+                    length = 0;
+                }
+            }
+        }
+        return builder;
+    }
+
+    private static LanguageModelBuilder countKorean(BufferedReader reader) throws IOException {
+        LanguageModelBuilder builder = new LanguageModelBuilder(LanguageDetector.KOREAN_SYMBOLS);
+        int[] word = new int[LanguageDetector.MAX_TOKEN_LENGTH];
+        IntBuffer jamo = IntBuffer.allocate(EngKorTypingConvertor.MAX_JAMO_PER_CHAR);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int length = 0;
+            for (int i = 0; i <= line.length(); i++) {
+                char c = i < line.length() ? line.charAt(i) : ' ';
+                if (c >= EngKorTypingConvertor.HANGUL_CHAR_START_CODE
+                        && c < EngKorTypingConvertor.HANGUL_CHAR_START_CODE + EngKorTypingConvertor.TOTAL_HANGUL_CHAR) {
+                    jamo.clear();
+                    EngKorTypingConvertor.decomposeJamoIdx(line, i, i + 1, jamo, null);
+                    for (int j = 0; j < jamo.position(); j++, length++) {
+                        if (length < word.length) word[length] = LanguageDetector.koreanSymbol(jamo.get(j));
+                    }
+                } else {
+                    if (length > 0 && length <= word.length) builder.addWord(word, length);
+                    length = 0;
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * 두 말뭉치로 모델을 만들어 header 와 함께 기록한다.
+     */
+    static void write(BufferedReader english, BufferedReader korean, OutputStream output) throws IOException {
+        byte[] englishCosts = countEnglish(english).build();
+        byte[] koreanCosts = countKorean(korean).build();
+
+        ByteBuffer header = ByteBuffer.allocate(LanguageDetector.HEADER_SIZE);
+        header.putInt(LanguageDetector.MAGIC)
+                .putInt(LanguageDetector.VERSION)
+                .putInt(LanguageDetector.ENGLISH_SYMBOLS)
+                .putInt(LanguageDetector.KOREAN_SYMBOLS);
+        output.write(header.array());
+        output.write(englishCosts);
+        output.write(koreanCosts);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: LanguageModelBuilder english.txt korean.txt output");
+            System.exit(1);
+        }
+        try (BufferedReader english = open(args[0]);
+             BufferedReader korean = open(args[1]);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(args[2]))) {
+            write(english, korean, out);
+        }
+    }
+
+    private static BufferedReader open(String path) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(new File(path)), UTF_8));
+    }
+}
@@ -0,0 +1,173 @@
+package org.klsoft.logintest.keyboard;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Desc : SpellCorrector 의 symmetric delete 색인 생성기
+ * 단어목록(UTF-8, 한 줄에 "단어" or "단어\t빈도")의 각 단어를 자모로 분해하고,
+ * maxDistance 개까지 지운 자모열의 hash 를 bucket 에 모아 SpellCorrector 의 형식으로 쓴다.
+ * 생성된 파일은 app/src/main/assets/spell_index.bin 에 둔다.
+ * <p>
+ * usage : SpellIndexBuilder words.txt output [maxDistance]
+ */
+final class SpellIndexBuilder {
+
+    static final int DEFAULT_MAX_DISTANCE = 2;
+
+    /**
+     * 색인할 단어의 최대 자모수
+     **/
+    static final int MAX_JAMO = 24;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int maxDistance;
+    private final List<String> words = new ArrayList<>();
+    private final List<Integer> frequencies = new ArrayList<>();
+
+    SpellIndexBuilder(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * @return 자모수가 MAX_JAMO 를 넘어 색인할 수 없으면 false
+     */
+    boolean add(String word, int frequency) {
+        char[] jamo = new char[word.length() * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        if (EngKorTypingConvertor.decomposeJamo(word, 0, word.length(), jamo, 0, null) > MAX_JAMO) {
+            return false;
+        }
+        words.add(word);
+        frequencies.add(frequency);
+        return true;
+    }
+
+    void write(OutputStream output) throws IOException {
+        // (hash, 단어 id) 를 모아서 정렬한다.
+        char[] jamo = new char[MAX_JAMO * EngKorTypingConvertor.MAX_JAMO_PER_CHAR];
+        char[] scratch = new char[jamo.length];
+        int[] hashes = new int[SpellCorrector.deleteCount(MAX_JAMO, maxDistance)];
+        long[] pairs = new long[1024];
+        int pairCount = 0;
+        for (int id = 0; id < words.size(); id++) {
+            String word = words.get(id);
+            int length = EngKorTypingConvertor.decomposeJamo(word, 0, word.length(), jamo, 0, null);
+            int count = SpellCorrector.deleteHashes(jamo, length, maxDistance, hashes, scratch);
+            if (pairs.length < pairCount + count) {
+                pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, pairCount + count));
+            }
+            for (int i = 0; i < count; i++) {
+                pairs[pairCount++] = (long) hashes[i] << 32 | id;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int distinct = 0;
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || (pairs[i] >>> 32) != (pairs[i - 1] >>> 32)) distinct++;
+        }
+
+        // bucket 하나에 평균 2개 정도의 삭제 문자열이 들어가도록 한다.
+        int bucketCount = Integer.highestOneBit(Math.max(1, distinct / 2));
+        int mask = bucketCount - 1;
+        for (int i = 0; i < pairCount; i++) {
+            int hash = (int) (pairs[i] >>> 32);
+            pairs[i] = (long) (hash & mask) << 32 | (pairs[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        int[] buckets = new int[bucketCount + 1];
+        ByteArrayOutputStream postings = new ByteArrayOutputStream(pairCount * 2);
+        int bucket = 0;
+        int prevId = 0;
+        for (int i = 0; i < pairCount; i++) {
+            int b = (int) (pairs[i] >>> 32);
+            int id = (int) pairs[i];
+            if (i > 0 && pairs[i] == pairs[i - 1]) continue;
+            while (bucket < b) {
+                buckets[++bucket] = postings.size();
+                prevId = 0;
+            }
+            writeVarint(postings, id - prevId);
+            prevId = id;
+        }
+        while (bucket < bucketCount) {
+            buckets[++bucket] = postings.size();
+        }
+
+        int wordChars = 0;
+        for (String word : words) wordChars += word.length();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(SpellCorrector.MAGIC);
+        out.writeInt(SpellCorrector.VERSION);
+        out.writeInt(maxDistance);
+        out.writeInt(MAX_JAMO);
+        out.writeInt(words.size());
+        out.writeInt(bucketCount);
+        out.writeInt(postings.size());
+        out.writeInt(wordChars);
+        for (int offset : buckets) out.writeInt(offset);
+        postings.writeTo(out);
+        for (int frequency : frequencies) out.writeInt(frequency);
+        int offset = 0;
+        for (String word : words) {
+            out.writeInt(offset);
+            offset += word.length();
+        }
+        out.writeInt(offset);
+        for (String word : words) out.writeChars(word);
+        out.flush();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: SpellIndexBuilder words.txt output [maxDistance]");
+            System.exit(1);
+        }
+        int maxDistance = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_DISTANCE;
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                String word = (tab < 0 ? line : line.substring(0, tab)).trim();
+                if (word.isEmpty()) continue;
+                int frequency = tab < 0 ? 1 : Integer.parseInt(line.substring(tab + 1).trim());
+                Integer prev = entries.get(word);
+                entries.put(word, prev == null ? frequency : prev + frequency);
+            }
+        }
+        SpellIndexBuilder builder = new SpellIndexBuilder(maxDistance);
+        int skipped = 0;
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            if (!builder.add(entry.getKey(), entry.getValue())) skipped++;
+        }
+        try (OutputStream out = new FileOutputStream(new File(args[1]))) {
+            builder.write(out);
+        }
+        System.out.println(entries.size() - skipped + " words, " + skipped + " skipped");
+    }
+}
@@ -0,0 +1,116 @@
+package org.klsoft.logintest.keyboard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Files of several chunks, including one with nothing to convert, must convert exactly like the
+ * whole text passed to convertEng2Kor/convertKor2Eng, in UTF-8 and in UTF-16 with either BOM.
+ */
+public class EngKorBatchConvertorTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset UTF_16 = Charset.forName("UTF-16");
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    private static final String OTHER_CHARS = " .,?!\n1";
+
+    private ForkJoinPool pool;
+    private File input;
+    private File output;
+
+    @Before
+    public void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        input = File.createTempFile("batch", ".in");
+        output = File.createTempFile("batch", ".out");
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        input.delete();
+        output.delete();
+    }
+
+    /**
+     * Random syllables, compatibility jamo and separators, with a run of digits longer than a
+     * chunk in the middle.
+     */
+    private static String randomKorean(Random random, int length) {
+        StringBuilder kor = new StringBuilder(length + CHUNK_SIZE);
+        for (int i = 0; i < length; i++) {
+            if (i == length / 2) {
+                for (int j = 0; j < CHUNK_SIZE / 2; j++) {
+                    kor.append("12 ");
+                }
+            }
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                kor.append((char) (0xAC00 + random.nextInt(11172)));
+            } else if (kind < 8) {
+                kor.append((char) (0x3131 + random.nextInt(0x3163 - 0x3131 + 1)));
+            } else {
+                kor.append(OTHER_CHARS.charAt(random.nextInt(OTHER_CHARS.length())));
+            }
+        }
+        return kor.toString();
+    }
+
+    private String convert(EngKorBatchConvertor.Direction direction, String text, Charset charset, byte[] bom)
+            throws IOException {
+        byte[] encoded = text.getBytes(charset);
+        byte[] bytes = new byte[bom.length + encoded.length];
+        System.arraycopy(bom, 0, bytes, 0, bom.length);
+        System.arraycopy(encoded, 0, bytes, bom.length, encoded.length);
+        Files.write(input.toPath(), bytes);
+        assertTrue(bytes.length > 4 * CHUNK_SIZE);
+
+        Charset fileCharset = bom.length == 0 ? charset : UTF_16;
+        new EngKorBatchConvertor(direction, pool, CHUNK_SIZE).convert(input, output, fileCharset);
+        byte[] converted = Files.readAllBytes(output.toPath());
+        for (int i = 0; i < bom.length; i++) {
+            assertEquals(bom[i], converted[i]);
+        }
+        return new String(converted, bom.length, converted.length - bom.length, charset);
+    }
+
+    private void assertBothDirections(Charset charset, byte[] bom) throws IOException {
+        String kor = randomKorean(new Random(charset.name().hashCode()), 150000);
+        String eng = EngKorTypingConvertor.convertKor2Eng(kor);
+        assertEquals(EngKorTypingConvertor.convertEng2Kor(eng),
+                convert(EngKorBatchConvertor.Direction.ENG2KOR, eng, charset, bom));
+        assertEquals(eng, convert(EngKorBatchConvertor.Direction.KOR2ENG, kor, charset, bom));
+    }
+
+    @Test
+    public void convertsUtf8() throws IOException {
+        assertBothDirections(UTF_8, new byte[0]);
+    }
+
+    @Test
+    public void convertsUtf16BigEndianWithBom() throws IOException {
+        assertBothDirections(Charset.forName("UTF-16BE"), new byte[]{(byte) 0xFE, (byte) 0xFF});
+    }
+
+    @Test
+    public void convertsUtf16LittleEndianWithBom() throws IOException {
+        assertBothDirections(UTF_16LE, new byte[]{(byte) 0xFF, (byte) 0xFE});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAChunkSmallerThanTheScanWindow() {
+        new EngKorBatchConvertor(EngKorBatchConvertor.Direction.ENG2KOR, pool, CHUNK_SIZE - 1);
+    }
+}